@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Runs the benchmarks with the JMH command line, defaulting to a JSON result
+ * file and the {@code gc} profiler so that results of different releases can
+ * be compared mechanically. Any of the defaults may be overridden with the
+ * usual options (e.g. {@code -rf csv}, {@code -prof stack}); unless given
+ * with {@code -rff}, the result file is named after the chosen format (e.g.
+ * {@code target/jmh-result.csv}).
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public final class Benchmarks {
+
+
+    public static void main(final String[] args) throws Exception {
+
+        final List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        final int rf = arguments.indexOf("-rf");
+        final String format = rf >= 0 && rf + 1 < arguments.size()
+                              ? arguments.get(rf + 1).toLowerCase(Locale.ROOT)
+                              : "json";
+        if (rf < 0) {
+            arguments.add("-rf");
+            arguments.add(format);
+        }
+        if (!arguments.contains("-rff")) {
+            // named after the format, whichever is chosen
+            arguments.add("-rff");
+            arguments.add("target/jmh-result." + format);
+        }
+        if (!arguments.contains("-prof")) {
+            arguments.add("-prof");
+            arguments.add("gc");
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+
+
+    private Benchmarks() {
+
+        super();
+    }
+
+
+}
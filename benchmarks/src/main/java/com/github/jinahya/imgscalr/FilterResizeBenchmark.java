@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks the {@link Filter} variants of the resize family, the same way
+ * {@link ResizeBenchmark} does for scaling methods.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class FilterResizeBenchmark {
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        sourceImage = Images.read(image);
+        targetWidth = Math.max(1, Math.round(sourceImage.getWidth() * scale));
+        targetHeight = Math.max(1, targetWidth * 3 / 4);
+        plan = ResizePlan.of(sourceImage.getWidth(), sourceImage.getHeight(),
+                             targetWidth, targetHeight, .5f, .5f, .5f,
+                             filter);
+    }
+
+
+    @Benchmark
+    public BufferedImage resize() {
+
+        return Scalr.resize(sourceImage, filter, targetWidth, targetHeight,
+                            .5f, .5f, .5f);
+    }
+
+
+    /**
+     * Same as {@link #resize()} with the weight tables computed once.
+     *
+     * @return a resized image.
+     */
+    @Benchmark
+    public BufferedImage resizePlanned() {
+
+        return plan.resize(sourceImage);
+    }
+
+
+    @Benchmark
+    public BufferedImage resizeInbox() {
+
+        return Scalr.resizeInbox(sourceImage, filter, targetWidth,
+                                 targetHeight, .5f, .5f);
+    }
+
+
+    @Benchmark
+    public BufferedImage resizeOutbox() {
+
+        return Scalr.resizeOutbox(sourceImage, filter, targetWidth,
+                                  targetHeight, .5f, .5f);
+    }
+
+
+    @Param({"506x1024.jpg", "1920x1080.jpg", Images.LARGE_OPAQUE,
+            Images.TRANSPARENT, Images.INDEXED})
+    private String image;
+
+
+    @Param({"BOX", "BILINEAR", "BICUBIC", "LANCZOS3"})
+    private Filter filter;
+
+
+    @Param({".25", "1.5"})
+    private float scale;
+
+
+    private BufferedImage sourceImage;
+
+
+    private int targetWidth;
+
+
+    private int targetHeight;
+
+
+    private ResizePlan plan;
+
+
+}
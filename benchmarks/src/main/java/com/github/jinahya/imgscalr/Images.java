@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+
+/**
+ * Source images for benchmarks. Names ending with {@code .jpg} are the
+ * bundled fixtures; the others are generated.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class Images {
+
+
+    /**
+     * A 3000x2000 opaque {@link BufferedImage#TYPE_3BYTE_BGR} image.
+     */
+    static final String LARGE_OPAQUE = "large-opaque";
+
+
+    /**
+     * A 1024x1024 {@link BufferedImage#TYPE_INT_ARGB} image with varying
+     * alpha.
+     */
+    static final String TRANSPARENT = "transparent";
+
+
+    /**
+     * A 1024x768 {@link BufferedImage#TYPE_BYTE_INDEXED} image.
+     */
+    static final String INDEXED = "indexed";
+
+
+    static BufferedImage read(final String name) throws IOException {
+
+        switch (name) {
+            case LARGE_OPAQUE:
+                return generate(3000, 2000, BufferedImage.TYPE_3BYTE_BGR);
+            case TRANSPARENT:
+                return generate(1024, 1024, BufferedImage.TYPE_INT_ARGB);
+            case INDEXED:
+                return generate(1024, 768, BufferedImage.TYPE_BYTE_INDEXED);
+            default:
+                break;
+        }
+        try (InputStream stream
+            = Images.class.getResourceAsStream("/" + name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("unknown image: " + name);
+            }
+            return ImageIO.read(stream);
+        }
+    }
+
+
+    /**
+     * Generates a smooth gradient with some noise, so that neither the
+     * resamplers nor the encoders see a degenerate image.
+     */
+    private static BufferedImage generate(final int width, final int height,
+                                          final int type) {
+
+        final BufferedImage image = new BufferedImage(width, height, type);
+        final Random random = new Random(width * 31L + height);
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int r = x * 255 / width;
+                final int g = y * 255 / height;
+                final int b = (r + g) / 2 ^ random.nextInt(32);
+                final int a = (x + y) * 255 / (width + height);
+                row[x] = a << 24 | r << 16 | g << 8 | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+
+    private Images() {
+
+        super();
+    }
+
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the scalar and the vectorized {@link Kernels} on the rows of a
+ * 1920x1080 to 480x270 resample. The vectorized kernels need Java 17 or
+ * later.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true",
+                                   "--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class KernelsBenchmark {
+
+
+    private static int[] pixels(final Random random, final int length) {
+
+        final int[] pixels = new int[length];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        Pixels.premultiply(pixels, 0, pixels.length);
+        return pixels;
+    }
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+
+        if ("scalar".equals(implementation)) {
+            kernels = new Kernels();
+        } else {
+            kernels = Kernels.INSTANCE;
+            if (kernels.getClass() == Kernels.class) {
+                throw new IllegalStateException(
+                    "vectorized kernels not available");
+            }
+        }
+
+        horizontal = new Kernel(filter, 1920, 480, 0, 480);
+        vertical = new Kernel(filter, 1080, 270, 0, 270);
+        final Random random = new Random(0L);
+        row = pixels(random, 1920);
+        rows = vertical.getMaximum() - vertical.getMinimum();
+        intermediate = pixels(random, 480 * rows);
+        target = new int[1920];
+    }
+
+
+    @Benchmark
+    public int[] horizontal() {
+
+        kernels.horizontal(horizontal, row, target, 0);
+        return target;
+    }
+
+
+    @Benchmark
+    public int[] vertical() {
+
+        kernels.vertical(vertical, 135, intermediate, vertical.getMinimum(),
+                         rows, 480, target);
+        return target;
+    }
+
+
+    @Benchmark
+    public int[] premultiply() {
+
+        System.arraycopy(row, 0, target, 0, row.length);
+        kernels.premultiply(target, 0, target.length);
+        return target;
+    }
+
+
+    @Benchmark
+    public int[] unpremultiply() {
+
+        System.arraycopy(row, 0, target, 0, row.length);
+        kernels.unpremultiply(target, 0, target.length);
+        return target;
+    }
+
+
+    @Param({"BOX", "BILINEAR", "BICUBIC", "LANCZOS3"})
+    private Filter filter;
+
+
+    @Param({"scalar", "vector"})
+    private String implementation;
+
+
+    private Kernels kernels;
+
+
+    private Kernel horizontal;
+
+
+    private Kernel vertical;
+
+
+    private int[] row;
+
+
+    private int rows;
+
+
+    private int[] intermediate;
+
+
+    private int[] target;
+
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.imageio.ImageIO;
+import org.imgscalr.Scalr.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the serial decode, {@code resizeInboxCenter}, encode loop with
+ * {@link ResizePipeline} in images per second.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+
+    /**
+     * The number of images of each invocation.
+     */
+    private static final int IMAGES = 16;
+
+
+    private static final Function<BufferedImage, BufferedImage> RESIZE
+        = new Function<BufferedImage, BufferedImage>() {
+            @Override
+            public BufferedImage apply(final BufferedImage sourceImage) {
+                return Scalr.resizeInboxCenter(
+                    sourceImage, Method.QUALITY, 320, 320);
+            }
+        };
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        final BufferedImage sourceImage = Images.read(image);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(sourceImage, "png", output);
+        source = output.toByteArray();
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        pipeline = new ResizePipeline(
+            Math.max(1, processors / 2), Math.max(1, processors / 2),
+            Math.max(1, processors / 4), processors, RESIZE, "png", -1.0f);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        pipeline.close();
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(IMAGES)
+    public int serial() throws IOException {
+
+        int length = 0;
+        for (int i = 0; i < IMAGES; i++) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ImageIO.write(RESIZE.apply(
+                ImageIO.read(new ByteArrayInputStream(source))), "png",
+                          output);
+            length += output.size();
+        }
+        return length;
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(IMAGES)
+    public int pipeline() {
+
+        final List<ByteArrayOutputStream> outputs
+            = new ArrayList<ByteArrayOutputStream>(IMAGES);
+        final List<CompletableFuture<Void>> futures
+            = new ArrayList<CompletableFuture<Void>>(IMAGES);
+        for (int i = 0; i < IMAGES; i++) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            outputs.add(output);
+            futures.add(pipeline.submit(new ByteArrayInputStream(source),
+                                        output));
+        }
+        int length = 0;
+        for (int i = 0; i < IMAGES; i++) {
+            futures.get(i).join();
+            length += outputs.get(i).size();
+        }
+        return length;
+    }
+
+
+    @Param({"1920x1080.jpg", Images.LARGE_OPAQUE})
+    private String image;
+
+
+    private byte[] source;
+
+
+    private ResizePipeline pipeline;
+
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.imgscalr.Scalr.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks exact integer reductions, which are averaged by the
+ * {@link BoxReducer} in place of the incremental steps, against the same
+ * scaling method of the parent class.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ReductionBenchmark {
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        sourceImage = Images.read(image);
+        targetWidth = sourceImage.getWidth() / factor;
+        targetHeight = sourceImage.getHeight() / factor;
+    }
+
+
+    @Benchmark
+    public BufferedImage resize() {
+
+        return Scalr.resize(sourceImage, method, targetWidth, targetHeight,
+                            .0f, .5f, .5f);
+    }
+
+
+    @Benchmark
+    public BufferedImage parent() {
+
+        return org.imgscalr.Scalr.resize(sourceImage, method,
+                                         org.imgscalr.Scalr.Mode.FIT_EXACT,
+                                         targetWidth,
+                                         targetHeight);
+    }
+
+
+    @Param({"1920x1080.jpg", Images.LARGE_OPAQUE, Images.TRANSPARENT})
+    private String image;
+
+
+    @Param({"2", "4", "8"})
+    private int factor;
+
+
+    @Param({"QUALITY", "ULTRA_QUALITY"})
+    private Method method;
+
+
+    private BufferedImage sourceImage;
+
+
+    private int targetWidth;
+
+
+    private int targetHeight;
+
+
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import static org.imgscalr.Scalr.Method;
+
+
+/**
+ * Resizes asynchronously on an executor, bounding the number of pending
+ * resizes. A resize is pending from its submission until it is done, whether
+ * queued or running; once {@code maximumPending} resizes are pending a new
+ * one is either rejected or waited for, depending on the {@link Overflow}.
+ * <p>
+ * As the bound is kept here rather than by the executor, any executor may be
+ * given, including an unbounded one such as a virtual-thread-per-task
+ * executor on newer JDKs.
+ * <p>
+ * Cancelling a returned future stops its resize at the next stage boundary
+ * (e.g. between the horizontal and the vertical pass, or between incremental
+ * steps), or before it starts if it is still queued. A cancelled resize is
+ * no longer pending, even while its task is still queued or stopping.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class AsyncScalr implements AutoCloseable {
+
+
+    /**
+     * What to do with a resize submitted while the maximum number of resizes
+     * are pending.
+     */
+    public static enum Overflow {
+
+
+        /**
+         * Returns a future failed with a
+         * {@link RejectedExecutionException}.
+         */
+        REJECT,
+
+
+        /**
+         * Blocks the submitting thread until a pending resize is done.
+         */
+        BLOCK;
+
+
+    }
+
+
+    /**
+     * Creates a new instance running on its own pool of given number of daemon
+     * threads. The pool is shut down when the instance is closed.
+     *
+     * @param threads the number of threads.
+     * @param maximumPending the maximum number of pending resizes.
+     * @param overflow the overflow policy.
+     *
+     * @return a new instance.
+     */
+    public static AsyncScalr newFixed(final int threads,
+                                      final int maximumPending,
+                                      final Overflow overflow) {
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads(" + threads + ") <= 0");
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        final ExecutorService executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(
+                        r, "imgscalr-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+        return new AsyncScalr(executor, maximumPending, overflow, true);
+    }
+
+
+    /**
+     * Creates a new instance running on given executor. The executor is not
+     * shut down when the instance is closed.
+     *
+     * @param executor the executor to run resizes on.
+     * @param maximumPending the maximum number of pending resizes.
+     * @param overflow the overflow policy.
+     */
+    public AsyncScalr(final Executor executor, final int maximumPending,
+                      final Overflow overflow) {
+
+        this(executor, maximumPending, overflow, false);
+    }
+
+
+    private AsyncScalr(final Executor executor, final int maximumPending,
+                       final Overflow overflow, final boolean owned) {
+
+        super();
+
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        if (maximumPending <= 0) {
+            throw new IllegalArgumentException(
+                "maximumPending(" + maximumPending + ") <= 0");
+        }
+        if (overflow == null) {
+            throw new NullPointerException("overflow");
+        }
+
+        this.executor = executor;
+        this.maximumPending = maximumPending;
+        this.overflow = overflow;
+        this.owned = owned;
+
+        permits = new Semaphore(maximumPending);
+    }
+
+
+    /**
+     * Shuts down the executor if it is owned by this instance. Pending
+     * resizes are still done.
+     */
+    @Override
+    public void close() {
+
+        if (owned) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+
+    /**
+     * Submits given task as a pending resize. The task may call any of the
+     * {@link Scalr} methods; they stop at the next stage boundary once the
+     * returned future is cancelled.
+     *
+     * @param <T> result type parameter
+     * @param task the task to run.
+     *
+     * @return a future of the result of {@code task}.
+     */
+    public <T> CompletableFuture<T> submit(final Callable<? extends T> task) {
+
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+
+        try {
+            if (!admit()) {
+                future.completeExceptionally(new RejectedExecutionException(
+                    maximumPending + " resizes pending"));
+                return future;
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(ie);
+            return future;
+        }
+
+        // released once, either as the future is done or, if it is never
+        // done otherwise, as the runnable ends
+        final AtomicBoolean released = new AtomicBoolean();
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(final T t, final Throwable u) {
+                release(released);
+            }
+        });
+
+        final Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (future.isDone()) {
+                        return; // cancelled while queued
+                    }
+                    final Future<?> previous = Cancellation.bind(future);
+                    try {
+                        future.complete(task.call());
+                    } finally {
+                        Cancellation.restore(previous);
+                    }
+                } catch (final CancellationException ce) {
+                    future.cancel(false);
+                } catch (final Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    release(released);
+                }
+            }
+        };
+        try {
+            executor.execute(runnable);
+        } catch (final RejectedExecutionException ree) {
+            future.completeExceptionally(ree);
+        }
+
+        return future;
+    }
+
+
+    /**
+     * Resizes asynchronously.
+     *
+     * @param sourceImage the source image to resize.
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return a future of the resized image.
+     *
+     * @see Scalr#resize(java.awt.image.BufferedImage,
+     * org.imgscalr.Scalr.Method, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public CompletableFuture<BufferedImage> resize(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final float magnificationFactor, final float horizontalWeigth,
+        final float verticalWeight, final BufferedImageOp... ops) {
+
+        return submit(new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() {
+                return Scalr.resize(sourceImage, scalingMethod, targetWidth,
+                                    targetHeight, magnificationFactor,
+                                    horizontalWeigth, verticalWeight, ops);
+            }
+        });
+    }
+
+
+    /**
+     * Resizes asynchronously with the separable resampling engine.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return a future of the resized image.
+     *
+     * @see Scalr#resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public CompletableFuture<BufferedImage> resize(
+        final BufferedImage sourceImage, final Filter filter,
+        final int targetWidth, final int targetHeight,
+        final float magnificationFactor, final float horizontalWeigth,
+        final float verticalWeight, final BufferedImageOp... ops) {
+
+        return submit(new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() {
+                return Scalr.resize(sourceImage, filter, targetWidth,
+                                    targetHeight, magnificationFactor,
+                                    horizontalWeigth, verticalWeight, ops);
+            }
+        });
+    }
+
+
+    /**
+     * Acquires a permit for a new pending resize.
+     *
+     * @return {@code true} if acquired; {@code false} if rejected.
+     *
+     * @throws InterruptedException if interrupted while blocking.
+     */
+    private boolean admit() throws InterruptedException {
+
+        switch (overflow) {
+            case BLOCK:
+                permits.acquire();
+                return true;
+            default:
+                return permits.tryAcquire();
+        }
+    }
+
+
+    /**
+     * Releases the permit of a pending resize unless given flag tells it is
+     * already released.
+     */
+    private void release(final AtomicBoolean released) {
+
+        if (released.compareAndSet(false, true)) {
+            permits.release();
+        }
+    }
+
+
+    public int getMaximumPending() {
+
+        return maximumPending;
+    }
+
+
+    /**
+     * Returns the number of pending, either queued or running, resizes.
+     *
+     * @return the number of pending resizes.
+     */
+    public int getPendingCount() {
+
+        return maximumPending - permits.availablePermits();
+    }
+
+
+    private final Executor executor;
+
+
+    private final int maximumPending;
+
+
+    private final Overflow overflow;
+
+
+    private final boolean owned;
+
+
+    private final Semaphore permits;
+
+
+}
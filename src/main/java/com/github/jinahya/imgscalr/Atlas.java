@@ -0,0 +1,422 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * A layout of cells on a single sheet image, e.g. a contact sheet or a
+ * sprite atlas. Rendering resamples each source image with the separable
+ * resampling engine straight into its cell of the sheet, placed by the
+ * horizontal and the vertical weights as
+ * {@link Scalr#resizeInbox(java.awt.image.BufferedImage,
+ * com.github.jinahya.imgscalr.Filter, int, int, float, float,
+ * java.awt.image.BufferedImageOp...)} does; no target image is allocated
+ * per cell. Layouts are immutable and may be shared among threads.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public final class Atlas {
+
+
+    /**
+     * Cells rendered in parallel, split down to a single cell.
+     */
+    private final class Cells extends RecursiveAction {
+
+
+        private static final long serialVersionUID = 1L;
+
+
+        Cells(final List<? extends BufferedImage> sourceImages,
+              final Filter filter, final float horizontalWeight,
+              final float verticalWeight, final BufferedImage sheetImage,
+              final Future<?> future, final int from, final int to) {
+
+            super();
+
+            this.sourceImages = sourceImages;
+            this.filter = filter;
+            this.horizontalWeight = horizontalWeight;
+            this.verticalWeight = verticalWeight;
+            this.sheetImage = sheetImage;
+            this.future = future;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute() {
+
+            if (to - from == 1) {
+                final Future<?> previous = Cancellation.bind(future);
+                try {
+                    render(sourceImages.get(from), filter, horizontalWeight,
+                           verticalWeight, sheetImage, from);
+                } finally {
+                    Cancellation.restore(previous);
+                }
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new Cells(sourceImages, filter, horizontalWeight,
+                                verticalWeight, sheetImage, future, from,
+                                middle),
+                      new Cells(sourceImages, filter, horizontalWeight,
+                                verticalWeight, sheetImage, future, middle,
+                                to));
+        }
+
+
+        private final transient List<? extends BufferedImage> sourceImages;
+
+        private final Filter filter;
+
+        private final float horizontalWeight;
+
+        private final float verticalWeight;
+
+        private final transient BufferedImage sheetImage;
+
+        private final transient Future<?> future;
+
+        private final int from;
+
+        private final int to;
+
+
+    }
+
+
+    /**
+     * Creates a layout of given number of equal cells in rows of given
+     * number of columns.
+     *
+     * @param count the number of cells.
+     * @param columns the number of columns.
+     * @param cellWidth the width of each cell.
+     * @param cellHeight the height of each cell.
+     * @param spacing the pixels between adjacent cells.
+     *
+     * @return a new layout.
+     */
+    public static Atlas grid(final int count, final int columns,
+                             final int cellWidth, final int cellHeight,
+                             final int spacing) {
+
+        if (count <= 0) {
+            throw new IllegalArgumentException("count(" + count + ") <= 0");
+        }
+        if (columns <= 0) {
+            throw new IllegalArgumentException(
+                "columns(" + columns + ") <= 0");
+        }
+        if (spacing < 0) {
+            throw new IllegalArgumentException(
+                "spacing(" + spacing + ") < 0");
+        }
+
+        final int used = Math.min(count, columns);
+        final int rows = (count + columns - 1) / columns;
+        final Rectangle[] cells = new Rectangle[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = new Rectangle((i % columns) * (cellWidth + spacing),
+                                     (i / columns) * (cellHeight + spacing),
+                                     cellWidth, cellHeight);
+        }
+
+        return of(used * cellWidth + (used - 1) * spacing,
+                  rows * cellHeight + (rows - 1) * spacing,
+                  Arrays.asList(cells));
+    }
+
+
+    /**
+     * Creates a layout packing given images, each fitted into a box of given
+     * maximum size, onto shelves of a sheet of at most given width. Each cell
+     * is of the fitted size of its image; shelves are filled from the tallest
+     * image on, from left to right, and the sheet is trimmed to the cells.
+     *
+     * @param sourceImages the images to pack.
+     * @param maximumWidth the maximum width of each cell.
+     * @param maximumHeight the maximum height of each cell.
+     * @param width the maximum width of the sheet; not less than
+     * {@code maximumWidth}.
+     * @param spacing the pixels between adjacent cells.
+     *
+     * @return a new layout whose cells are in the order of
+     * {@code sourceImages}.
+     */
+    public static Atlas packed(final List<? extends BufferedImage> sourceImages,
+                               final int maximumWidth, final int maximumHeight,
+                               final int width, final int spacing) {
+
+        if (sourceImages.isEmpty()) {
+            throw new IllegalArgumentException("no source images");
+        }
+        if (width < maximumWidth) {
+            throw new IllegalArgumentException(
+                "width(" + width + ") < maximumWidth(" + maximumWidth + ")");
+        }
+        if (spacing < 0) {
+            throw new IllegalArgumentException(
+                "spacing(" + spacing + ") < 0");
+        }
+
+        final Rectangle[] cells = new Rectangle[sourceImages.size()];
+        final List<Integer> order = new ArrayList<Integer>(cells.length);
+        for (int i = 0; i < cells.length; i++) {
+            final BufferedImage sourceImage = sourceImages.get(i);
+            final Placement placement = Placement.of(
+                sourceImage.getWidth(), sourceImage.getHeight(),
+                maximumWidth, maximumHeight, .0f, .0f, .0f);
+            cells[i] = new Rectangle(placement.getAuxiliaryWidth(),
+                                     placement.getAuxiliaryHeight());
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return cells[o2].height - cells[o1].height;
+            }
+        });
+
+        int x = 0;
+        int y = 0;
+        int shelf = 0;
+        int used = 0;
+        for (final int i : order) {
+            final Rectangle cell = cells[i];
+            if (x > 0 && x + cell.width > width) {
+                x = 0;
+                y += shelf + spacing;
+                shelf = 0;
+            }
+            cell.setLocation(x, y);
+            x += cell.width + spacing;
+            shelf = Math.max(shelf, cell.height);
+            used = Math.max(used, cell.x + cell.width);
+        }
+
+        return of(used, y + shelf, Arrays.asList(cells));
+    }
+
+
+    /**
+     * Creates a layout of given cells on a sheet of given size. Cells must
+     * not overlap.
+     *
+     * @param width the width of the sheet.
+     * @param height the height of the sheet.
+     * @param cells the cells.
+     *
+     * @return a new layout.
+     */
+    public static Atlas of(final int width, final int height,
+                           final List<Rectangle> cells) {
+
+        if (width <= 0) {
+            throw new IllegalArgumentException("width(" + width + ") <= 0");
+        }
+        if (height <= 0) {
+            throw new IllegalArgumentException(
+                "height(" + height + ") <= 0");
+        }
+        if (cells.isEmpty()) {
+            throw new IllegalArgumentException("no cells");
+        }
+
+        final Rectangle bounds = new Rectangle(width, height);
+        final Rectangle[] copies = new Rectangle[cells.size()];
+        for (int i = 0; i < copies.length; i++) {
+            final Rectangle cell = cells.get(i);
+            if (cell.isEmpty() || !bounds.contains(cell)) {
+                throw new IllegalArgumentException(
+                    "cells[" + i + "](" + cell + ") not in " + bounds);
+            }
+            copies[i] = new Rectangle(cell);
+        }
+
+        return new Atlas(width, height, copies);
+    }
+
+
+    private Atlas(final int width, final int height,
+                  final Rectangle[] cells) {
+
+        super();
+
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+    }
+
+
+    /**
+     * Renders given images into a new, transparent, sheet image.
+     *
+     * @param sourceImages the source images, one for each cell.
+     * @param filter the resampling filter.
+     * @param horizontalWeight the horizontal weight within each cell.
+     * @param verticalWeight the vertical weight within each cell.
+     * @param forkJoinPool the fork-join pool to render cells on;
+     * {@code null} for rendering on the current thread.
+     *
+     * @return a new sheet image.
+     */
+    public BufferedImage render(
+        final List<? extends BufferedImage> sourceImages, final Filter filter,
+        final float horizontalWeight, final float verticalWeight,
+        final ForkJoinPool forkJoinPool) {
+
+        return render(sourceImages, filter, horizontalWeight, verticalWeight,
+                      new BufferedImage(width, height,
+                                        BufferedImage.TYPE_INT_ARGB),
+                      forkJoinPool);
+    }
+
+
+    /**
+     * Renders given images into given sheet image. Pixels outside of the
+     * cells are left as they are.
+     *
+     * @param sourceImages the source images, one for each cell.
+     * @param filter the resampling filter.
+     * @param horizontalWeight the horizontal weight within each cell.
+     * @param verticalWeight the vertical weight within each cell.
+     * @param sheetImage the sheet image; must be of this layout's size.
+     * @param forkJoinPool the fork-join pool to render cells on;
+     * {@code null} for rendering on the current thread.
+     *
+     * @return given sheet image.
+     */
+    public BufferedImage render(
+        final List<? extends BufferedImage> sourceImages, final Filter filter,
+        final float horizontalWeight, final float verticalWeight,
+        final BufferedImage sheetImage, final ForkJoinPool forkJoinPool) {
+
+        if (sourceImages.size() != cells.length) {
+            throw new IllegalArgumentException(
+                "sourceImages.size(" + sourceImages.size() + ") != "
+                + cells.length);
+        }
+        if (filter == null) {
+            throw new NullPointerException("filter");
+        }
+        if (sheetImage.getWidth() != width
+            || sheetImage.getHeight() != height) {
+            throw new IllegalArgumentException(
+                "sheetImage(" + sheetImage.getWidth() + "x"
+                + sheetImage.getHeight() + ") does not match " + width + "x"
+                + height);
+        }
+
+        if (forkJoinPool == null) {
+            for (int i = 0; i < cells.length; i++) {
+                render(sourceImages.get(i), filter, horizontalWeight,
+                       verticalWeight, sheetImage, i);
+            }
+        } else {
+            forkJoinPool.invoke(new Cells(
+                sourceImages, filter, horizontalWeight, verticalWeight,
+                sheetImage, Cancellation.current(), 0, cells.length));
+        }
+
+        return sheetImage;
+    }
+
+
+    /**
+     * Resamples given image into the cell of given index, which is a view
+     * of the sheet image sharing its pixels.
+     */
+    private void render(final BufferedImage sourceImage, final Filter filter,
+                        final float horizontalWeight,
+                        final float verticalWeight,
+                        final BufferedImage sheetImage, final int index) {
+
+        Cancellation.check();
+
+        final Rectangle cell = cells[index];
+        Scalr.resize(sourceImage, ResizePlan.of(
+            sourceImage.getWidth(), sourceImage.getHeight(), cell.width,
+            cell.height, .0f, horizontalWeight, verticalWeight, filter),
+                     sheetImage.getSubimage(cell.x, cell.y, cell.width,
+                                            cell.height), null);
+    }
+
+
+    public int getWidth() {
+
+        return width;
+    }
+
+
+    public int getHeight() {
+
+        return height;
+    }
+
+
+    /**
+     * Returns the number of cells.
+     *
+     * @return the number of cells.
+     */
+    public int getCount() {
+
+        return cells.length;
+    }
+
+
+    /**
+     * Returns the cell of given index.
+     *
+     * @param index the index of the cell.
+     *
+     * @return a copy of the cell.
+     */
+    public Rectangle getCell(final int index) {
+
+        return new Rectangle(cells[index]);
+    }
+
+
+    private final int width;
+
+
+    private final int height;
+
+
+    private final Rectangle[] cells;
+
+
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+
+
+/**
+ * A separable resampler which never holds the whole source image. The source
+ * is decoded in bands of rows, each band is resampled horizontally into a
+ * ring buffer of as many rows as the vertical filter spans, and each target
+ * row is resampled vertically from the ring buffer as soon as its rows are
+ * there. Target rows are written to an {@link ImageWriter} in bands.
+ * <p>
+ * The memory held at once is a source band, the ring buffer, whose size is
+ * the target width times the filter height, and a target band; none of them
+ * depends on the source height. A source band spans at least the filter
+ * height and about {@value #BAND_PIXELS} pixels; readers which can not seek
+ * to a region, such as the JPEG and PNG readers, decode from the top for
+ * each band so fewer, taller bands are read faster.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class BandResampler {
+
+
+    /**
+     * The number of pixels of a source band.
+     */
+    static final int BAND_PIXELS = 1 << 20;
+
+
+    /**
+     * The number of rows of a target band.
+     */
+    static final int TARGET_BAND = 32;
+
+
+    /**
+     * Creates a band resampler for given placement. The source is read
+     * subsampled, every {@code columnPeriod}-th column of every
+     * {@code rowPeriod}-th row, with the samples taken at the center of each
+     * period.
+     *
+     * @param placement the placement.
+     * @param filter the filter.
+     * @param columnPeriod the horizontal subsampling period.
+     * @param rowPeriod the vertical subsampling period.
+     *
+     * @return a new band resampler; {@code null} if nothing is visible.
+     */
+    static BandResampler of(final Placement placement, final Filter filter,
+                            final int columnPeriod, final int rowPeriod) {
+
+        final int x = placement.getX();
+        final int y = placement.getY();
+        final int left = Math.max(0, -x);
+        final int right = Math.min(placement.getAuxiliaryWidth(),
+                                   placement.getTargetWidth() - x);
+        final int top = Math.max(0, -y);
+        final int bottom = Math.min(placement.getAuxiliaryHeight(),
+                                    placement.getTargetHeight() - y);
+        if (left >= right || top >= bottom) {
+            return null;
+        }
+
+        return new BandResampler(
+            new Kernel(filter, sampled(placement.getSourceWidth(),
+                                       columnPeriod),
+                       placement.getAuxiliaryWidth(), left, right),
+            new Kernel(filter, sampled(placement.getSourceHeight(),
+                                       rowPeriod),
+                       placement.getAuxiliaryHeight(), top, bottom),
+            columnPeriod, rowPeriod, x + left, y + top);
+    }
+
+
+    /**
+     * Returns the type of the target image written with given writer. The
+     * target is translucent, as {@link Scalr#imageType(int, boolean,
+     * Placement, Color, java.awt.image.BufferedImageOp...)} decides, only if
+     * the writer can encode alpha; e.g. the JPEG writer can not.
+     *
+     * @param writer the writer.
+     * @param alpha whether the source has alpha.
+     * @param padded whether the target is padded.
+     * @param background the background color of the padding; {@code null}
+     * for transparent padding.
+     *
+     * @return either {@link BufferedImage#TYPE_INT_ARGB} or
+     * {@link BufferedImage#TYPE_INT_RGB}.
+     */
+    static int targetType(final ImageWriter writer, final boolean alpha,
+                          final boolean padded, final Color background) {
+
+        if (alpha || (padded && (background == null
+                                 || background.getAlpha() != 0xFF))) {
+            final ImageWriterSpi provider = writer.getOriginatingProvider();
+            if (provider == null || provider.canEncodeImage(
+                ImageTypeSpecifier.createFromBufferedImageType(
+                    BufferedImage.TYPE_INT_ARGB))) {
+                return BufferedImage.TYPE_INT_ARGB;
+            }
+        }
+
+        return BufferedImage.TYPE_INT_RGB;
+    }
+
+
+    /**
+     * Fills given image with given color, if any.
+     *
+     * @param image the image.
+     * @param background the color; {@code null} for leaving it as is.
+     */
+    static void fill(final BufferedImage image, final Color background) {
+
+        if (background == null) {
+            return;
+        }
+
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+    }
+
+
+    /**
+     * Composites given premultiplied pixels onto given opaque color.
+     */
+    private static void flatten(final int[] row, final int length,
+                                final int background) {
+
+        for (int i = 0; i < length; i++) {
+            final int p = row[i];
+            final int t = 0xFF - (p >>> 24);
+            if (t == 0) {
+                continue;
+            }
+            int q = 0xFF000000;
+            for (int shift = 0; shift < 24; shift += 8) {
+                q |= (((p >>> shift) & 0xFF)
+                      + (((background >>> shift) & 0xFF) * t + 127) / 255)
+                     << shift;
+            }
+            row[i] = q;
+        }
+    }
+
+
+    /**
+     * Returns the number of samples of given length taken at the center of
+     * each period.
+     */
+    private static int sampled(final int length, final int period) {
+
+        return (length - period / 2 + period - 1) / period;
+    }
+
+
+    private BandResampler(final Kernel horizontal, final Kernel vertical,
+                          final int columnPeriod, final int rowPeriod,
+                          final int targetX, final int targetY) {
+
+        super();
+
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+        this.columnPeriod = columnPeriod;
+        this.rowPeriod = rowPeriod;
+        this.targetX = targetX;
+        this.targetY = targetY;
+
+        offsets = Kernels.offsets(vertical, 0, vertical.taps,
+                                  horizontal.getLength());
+    }
+
+
+    /**
+     * Returns the number of sampled rows of each source band.
+     */
+    int getBandRows() {
+
+        final int columns = horizontal.getMaximum() - horizontal.getMinimum();
+        return Math.min(vertical.getMaximum() - vertical.getMinimum(),
+                        Math.max(vertical.taps, BAND_PIXELS / columns));
+    }
+
+
+    /**
+     * Estimates the bytes held at once while resampling into a target of
+     * given width with target bands of given height.
+     *
+     * @param targetWidth the target width.
+     * @param targetBand the number of rows of each target band.
+     *
+     * @return the estimated bytes.
+     */
+    long getBytes(final int targetWidth, final int targetBand) {
+
+        final int columns = horizontal.getMaximum() - horizontal.getMinimum();
+        return 4L * columns * getBandRows() // the source band
+               + 4L * targetWidth * targetBand // the target band
+               + RasterPool.bytes(
+                   (long) horizontal.getLength() * vertical.taps) // the ring
+               + RasterPool.bytes(Math.max(columns, targetWidth)); // a row
+    }
+
+
+    /**
+     * Resamples the image of given index of given reader, whose input is
+     * set, and writes the result to given writer, whose output is set. If the
+     * writer can write an empty image the result is written band by band
+     * with {@link ImageWriter#replacePixels(java.awt.image.RenderedImage,
+     * javax.imageio.ImageWriteParam)}; otherwise the result is collected into
+     * a single target image which is written at the end. If the writer can
+     * not encode alpha, translucent pixels are composited onto the
+     * background.
+     *
+     * @param reader the reader.
+     * @param imageIndex the index of the image to read.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param background the background color of the padding; {@code null}
+     * for transparent padding, which is black if the writer can not encode
+     * alpha.
+     * @param writer the writer.
+     * @param pool the pool from which buffers are acquired.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    void resample(final ImageReader reader, final int imageIndex,
+                  final int targetWidth, final int targetHeight,
+                  final Color background, final ImageWriter writer,
+                  final RasterPool pool)
+        throws IOException {
+
+        final ImageTypeSpecifier sourceType
+            = reader.getImageTypes(imageIndex).next();
+        final boolean alpha = sourceType.getColorModel().hasAlpha();
+        final int width = horizontal.getLength();
+        final int height = vertical.getLength();
+        final boolean padded = targetX != 0 || targetY != 0
+                               || width != targetWidth
+                               || height != targetHeight;
+        final int targetType
+            = targetType(writer, alpha, padded, background);
+        final boolean flattened
+            = alpha && targetType != BufferedImage.TYPE_INT_ARGB;
+        final int fill = background == null ? 0 : background.getRGB();
+        final boolean incremental = writer.canWriteEmpty();
+
+        final BufferedImage targetBand = new BufferedImage(
+            targetWidth, incremental ? Math.min(TARGET_BAND, targetHeight)
+                         : targetHeight, targetType);
+        // padded columns are never written
+        fill(targetBand, background);
+        if (incremental) {
+            writer.prepareWriteEmpty(
+                null, ImageTypeSpecifier.createFromBufferedImageType(
+                    targetType), targetWidth, targetHeight, null, null,
+                null);
+            writer.prepareReplacePixels(
+                0, new Rectangle(0, 0, targetWidth, targetHeight));
+        }
+
+        final int columnMinimum = horizontal.getMinimum();
+        final int columns = horizontal.getMaximum() - columnMinimum;
+        final int rowMaximum = vertical.getMaximum();
+        final int bandRows = getBandRows();
+        final int capacity = vertical.taps;
+
+        final ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(columnPeriod, rowPeriod, columnPeriod / 2,
+                                   rowPeriod / 2);
+        final BufferedImage sourceBand
+            = sourceType.createBufferedImage(columns, bandRows);
+        param.setDestination(sourceBand);
+
+        final int[] ring = pool.acquireArray(width * capacity);
+        final int[] row = pool.acquireArray(Math.max(columns, targetWidth));
+        try {
+            int loaded = vertical.getMinimum(); // the next row to load
+            int bandFirst = loaded;
+            int bandEnd = loaded;
+            int targetBandY = 0;
+            for (int y = 0; y < targetHeight; y++) {
+                final int i = y - targetY;
+                if (i < 0 || i >= height) {
+                    Arrays.fill(row, 0, targetWidth, fill);
+                    Pixels.write(targetBand, 0, y - targetBandY, targetWidth,
+                                 row);
+                } else {
+                    final int needed
+                        = vertical.firsts[i] + vertical.counts[i];
+                    for (; loaded < needed; loaded++) {
+                        if (loaded == bandEnd) {
+                            Cancellation.check();
+                            final int rows
+                                = Math.min(bandRows, rowMaximum - loaded);
+                            param.setSourceRegion(new Rectangle(
+                                columnMinimum * columnPeriod,
+                                loaded * rowPeriod,
+                                (columns - 1) * columnPeriod
+                                + columnPeriod / 2 + 1,
+                                (rows - 1) * rowPeriod + rowPeriod / 2 + 1));
+                            reader.read(imageIndex, param);
+                            bandFirst = loaded;
+                            bandEnd = loaded + rows;
+                        }
+                        Pixels.read(sourceBand, 0, loaded - bandFirst,
+                                    columns, row);
+                        if (alpha) {
+                            Kernels.INSTANCE.premultiply(row, 0, columns);
+                        }
+                        Kernels.INSTANCE.horizontal(
+                            horizontal, row, ring,
+                            (loaded % capacity) * width);
+                    }
+                    Kernels.INSTANCE.vertical(vertical, i, ring, offsets,
+                                              width, row);
+                    if (flattened) {
+                        flatten(row, width, fill);
+                    } else if (alpha) {
+                        Kernels.INSTANCE.unpremultiply(row, 0, width);
+                    }
+                    Pixels.write(targetBand, targetX, y - targetBandY, width,
+                                 row);
+                }
+                final int written = y + 1 - targetBandY;
+                if (incremental
+                    && (written == targetBand.getHeight()
+                        || y + 1 == targetHeight)) {
+                    Cancellation.check();
+                    final ImageWriteParam writeParam
+                        = writer.getDefaultWriteParam();
+                    writeParam.setSourceRegion(
+                        new Rectangle(0, 0, targetWidth, written));
+                    writeParam.setDestinationOffset(new Point(0, targetBandY));
+                    writer.replacePixels(targetBand, writeParam);
+                    targetBandY = y + 1;
+                }
+            }
+        } finally {
+            pool.releaseArray(row);
+            pool.releaseArray(ring);
+            sourceBand.flush();
+        }
+
+        if (incremental) {
+            writer.endReplacePixels();
+            writer.endWriteEmpty();
+        } else {
+            Cancellation.check();
+            writer.write(targetBand);
+        }
+    }
+
+
+    private final Kernel horizontal;
+
+    private final Kernel vertical;
+
+    private final int columnPeriod;
+
+    private final int rowPeriod;
+
+    private final int targetX;
+
+    private final int targetY;
+
+    /**
+     * The {@link Kernels#offsets(Kernel, int, int, int) offsets} of the
+     * vertical kernel in the ring buffer.
+     */
+    private final int[] offsets;
+
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+
+
+/**
+ * Reduces images by an exact integer factor, averaging each square block of
+ * source pixels into a single target pixel. Two channels are summed at once
+ * in the 16-bit lanes of an {@code int} ({@code 0x00RR00BB} and
+ * {@code 0x00AA00GG}), which limits the factor to {@value #MAXIMUM_FACTOR};
+ * blocks of a power of two pixels are divided with a shift.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class BoxReducer {
+
+
+    /**
+     * The maximum factor; the sum of {@code 255} over a block of
+     * {@code 16 * 16} pixels still fits in a 16-bit lane.
+     */
+    static final int MAXIMUM_FACTOR = 16;
+
+
+    private static final int LANES = 0x00FF00FF;
+
+
+    /**
+     * Returns the factor by which given source size reduces exactly to given
+     * size.
+     *
+     * @return the factor; {@code 0} if the reduction is not by an integer
+     * factor of {@code 2} to {@value #MAXIMUM_FACTOR}, the same along both
+     * axes.
+     */
+    static int factor(final int sourceWidth, final int sourceHeight,
+                      final int width, final int height) {
+
+        if (width <= 0 || height <= 0 || sourceWidth % width != 0) {
+            return 0;
+        }
+
+        final int factor = sourceWidth / width;
+        if (factor < 2 || factor > MAXIMUM_FACTOR
+            || sourceHeight != height * factor) {
+            return 0;
+        }
+
+        return factor;
+    }
+
+
+    /**
+     * Reduces given source image by given factor and writes the result into
+     * given target image at given location. A source size not divisible by
+     * the factor is rounded up; blocks overhanging the right or the bottom
+     * edge repeat the last column or row. Pixels falling outside of the
+     * target image are neither computed nor written.
+     *
+     * @param sourceImage the source image.
+     * @param factor the factor.
+     * @param targetImage the target image.
+     * @param x the x coordinate, in the target image, of the reduced image.
+     * @param y the y coordinate, in the target image, of the reduced image.
+     * @param pool the pool from which buffers are acquired.
+     */
+    static void reduce(final BufferedImage sourceImage, final int factor,
+                       final BufferedImage targetImage, final int x,
+                       final int y, final RasterPool pool) {
+
+        final int left = Math.max(0, -x);
+        final int right = Math.min(
+            (sourceImage.getWidth() + factor - 1) / factor,
+            targetImage.getWidth() - x);
+        final int top = Math.max(0, -y);
+        final int bottom = Math.min(
+            (sourceImage.getHeight() + factor - 1) / factor,
+            targetImage.getHeight() - y);
+        if (left >= right || top >= bottom) {
+            return;
+        }
+
+        final boolean alpha = sourceImage.getColorModel().hasAlpha();
+        final int width = right - left;
+        final int columns = width * factor;
+        final int available
+            = Math.min(columns, sourceImage.getWidth() - left * factor);
+        final int last = sourceImage.getHeight() - 1;
+        final int area = factor * factor;
+        final int shift = Integer.bitCount(area) == 1
+                          ? Integer.numberOfTrailingZeros(area) : -1;
+        final int half = (area >> 1) * 0x00010001;
+
+        final int[] row = pool.acquireArray(columns);
+        final int[] rb = pool.acquireArray(columns);
+        final int[] ag = pool.acquireArray(columns);
+        try {
+            for (int j = top; j < bottom; j++) {
+                // sums each column of the block rows, then each block
+                read(sourceImage, left * factor, Math.min(j * factor, last),
+                     available, columns, row);
+                if (alpha) {
+                    Kernels.INSTANCE.premultiply(row, 0, columns);
+                }
+                for (int i = 0; i < columns; i++) {
+                    final int p = row[i];
+                    rb[i] = p & LANES;
+                    ag[i] = (p >>> 8) & LANES;
+                }
+                for (int k = 1; k < factor; k++) {
+                    read(sourceImage, left * factor,
+                         Math.min(j * factor + k, last), available, columns,
+                         row);
+                    if (alpha) {
+                        Kernels.INSTANCE.premultiply(row, 0, columns);
+                    }
+                    for (int i = 0; i < columns; i++) {
+                        final int p = row[i];
+                        rb[i] += p & LANES;
+                        ag[i] += (p >>> 8) & LANES;
+                    }
+                }
+                for (int i = 0, o = 0; i < width; i++) {
+                    int s = half;
+                    int t = half;
+                    for (final int e = o + factor; o < e; o++) {
+                        s += rb[o];
+                        t += ag[o];
+                    }
+                    rb[i] = s;
+                    ag[i] = t;
+                }
+                if (shift >= 0) {
+                    for (int i = 0; i < width; i++) {
+                        row[i] = ((ag[i] >>> shift & LANES) << 8)
+                                 | (rb[i] >>> shift & LANES);
+                    }
+                } else {
+                    for (int i = 0; i < width; i++) {
+                        final int s = rb[i];
+                        final int t = ag[i];
+                        row[i] = ((t >>> 16) / area << 24)
+                                 | ((s >>> 16) / area << 16)
+                                 | ((t & 0xFFFF) / area << 8)
+                                 | (s & 0xFFFF) / area;
+                    }
+                }
+                if (alpha) {
+                    Kernels.INSTANCE.unpremultiply(row, 0, width);
+                }
+                Pixels.write(targetImage, x + left, y + j, width, row);
+            }
+        } finally {
+            pool.releaseArray(ag);
+            pool.releaseArray(rb);
+            pool.releaseArray(row);
+        }
+    }
+
+
+    /**
+     * Reads given number of available pixels of a row and repeats the last
+     * of them up to given number of columns.
+     */
+    private static void read(final BufferedImage image, final int x,
+                             final int y, final int available,
+                             final int columns, final int[] row) {
+
+        Pixels.read(image, x, y, available, row);
+        for (int i = available; i < columns; i++) {
+            row[i] = row[available - 1];
+        }
+    }
+
+
+    private BoxReducer() {
+
+        super();
+    }
+
+
+}
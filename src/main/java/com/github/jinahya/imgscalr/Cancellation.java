@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+
+/**
+ * Checkpoints between resize stages. A resize running for a future, see
+ * {@link AsyncScalr}, stops at the next checkpoint once the future is
+ * cancelled; other resizes pass every checkpoint.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class Cancellation {
+
+
+    private static final ThreadLocal<Future<?>> FUTURE
+        = new ThreadLocal<Future<?>>();
+
+
+    /**
+     * Binds given future to the current thread.
+     *
+     * @return the previously bound future, to be restored with
+     * {@link #restore(java.util.concurrent.Future)}.
+     */
+    static Future<?> bind(final Future<?> future) {
+
+        final Future<?> previous = FUTURE.get();
+        FUTURE.set(future);
+        return previous;
+    }
+
+
+    /**
+     * Returns the future bound to the current thread, for binding it to the
+     * threads the current resize forks to.
+     *
+     * @return the bound future; {@code null} if none.
+     */
+    static Future<?> current() {
+
+        return FUTURE.get();
+    }
+
+
+    static void restore(final Future<?> previous) {
+
+        if (previous == null) {
+            FUTURE.remove();
+        } else {
+            FUTURE.set(previous);
+        }
+    }
+
+
+    /**
+     * Throws a {@link CancellationException} if the future bound to the
+     * current thread is cancelled.
+     */
+    static void check() {
+
+        final Future<?> future = FUTURE.get();
+        if (future != null && future.isCancelled()) {
+            throw new CancellationException("resize cancelled");
+        }
+    }
+
+
+    private Cancellation() {
+
+        super();
+    }
+
+
+}
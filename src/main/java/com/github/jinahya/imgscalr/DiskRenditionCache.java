@@ -0,0 +1,990 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A persistent cache of encoded renditions. Entries are appended to segment
+ * files in a directory and read back through memory mappings; the index,
+ * from the hash of each key to the location of its latest record, lives in
+ * a direct buffer off the heap and is rebuilt by scanning the segments when
+ * the cache is opened.
+ * <p>
+ * Each record carries a checksum. A record which is torn or corrupt, for
+ * example by a crash during a write, ends the scan of its segment and the
+ * segment is truncated there, so that a cache always opens with the records
+ * completely written before.
+ * <p>
+ * Superseded and removed records stay in their segments until compacted.
+ * When the total size of the segments exceeds the maximum, the oldest
+ * segment is either compacted, by moving its live records to the active
+ * segment, if at least half of it is dead, or dropped altogether.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class DiskRenditionCache implements Closeable {
+
+
+    private static final Logger logger
+        = LoggerFactory.getLogger(DiskRenditionCache.class);
+
+
+    /**
+     * The default value for the maximum number of bytes of a segment file.
+     */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024L * 1024L;
+
+
+    private static final int MAGIC = 0x52434331; // RCC1
+
+
+    private static final int HEADER_BYTES = 16;
+
+
+    private static final int MAXIMUM_KEY_BYTES = 65535;
+
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+
+    /**
+     * Builds a key for an encoded rendition.
+     *
+     * @param fingerprint the fingerprint of the source image.
+     * @param rendition the rendition.
+     * @param formatName the name of the encoding format.
+     *
+     * @return a key.
+     */
+    public static String key(final Object fingerprint,
+                             final Rendition rendition,
+                             final String formatName) {
+
+        return fingerprint + "/" + rendition.getScalingMethod()
+               + "/" + rendition.getTargetWidth()
+               + "x" + rendition.getTargetHeight()
+               + "/" + rendition.getMagnificationFactor()
+               + "/" + rendition.getHorizontalWeight()
+               + "/" + rendition.getVerticalWeight()
+               + "." + formatName;
+    }
+
+
+    /**
+     * Returns a 64-bit hash of given key bytes; never {@code 0}.
+     */
+    static long hash(final byte[] key) {
+
+        long h = 0xCBF29CE484222325L; // FNV-1a
+        for (final byte b : key) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h == 0L ? 1L : h;
+    }
+
+
+    /**
+     * Computes the checksum of the record at the position of given buffer,
+     * covering the lengths, the key and the value.
+     */
+    private static int checksum(final ByteBuffer record, final int length) {
+
+        final byte[] bytes = new byte[length - 8];
+        final ByteBuffer duplicate = record.duplicate();
+        duplicate.position(record.position() + 4);
+        duplicate.get(bytes, 0, 8);
+        duplicate.position(record.position() + HEADER_BYTES);
+        duplicate.get(bytes, 8, length - HEADER_BYTES);
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+
+    /**
+     * Opens a cache in given directory, recovering the records already
+     * there, with {@link #DEFAULT_SEGMENT_BYTES}.
+     *
+     * @param directory the directory; created if not exists.
+     * @param maximumBytes the maximum number of bytes of all segments.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public DiskRenditionCache(final Path directory, final long maximumBytes)
+        throws IOException {
+
+        this(directory, maximumBytes,
+             Math.min(DEFAULT_SEGMENT_BYTES, maximumBytes / 4L));
+    }
+
+
+    /**
+     * Opens a cache in given directory, recovering the records already
+     * there.
+     *
+     * @param directory the directory; created if not exists.
+     * @param maximumBytes the maximum number of bytes of all segments.
+     * @param segmentBytes the number of bytes after which a new segment is
+     * started.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public DiskRenditionCache(final Path directory, final long maximumBytes,
+                              final long segmentBytes)
+        throws IOException {
+
+        super();
+
+        if (maximumBytes <= 0L) {
+            throw new IllegalArgumentException(
+                "maximumBytes(" + maximumBytes + ") <= 0L");
+        }
+        if (segmentBytes <= 0L || segmentBytes > maximumBytes
+            || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "segmentBytes(" + segmentBytes + ") <= 0L or > maximumBytes("
+                + maximumBytes + ") or > " + Integer.MAX_VALUE);
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.maximumBytes = maximumBytes;
+        this.segmentBytes = segmentBytes;
+
+        segments = new TreeMap<Integer, Segment>();
+        index = new Index(1024);
+        lock = new ReentrantReadWriteLock();
+
+        recover();
+    }
+
+
+    /**
+     * Opens each segment file in order and rebuilds the index.
+     */
+    private void recover() throws IOException {
+
+        final List<Integer> ids = new ArrayList<Integer>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+            directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (final Path path : stream) {
+                final String name = path.getFileName().toString();
+                try {
+                    ids.add(Integer.parseInt(name.substring(
+                        SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())));
+                } catch (final NumberFormatException nfe) {
+                    // not one of ours
+                }
+            }
+        }
+
+        for (final Integer id : ids) {
+            segments.put(id, new Segment(id, path(id)));
+        }
+        for (final Segment segment : segments.values()) {
+            scan(segment);
+        }
+        if (segments.isEmpty()) {
+            rotate();
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+    }
+
+
+    /**
+     * Replays the records of given segment into the index, truncating the
+     * segment at the first invalid record.
+     */
+    private void scan(final Segment segment) throws IOException {
+
+        final long size = segment.channel.size();
+        final ByteBuffer buffer = segment.map(size);
+        long position = 0L;
+        while (position + HEADER_BYTES <= size) {
+            final ByteBuffer record = buffer.duplicate();
+            record.position((int) position);
+            final int magic = record.getInt((int) position);
+            final int keyLength = record.getInt((int) position + 4);
+            final int valueLength = record.getInt((int) position + 8);
+            final int crc = record.getInt((int) position + 12);
+            if (magic != MAGIC || keyLength < 0
+                || keyLength > MAXIMUM_KEY_BYTES || valueLength < -1) {
+                break;
+            }
+            final long length = HEADER_BYTES + keyLength
+                                + (long) Math.max(0, valueLength);
+            if (position + length > size
+                || checksum(record, (int) length) != crc) {
+                break;
+            }
+            final byte[] key = new byte[keyLength];
+            record.position((int) position + HEADER_BYTES);
+            record.get(key);
+            if (valueLength < 0) {
+                unlink(hash(key));
+            } else {
+                link(hash(key), segment, position, (int) length);
+            }
+            position += length;
+        }
+        if (position < size) {
+            logger.warn("truncating {} from {} to {}", segment.path, size,
+                        position);
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+
+    private Path path(final int id) {
+
+        return directory.resolve(
+            String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+
+    /**
+     * Points the index at given record, accounting the superseded one as
+     * dead.
+     */
+    private void link(final long hash, final Segment segment,
+                      final long position, final int length) {
+
+        unlink(hash);
+        index.put(hash, segment.id, position, length);
+        segment.live += length;
+    }
+
+
+    private void unlink(final long hash) {
+
+        final int slot = index.find(hash);
+        if (slot < 0) {
+            return;
+        }
+        final Segment previous = segments.get(index.segment(slot));
+        if (previous != null) {
+            previous.live -= index.length(slot);
+        }
+        index.remove(slot);
+    }
+
+
+    /**
+     * Seals the active segment, if any, and starts a new one.
+     */
+    private void rotate() throws IOException {
+
+        final int id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        final Segment segment = new Segment(id, path(id));
+        segments.put(id, segment);
+        active = segment;
+    }
+
+
+    /**
+     * Returns a read-only view of the encoded rendition mapped to given key.
+     * The view stays valid even after the record is superseded or dropped.
+     *
+     * @param key the key.
+     *
+     * @return the encoded bytes; {@code null} if not cached.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public ByteBuffer get(final String key) throws IOException {
+
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            final Location location = locate(bytes);
+            if (location == null) {
+                return null;
+            }
+            final ByteBuffer value = location.segment.map(
+                location.position + location.length).duplicate();
+            value.position((int) (location.position + HEADER_BYTES
+                                  + bytes.length));
+            value.limit((int) (location.position + location.length));
+            return value.slice().asReadOnlyBuffer();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Streams the encoded rendition mapped to given key to given channel
+     * with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+     * without copying it through the heap.
+     *
+     * @param key the key.
+     * @param target the channel to write to.
+     *
+     * @return {@code true} if found and transferred; {@code false} if not
+     * cached.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public boolean transferTo(final String key,
+                              final WritableByteChannel target)
+        throws IOException {
+
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            final Location location = locate(bytes);
+            if (location == null) {
+                return false;
+            }
+            long position = location.position + HEADER_BYTES + bytes.length;
+            long count = location.length - HEADER_BYTES - bytes.length;
+            while (count > 0L) {
+                final long transferred = location.segment.channel.transferTo(
+                    position, count, target);
+                position += transferred;
+                count -= transferred;
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Locates the record of given key and verifies its key bytes.
+     */
+    private Location locate(final byte[] key) throws IOException {
+
+        final int slot = index.find(hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        final Segment segment = segments.get(index.segment(slot));
+        final long position = index.position(slot);
+        final int length = index.length(slot);
+        final ByteBuffer buffer = segment.map(position + length);
+        if (buffer.getInt((int) position + 4) != key.length) {
+            return null; // a collision
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get((int) position + HEADER_BYTES + i) != key[i]) {
+                return null; // a collision
+            }
+        }
+
+        return new Location(segment, position, length);
+    }
+
+
+    /**
+     * Encodes given image and maps it to given key.
+     *
+     * @param key the key.
+     * @param image the image to encode.
+     * @param formatName the name of the encoding format.
+     *
+     * @throws IOException if an I/O error occurs or no writer is found.
+     */
+    public void put(final String key, final RenderedImage image,
+                    final String formatName)
+        throws IOException {
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, formatName, output)) {
+            throw new IOException("no image writer found for " + formatName);
+        }
+
+        put(key, ByteBuffer.wrap(output.toByteArray()));
+    }
+
+
+    /**
+     * Maps given encoded bytes to given key. Values larger than a segment
+     * are not cached.
+     *
+     * @param key the key.
+     * @param value the encoded bytes, from its position to its limit.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void put(final String key, final ByteBuffer value)
+        throws IOException {
+
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAXIMUM_KEY_BYTES) {
+            throw new IllegalArgumentException("key too long: " + key);
+        }
+        if (HEADER_BYTES + bytes.length + (long) value.remaining()
+            > segmentBytes) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            append(bytes, value.duplicate());
+            evict();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Removes the mapping of given key, if any.
+     *
+     * @param key the key.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void remove(final String key) throws IOException {
+
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            if (locate(bytes) == null) {
+                return;
+            }
+            append(bytes, null); // a tombstone
+            evict();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends a record to the active segment.
+     *
+     * @param value the value; {@code null} for a tombstone.
+     */
+    private void append(final byte[] key, final ByteBuffer value)
+        throws IOException {
+
+        final int valueLength = value == null ? -1 : value.remaining();
+        final int length = HEADER_BYTES + key.length + Math.max(0, valueLength);
+        if (active.size > 0L && active.size + length > segmentBytes) {
+            rotate();
+        }
+
+        final ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(MAGIC).putInt(key.length).putInt(valueLength).putInt(0);
+        record.put(key);
+        if (value != null) {
+            record.put(value);
+        }
+        record.flip();
+        record.putInt(12, checksum(record, length));
+
+        final Segment segment = active;
+        final long position = segment.size;
+        for (long p = position; record.hasRemaining();) {
+            p += segment.channel.write(record, p);
+        }
+        segment.size += length;
+
+        if (value == null) {
+            unlink(hash(key));
+        } else {
+            link(hash(key), segment, position, length);
+        }
+    }
+
+
+    /**
+     * Compacts or drops the oldest segments while the total size exceeds the
+     * maximum.
+     */
+    private void evict() throws IOException {
+
+        while (total() > maximumBytes) {
+            if (segments.size() == 1) {
+                rotate();
+            }
+            final Segment oldest = segments.firstEntry().getValue();
+            if (oldest.live * 2L <= oldest.size) {
+                relocate(oldest);
+            } else {
+                drop(oldest);
+            }
+        }
+    }
+
+
+    /**
+     * Compacts every sealed segment of which at least half is dead.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void compact() throws IOException {
+
+        lock.writeLock().lock();
+        try {
+            for (final Segment segment
+                 : new ArrayList<Segment>(segments.values())) {
+                if (segment != active && segment.live * 2L <= segment.size) {
+                    relocate(segment);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Moves the live records of given sealed segment to the active segment
+     * and deletes it. A tombstone is moved along unless its key has been
+     * mapped again or no older segment is left.
+     */
+    private void relocate(final Segment segment) throws IOException {
+
+        final ByteBuffer buffer = segment.map(segment.size);
+        for (long position = 0L; position < segment.size;) {
+            final int keyLength = buffer.getInt((int) position + 4);
+            final int valueLength = buffer.getInt((int) position + 8);
+            final int length = HEADER_BYTES + keyLength
+                               + Math.max(0, valueLength);
+            final byte[] key = new byte[keyLength];
+            final ByteBuffer record = buffer.duplicate();
+            record.position((int) position + HEADER_BYTES);
+            record.get(key);
+            final int slot = index.find(hash(key));
+            if (valueLength >= 0) {
+                if (slot >= 0 && index.segment(slot) == segment.id
+                    && index.position(slot) == position) {
+                    record.limit((int) position + length);
+                    append(key, record.slice());
+                }
+            } else if (slot < 0 && !segments.headMap(segment.id).isEmpty()) {
+                // still hides a record an older segment may hold
+                append(key, null);
+            }
+            position += length;
+        }
+        delete(segment);
+    }
+
+
+    /**
+     * Drops given segment along with its live records.
+     */
+    private void drop(final Segment segment) throws IOException {
+
+        index = index.without(segment.id);
+        delete(segment);
+    }
+
+
+    private void delete(final Segment segment) throws IOException {
+
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+        if (segment == active) {
+            rotate();
+        }
+    }
+
+
+    private long total() {
+
+        long total = 0L;
+        for (final Segment segment : segments.values()) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+
+    /**
+     * Returns the maximum number of bytes of all segments.
+     *
+     * @return the maximum number of bytes.
+     */
+    public long getMaximumBytes() {
+
+        return maximumBytes;
+    }
+
+
+    /**
+     * Returns the number of bytes of all segments, including dead records.
+     *
+     * @return the total number of bytes.
+     */
+    public long getTotalBytes() {
+
+        lock.readLock().lock();
+        try {
+            return total();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Returns the number of bytes of live records.
+     *
+     * @return the number of live bytes.
+     */
+    public long getLiveBytes() {
+
+        lock.readLock().lock();
+        try {
+            long live = 0L;
+            for (final Segment segment : segments.values()) {
+                live += segment.live;
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Forces all written records to the storage and closes all segments.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+
+        lock.writeLock().lock();
+        try {
+            for (final Segment segment : segments.values()) {
+                if (segment.channel.isOpen()) {
+                    segment.channel.force(false);
+                    segment.channel.close();
+                }
+            }
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * The location of a record.
+     */
+    private static final class Location {
+
+
+        Location(final Segment segment, final long position,
+                 final int length) {
+
+            super();
+
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+        }
+
+
+        private final Segment segment;
+
+        private final long position;
+
+        private final int length;
+
+
+    }
+
+
+    /**
+     * An append-only segment file.
+     */
+    private static final class Segment {
+
+
+        Segment(final int id, final Path path) throws IOException {
+
+            super();
+
+            this.id = id;
+            this.path = path;
+
+            channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            size = channel.size();
+        }
+
+
+        /**
+         * Returns a mapping of this segment covering at least given number
+         * of bytes, remapping if the current one is too short.
+         */
+        synchronized ByteBuffer map(final long bytes) throws IOException {
+
+            if (mapped == null || mapped.capacity() < bytes) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L,
+                                     Math.max(bytes, size));
+            }
+            return mapped;
+        }
+
+
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private MappedByteBuffer mapped;
+
+        /**
+         * The number of bytes of complete records.
+         */
+        private long size;
+
+        /**
+         * The number of bytes of live records.
+         */
+        private long live;
+
+
+    }
+
+
+    /**
+     * An open-addressing hash table, from 64-bit key hashes to record
+     * locations, in a direct buffer. Each slot holds the hash, the segment
+     * id, the position and the length of a record.
+     */
+    private static final class Index {
+
+
+        private static final int SLOT_BYTES = 24;
+
+
+        Index(final int capacity) {
+
+            super();
+
+            this.capacity = capacity;
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        }
+
+
+        private int home(final long hash) {
+
+            return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+        }
+
+
+        private long hash(final int slot) {
+
+            return slots.getLong(slot * SLOT_BYTES);
+        }
+
+
+        int segment(final int slot) {
+
+            return slots.getInt(slot * SLOT_BYTES + 8);
+        }
+
+
+        long position(final int slot) {
+
+            return slots.getLong(slot * SLOT_BYTES + 12);
+        }
+
+
+        int length(final int slot) {
+
+            return slots.getInt(slot * SLOT_BYTES + 20);
+        }
+
+
+        /**
+         * Returns the slot of given hash.
+         *
+         * @return the slot; {@code -1} if not found.
+         */
+        int find(final long hash) {
+
+            for (int slot = home(hash);; slot = (slot + 1) & (capacity - 1)) {
+                final long h = hash(slot);
+                if (h == 0L) {
+                    return -1;
+                }
+                if (h == hash) {
+                    return slot;
+                }
+            }
+        }
+
+
+        void put(final long hash, final int segment, final long position,
+                 final int length) {
+
+            if ((count + 1) * 2 > capacity) {
+                grow();
+            }
+            int slot = home(hash);
+            while (hash(slot) != 0L && hash(slot) != hash) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (hash(slot) == 0L) {
+                count++;
+            }
+            write(slot, hash, segment, position, length);
+        }
+
+
+        /**
+         * Empties given slot, shifting back the following slots of the same
+         * cluster.
+         */
+        void remove(int slot) {
+
+            count--;
+            for (int next = (slot + 1) & (capacity - 1);;
+                 next = (next + 1) & (capacity - 1)) {
+                final long h = hash(next);
+                if (h == 0L) {
+                    break;
+                }
+                final int home = home(h);
+                // move back unless the home lies cyclically in (slot, next]
+                if (slot <= next
+                    ? (home <= slot || home > next)
+                    : (home <= slot && home > next)) {
+                    write(slot, h, segment(next), position(next),
+                          length(next));
+                    slot = next;
+                }
+            }
+            write(slot, 0L, 0, 0L, 0);
+        }
+
+
+        private void write(final int slot, final long hash, final int segment,
+                           final long position, final int length) {
+
+            final int offset = slot * SLOT_BYTES;
+            slots.putLong(offset, hash);
+            slots.putInt(offset + 8, segment);
+            slots.putLong(offset + 12, position);
+            slots.putInt(offset + 20, length);
+        }
+
+
+        private void grow() {
+
+            final Index grown = copy(capacity * 2, -1);
+            capacity = grown.capacity;
+            slots = grown.slots;
+            count = grown.count;
+        }
+
+
+        /**
+         * Returns a new index without the records of given segment.
+         */
+        Index without(final int segment) {
+
+            return copy(capacity, segment);
+        }
+
+
+        private Index copy(final int capacity, final int excluded) {
+
+            final Index copy = new Index(capacity);
+            for (int slot = 0; slot < this.capacity; slot++) {
+                final long h = hash(slot);
+                if (h != 0L && segment(slot) != excluded) {
+                    copy.put(h, segment(slot), position(slot), length(slot));
+                }
+            }
+            return copy;
+        }
+
+
+        void clear() {
+
+            count = 0;
+            slots.clear();
+            while (slots.hasRemaining()) {
+                slots.put((byte) 0);
+            }
+        }
+
+
+        private int capacity;
+
+        private ByteBuffer slots;
+
+        private int count;
+
+
+    }
+
+
+    private final Path directory;
+
+    private final long maximumBytes;
+
+    private final long segmentBytes;
+
+    private final TreeMap<Integer, Segment> segments;
+
+    private final ReadWriteLock lock;
+
+    private Index index;
+
+    private Segment active;
+
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+/**
+ * Reconstruction filters for the separable resampling engine. Unlike
+ * {@link org.imgscalr.Scalr.Method}s, which delegate to Java2D, filters are
+ * applied directly on pixel arrays.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public enum Filter {
+
+
+    /**
+     * The box filter. Averages source pixels covered by each target pixel.
+     */
+    BOX(.5d) {
+        @Override
+        double weight(final double x) {
+            return x >= -.5d && x < .5d ? 1.0d : .0d;
+        }
+    },
+    /**
+     * The triangle (bilinear) filter.
+     */
+    BILINEAR(1.0d) {
+        @Override
+        double weight(double x) {
+            x = Math.abs(x);
+            return x < 1.0d ? 1.0d - x : .0d;
+        }
+    },
+    /**
+     * The Catmull-Rom (bicubic, {@code a = -0.5}) filter.
+     */
+    BICUBIC(2.0d) {
+        @Override
+        double weight(double x) {
+            final double a = -.5d;
+            x = Math.abs(x);
+            if (x < 1.0d) {
+                return ((a + 2.0d) * x - (a + 3.0d)) * x * x + 1.0d;
+            }
+            if (x < 2.0d) {
+                return (((x - 5.0d) * x + 8.0d) * x - 4.0d) * a;
+            }
+            return .0d;
+        }
+    },
+    /**
+     * The three-lobed Lanczos filter.
+     */
+    LANCZOS3(3.0d) {
+        @Override
+        double weight(final double x) {
+            if (x > -3.0d && x < 3.0d) {
+                return sinc(x) * sinc(x / 3.0d);
+            }
+            return .0d;
+        }
+    };
+
+
+    private static double sinc(double x) {
+
+        if (x == .0d) {
+            return 1.0d;
+        }
+        x *= Math.PI;
+        return Math.sin(x) / x;
+    }
+
+
+    private Filter(final double support) {
+
+        this.support = support;
+    }
+
+
+    /**
+     * Returns the weight of this filter at given distance.
+     *
+     * @param x the distance from the center.
+     *
+     * @return the weight.
+     */
+    abstract double weight(double x);
+
+
+    /**
+     * Returns the support (radius) of this filter when not scaled.
+     *
+     * @return the support.
+     */
+    double getSupport() {
+
+        return support;
+    }
+
+
+    private final double support;
+
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import javax.imageio.IIOException;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import org.w3c.dom.Node;
+
+
+/**
+ * Reads the frames of a multi-frame image, e.g. an animated GIF or a
+ * multi-page TIFF, one by one. GIF frames, which may cover only a part of
+ * the logical screen, are composed onto a single canvas following the
+ * disposal method of the previous frame, so that each frame read is the
+ * whole picture shown at that time; frames of other formats are read as
+ * they are.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class Frames {
+
+
+    static final String GIF_STREAM = "javax_imageio_gif_stream_1.0";
+
+
+    static final String GIF_IMAGE = "javax_imageio_gif_image_1.0";
+
+
+    /**
+     * Returns the child of given node of given name.
+     *
+     * @return the child; {@code null} if none.
+     */
+    private static IIOMetadataNode child(final Node node, final String name) {
+
+        for (Node child = node.getFirstChild(); child != null;
+             child = child.getNextSibling()) {
+            if (name.equals(child.getNodeName())) {
+                return (IIOMetadataNode) child;
+            }
+        }
+
+        return null;
+    }
+
+
+    private static int attribute(final IIOMetadataNode node,
+                                 final String name) {
+
+        return Integer.parseInt(node.getAttribute(name));
+    }
+
+
+    /**
+     * Creates a new instance reading from given reader whose input is set
+     * without ignoring metadata.
+     */
+    Frames(final ImageReader reader) {
+
+        super();
+
+        this.reader = reader;
+    }
+
+
+    /**
+     * Reads the next frame. For a GIF the returned image is the canvas,
+     * which is overwritten by the next frame.
+     *
+     * @return the next frame; {@code null} if there is no more frame.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    BufferedImage next() throws IOException {
+
+        final BufferedImage frameImage;
+        try {
+            frameImage = reader.read(index);
+        } catch (final IndexOutOfBoundsException ioobe) {
+            return null;
+        }
+        metadata = reader.getImageMetadata(index);
+        index++;
+
+        if (metadata == null
+            || !GIF_IMAGE.equals(metadata.getNativeMetadataFormatName())) {
+            return frameImage;
+        }
+
+        final IIOMetadataNode root
+            = (IIOMetadataNode) metadata.getAsTree(GIF_IMAGE);
+        final IIOMetadataNode descriptor = child(root, "ImageDescriptor");
+        final Rectangle bounds = new Rectangle(
+            attribute(descriptor, "imageLeftPosition"),
+            attribute(descriptor, "imageTopPosition"),
+            frameImage.getWidth(), frameImage.getHeight());
+        if (canvas == null) {
+            canvas = canvas(bounds);
+        }
+
+        // dispose the previous frame
+        if (disposed != null) {
+            final Graphics2D graphics = canvas.createGraphics();
+            graphics.setComposite(AlphaComposite.Clear);
+            graphics.fill(disposed);
+            graphics.dispose();
+            disposed = null;
+        }
+        if (saved != null) {
+            canvas.setData(saved);
+            saved = null;
+        }
+
+        final IIOMetadataNode control
+            = child(root, "GraphicControlExtension");
+        final String disposal = control == null
+                                ? "none" : control.getAttribute(
+                                    "disposalMethod");
+        final Rectangle visible = bounds.intersection(
+            new Rectangle(canvas.getWidth(), canvas.getHeight()));
+        if ("restoreToBackgroundColor".equals(disposal)) {
+            disposed = visible;
+        } else if ("restoreToPrevious".equals(disposal)
+                   && !visible.isEmpty()) {
+            saved = canvas.getData(visible);
+        }
+
+        final Graphics2D graphics = canvas.createGraphics();
+        graphics.drawImage(frameImage, bounds.x, bounds.y, null);
+        graphics.dispose();
+        frameImage.flush();
+
+        return canvas;
+    }
+
+
+    /**
+     * Creates the canvas of the logical screen; of the first frame if the
+     * stream does not tell.
+     */
+    private BufferedImage canvas(final Rectangle first) throws IOException {
+
+        int width = 0;
+        int height = 0;
+        final IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (streamMetadata != null && GIF_STREAM.equals(
+            streamMetadata.getNativeMetadataFormatName())) {
+            final IIOMetadataNode screen = child(
+                streamMetadata.getAsTree(GIF_STREAM),
+                "LogicalScreenDescriptor");
+            if (screen != null) {
+                width = attribute(screen, "logicalScreenWidth");
+                height = attribute(screen, "logicalScreenHeight");
+            }
+        }
+        if (width <= 0 || height <= 0) {
+            width = first.x + first.width;
+            height = first.y + first.height;
+        }
+
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+
+    /**
+     * Returns the stream metadata for given writer and parameters. The
+     * stream metadata of a GIF, which describes the logical screen and its
+     * palette, is left to the writer.
+     *
+     * @return the stream metadata; {@code null} for the writer's default.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    IIOMetadata streamMetadata(final ImageWriter writer,
+                               final ImageWriteParam param)
+        throws IOException {
+
+        final IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (streamMetadata == null || GIF_STREAM.equals(
+            streamMetadata.getNativeMetadataFormatName())) {
+            return null;
+        }
+
+        return writer.convertStreamMetadata(streamMetadata, param);
+    }
+
+
+    /**
+     * Returns the metadata of the last frame read for writing given target
+     * image with given writer and parameters.
+     * <p>
+     * For a GIF writer the delay, the user input flag, and the application
+     * (e.g. looping) and comment extensions of a GIF frame are carried over
+     * onto the writer's defaults, which describe the target image; as each
+     * target frame is whole, it is disposed to the background. Other writers
+     * convert the metadata themselves, overriding what does not match the
+     * target image.
+     *
+     * @return the image metadata; {@code null} for the writer's default.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    IIOMetadata imageMetadata(final ImageWriter writer,
+                              final ImageWriteParam param,
+                              final BufferedImage targetImage)
+        throws IOException {
+
+        if (metadata == null) {
+            return null;
+        }
+
+        final ImageTypeSpecifier type
+            = ImageTypeSpecifier.createFromRenderedImage(targetImage);
+        final IIOMetadata defaults
+            = writer.getDefaultImageMetadata(type, param);
+        if (defaults == null
+            || !GIF_IMAGE.equals(defaults.getNativeMetadataFormatName())) {
+            return writer.convertImageMetadata(metadata, type, param);
+        }
+        if (!GIF_IMAGE.equals(metadata.getNativeMetadataFormatName())) {
+            return defaults;
+        }
+
+        final Node source = metadata.getAsTree(GIF_IMAGE);
+        final IIOMetadataNode root
+            = (IIOMetadataNode) defaults.getAsTree(GIF_IMAGE);
+        final IIOMetadataNode sourceControl
+            = child(source, "GraphicControlExtension");
+        final IIOMetadataNode control
+            = child(root, "GraphicControlExtension");
+        if (sourceControl != null && control != null) {
+            control.setAttribute("delayTime",
+                                 sourceControl.getAttribute("delayTime"));
+            control.setAttribute("userInputFlag",
+                                 sourceControl.getAttribute("userInputFlag"));
+            control.setAttribute("disposalMethod", "restoreToBackgroundColor");
+        }
+        for (final String name : new String[]{"ApplicationExtensions",
+                                              "CommentExtensions"}) {
+            final IIOMetadataNode extensions = child(source, name);
+            if (extensions != null) {
+                final IIOMetadataNode existing = child(root, name);
+                if (existing != null) {
+                    root.removeChild(existing);
+                }
+                root.appendChild(extensions);
+            }
+        }
+        try {
+            defaults.setFromTree(GIF_IMAGE, root);
+        } catch (final IIOInvalidTreeException iite) {
+            throw new IIOException("failed to carry over frame metadata",
+                                   iite);
+        }
+
+        return defaults;
+    }
+
+
+    /**
+     * Returns the width of the frames read; the width of the canvas for a
+     * GIF.
+     */
+    int getWidth() throws IOException {
+
+        return canvas != null ? canvas.getWidth() : reader.getWidth(index - 1);
+    }
+
+
+    /**
+     * Returns the height of the frames read; the height of the canvas for a
+     * GIF.
+     */
+    int getHeight() throws IOException {
+
+        return canvas != null
+               ? canvas.getHeight() : reader.getHeight(index - 1);
+    }
+
+
+    private final ImageReader reader;
+
+
+    /**
+     * The index of the next frame.
+     */
+    private int index;
+
+
+    /**
+     * The metadata of the last frame read.
+     */
+    private IIOMetadata metadata;
+
+
+    /**
+     * The canvas of GIF frames.
+     */
+    private BufferedImage canvas;
+
+
+    /**
+     * The area of the canvas to clear before the next frame.
+     */
+    private Rectangle disposed;
+
+
+    /**
+     * The pixels of the canvas to restore before the next frame.
+     */
+    private Raster saved;
+
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A lock-free histogram of non-negative long values. Values are counted in
+ * log-linear buckets; each power of two is split into eight buckets so that
+ * a bucket's bounds are within 12.5% of each other. Recording is a few
+ * atomic additions and never blocks; reading is weakly consistent.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class Histogram {
+
+
+    private static final int SUB_BITS = 3;
+
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+
+    /**
+     * The number of buckets.
+     */
+    public static final int BUCKET_COUNT
+        = (Long.SIZE - 1 - SUB_BITS + 1) * SUB_COUNT;
+
+
+    static int bucket(final long value) {
+
+        if (value < SUB_COUNT) {
+            return (int) Math.max(value, 0L);
+        }
+
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_COUNT
+               + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+
+    /**
+     * Returns the least value counted in given bucket.
+     *
+     * @param bucket the bucket index.
+     *
+     * @return the lower bound, inclusive, of {@code bucket}.
+     */
+    public static long getLowerBound(final int bucket) {
+
+        if (bucket < 0 || bucket >= BUCKET_COUNT) {
+            throw new IllegalArgumentException(
+                "bucket(" + bucket + ") out of bounds");
+        }
+
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+
+        final int shift = bucket / SUB_COUNT - 1;
+        return (long) (SUB_COUNT + bucket % SUB_COUNT) << shift;
+    }
+
+
+    /**
+     * Returns the greatest value counted in given bucket.
+     *
+     * @param bucket the bucket index.
+     *
+     * @return the upper bound, inclusive, of {@code bucket}.
+     */
+    public static long getUpperBound(final int bucket) {
+
+        if (bucket == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+
+        return getLowerBound(bucket + 1) - 1L;
+    }
+
+
+    /**
+     * Records given value. Negative values are recorded as {@code 0L}.
+     *
+     * @param value the value to record.
+     */
+    public void record(long value) {
+
+        if (value < 0L) {
+            value = 0L;
+        }
+
+        counts.incrementAndGet(bucket(value));
+        sum.addAndGet(value);
+        for (long current; (current = maximum.get()) < value;) {
+            if (maximum.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the number of values counted in given bucket.
+     *
+     * @param bucket the bucket index.
+     *
+     * @return the count of {@code bucket}.
+     *
+     * @see #getLowerBound(int)
+     * @see #getUpperBound(int)
+     */
+    public long getCount(final int bucket) {
+
+        return counts.get(bucket);
+    }
+
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+
+    /**
+     * Returns the sum of recorded values.
+     *
+     * @return the sum of recorded values.
+     */
+    public long getSum() {
+
+        return sum.get();
+    }
+
+
+    /**
+     * Returns the greatest recorded value.
+     *
+     * @return the maximum; {@code 0L} if nothing is recorded.
+     */
+    public long getMaximum() {
+
+        return maximum.get();
+    }
+
+
+    /**
+     * Returns an upper bound of the value at given percentile. The result is
+     * never greater than the maximum.
+     *
+     * @param percentile the percentile between {@code 0.0d} and
+     * {@code 100.0d}.
+     *
+     * @return the value at {@code percentile}; {@code 0L} if nothing is
+     * recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+
+        if (percentile < .0d || percentile > 100.0d) {
+            throw new IllegalArgumentException(
+                "percentile(" + percentile + ") out of range");
+        }
+
+        final long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += (snapshot[i] = counts.get(i));
+        }
+        if (count == 0L) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(
+                                   percentile / 100.0d * count));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank) {
+                return Math.min(getUpperBound(i), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+
+    /**
+     * Resets this histogram. Values recorded concurrently may be lost.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        sum.set(0L);
+        maximum.set(0L);
+    }
+
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+
+    private final AtomicLong sum = new AtomicLong();
+
+
+    private final AtomicLong maximum = new AtomicLong();
+
+
+}
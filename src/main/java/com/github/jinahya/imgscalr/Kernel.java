@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+/**
+ * A precomputed, fixed-point weight table for resampling along a single axis.
+ * The table covers scaled indices in {@code [from, to)} of a source of
+ * {@code sourceLength} scaled to {@code scaledLength}.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final strictfp class Kernel {
+
+
+    /**
+     * The number of fraction bits of each weight.
+     */
+    static final int PRECISION = 14;
+
+
+    /**
+     * The fixed-point value of {@code 1.0}.
+     */
+    static final int ONE = 1 << PRECISION;
+
+
+    /**
+     * The fixed-point value of {@code 0.5}.
+     */
+    static final int HALF = 1 << (PRECISION - 1);
+
+
+    Kernel(final Filter filter, final int sourceLength,
+           final int scaledLength, final int from, final int to) {
+
+        super();
+
+        if (sourceLength <= 0) {
+            throw new IllegalArgumentException(
+                "sourceLength(" + sourceLength + ") <= 0");
+        }
+        if (scaledLength <= 0) {
+            throw new IllegalArgumentException(
+                "scaledLength(" + scaledLength + ") <= 0");
+        }
+        if (from < 0 || to > scaledLength || from >= to) {
+            throw new IllegalArgumentException(
+                "illegal range [" + from + ", " + to + ") for "
+                + scaledLength);
+        }
+
+        this.filter = filter;
+        this.sourceLength = sourceLength;
+        this.scaledLength = scaledLength;
+        this.from = from;
+        this.to = to;
+
+        final double scale = sourceLength / (double) scaledLength;
+        final double filterScale = Math.max(1.0d, scale);
+        final double support = filter.getSupport() * filterScale;
+
+        final int length = to - from;
+        taps = Math.min((int) Math.ceil(support * 2.0d) + 1, sourceLength);
+        firsts = new int[length];
+        counts = new int[length];
+        weights = new int[length * taps];
+
+        final double[] values = new double[taps];
+        int minimum = sourceLength;
+        int maximum = 0;
+        for (int i = 0; i < length; i++) {
+            final double center = (from + i + .5d) * scale;
+            final int lower = Math.max(0, (int) (center - support + .5d));
+            final int upper = Math.min(
+                Math.min(sourceLength, (int) (center + support + .5d)),
+                lower + taps);
+            int count = upper - lower;
+            double sum = .0d;
+            for (int k = 0; k < count; k++) {
+                values[k] = filter.weight(
+                    (lower + k + .5d - center) / filterScale);
+                sum += values[k];
+            }
+            final int first;
+            if (count <= 0 || sum == .0d) { // take the nearest one
+                first = Math.min(sourceLength - 1, (int) center);
+                count = 1;
+                values[0] = sum = 1.0d;
+            } else {
+                first = lower;
+            }
+            // to fixed-point; the largest one takes the rounding error
+            int total = 0;
+            int largest = 0;
+            for (int k = 0; k < count; k++) {
+                final int weight = (int) Math.round(values[k] / sum * ONE);
+                weights[i * taps + k] = weight;
+                total += weight;
+                if (weight > weights[i * taps + largest]) {
+                    largest = k;
+                }
+            }
+            weights[i * taps + largest] += ONE - total;
+            firsts[i] = first;
+            counts[i] = count;
+            minimum = Math.min(minimum, first);
+            maximum = Math.max(maximum, first + count);
+        }
+        this.minimum = minimum;
+        this.maximum = maximum;
+    }
+
+
+    /**
+     * Returns the number of scaled indices this kernel covers.
+     *
+     * @return the length.
+     */
+    int getLength() {
+
+        return to - from;
+    }
+
+
+    Filter getFilter() {
+
+        return filter;
+    }
+
+
+    int getSourceLength() {
+
+        return sourceLength;
+    }
+
+
+    int getScaledLength() {
+
+        return scaledLength;
+    }
+
+
+    int getFrom() {
+
+        return from;
+    }
+
+
+    int getTo() {
+
+        return to;
+    }
+
+
+    /**
+     * Returns the lowest source index touched by this kernel.
+     *
+     * @return the lowest source index, inclusive.
+     */
+    int getMinimum() {
+
+        return minimum;
+    }
+
+
+    /**
+     * Returns the highest source index touched by this kernel.
+     *
+     * @return the highest source index, exclusive.
+     */
+    int getMaximum() {
+
+        return maximum;
+    }
+
+
+    /**
+     * Returns the index, relative to the weights of a scaled index, of the
+     * weights of each of given number of consecutive scaled indices; i.e.
+     * {@code n * taps} for each {@code n}. The array is computed once and
+     * shared.
+     *
+     * @param lanes the number of scaled indices.
+     *
+     * @return the strides, which must not be modified.
+     */
+    int[] strides(final int lanes) {
+
+        int[] strides = this.strides;
+        if (strides == null || strides.length != lanes) {
+            strides = new int[lanes];
+            for (int n = 0; n < lanes; n++) {
+                strides[n] = n * taps;
+            }
+            this.strides = strides;
+        }
+        return strides;
+    }
+
+
+    private final Filter filter;
+
+    private final int sourceLength;
+
+    private final int scaledLength;
+
+    private final int from;
+
+    private final int to;
+
+    /**
+     * The maximum number of taps of each scaled index.
+     */
+    final int taps;
+
+    /**
+     * The first source index of each scaled index.
+     */
+    final int[] firsts;
+
+    /**
+     * The number of source indices of each scaled index.
+     */
+    final int[] counts;
+
+    /**
+     * Fixed-point weights; {@code taps} entries for each scaled index.
+     */
+    final int[] weights;
+
+    private final int minimum;
+
+    private final int maximum;
+
+    private volatile int[] strides;
+
+
+}
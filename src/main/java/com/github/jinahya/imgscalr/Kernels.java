@@ -0,0 +1,282 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.lang.reflect.InvocationTargetException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The per-pixel arithmetic of the resampling passes. This class is the
+ * scalar implementation; the {@code META-INF/versions/17} layer of the
+ * multi-release jar carries a {@code VectorKernels} subclass which is used
+ * instead when the {@code jdk.incubator.vector} module is resolved, e.g.
+ * with {@code --add-modules jdk.incubator.vector}. Both produce identical
+ * results.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+class Kernels {
+
+
+    private static final Logger logger
+        = LoggerFactory.getLogger(Kernels.class);
+
+
+    /**
+     * The name of the system property which, set to {@code true}, disables
+     * the vectorized kernels.
+     */
+    static final String PROPERTY_SCALAR
+        = "com.github.jinahya.imgscalr.scalar";
+
+
+    /**
+     * The kernels in use.
+     */
+    static final Kernels INSTANCE = load();
+
+
+    private static Kernels load() {
+
+        if (Boolean.getBoolean(PROPERTY_SCALAR)) {
+            return new Kernels();
+        }
+
+        try {
+            final Kernels kernels = (Kernels) Class.forName(
+                Kernels.class.getPackage().getName() + ".VectorKernels")
+                .getDeclaredConstructor().newInstance();
+            logger.debug("vectorized kernels: {}", kernels);
+            return kernels;
+        } catch (final ClassNotFoundException cnfe) {
+            // not loaded from the Java 17 layer of the multi-release jar
+        } catch (final LinkageError le) {
+            // jdk.incubator.vector not resolved
+            logger.debug("vectorized kernels not available: {}",
+                         le.toString());
+        } catch (final InvocationTargetException ite) {
+            // no vector shape wide enough
+            logger.debug("vectorized kernels not available: {}",
+                         ite.getCause().toString());
+        } catch (final ReflectiveOperationException roe) {
+            logger.warn("failed to load vectorized kernels", roe);
+        }
+
+        return new Kernels();
+    }
+
+
+    Kernels() {
+
+        super();
+    }
+
+
+    /**
+     * Resamples a single premultiplied source row with given kernel.
+     *
+     * @param kernel the horizontal kernel.
+     * @param source the source row; index {@code 0} is the kernel's minimum.
+     * @param target the target array.
+     * @param offset the index of the target array to write.
+     */
+    void horizontal(final Kernel kernel, final int[] source,
+                    final int[] target, final int offset) {
+
+        horizontal(kernel, source, target, offset, 0);
+    }
+
+
+    /**
+     * Resamples the part of a single premultiplied source row starting from
+     * given index of the kernel.
+     *
+     * @param from the index, in the kernel, of the first pixel to resample.
+     *
+     * @see #horizontal(Kernel, int[], int[], int)
+     */
+    static void horizontal(final Kernel kernel, final int[] source,
+                           final int[] target, final int offset,
+                           final int from) {
+
+        final int length = kernel.getLength();
+        final int minimum = kernel.getMinimum();
+        final int taps = kernel.taps;
+        final int[] firsts = kernel.firsts;
+        final int[] counts = kernel.counts;
+        final int[] weights = kernel.weights;
+        for (int i = from; i < length; i++) {
+            final int first = firsts[i] - minimum;
+            final int count = counts[i];
+            final int w = i * taps;
+            int a = Kernel.HALF;
+            int r = Kernel.HALF;
+            int g = Kernel.HALF;
+            int b = Kernel.HALF;
+            for (int k = 0; k < count; k++) {
+                final int p = source[first + k];
+                final int weight = weights[w + k];
+                a += (p >>> 24) * weight;
+                r += ((p >> 16) & 0xFF) * weight;
+                g += ((p >> 8) & 0xFF) * weight;
+                b += (p & 0xFF) * weight;
+            }
+            target[offset + i] = pack(a, r, g, b);
+        }
+    }
+
+
+    /**
+     * Resamples the vertical kernel's row of given index from given rows.
+     *
+     * @param kernel the vertical kernel.
+     * @param index the index of the row in the kernel.
+     * @param source the premultiplied rows.
+     * @param offsets the {@link #offsets(Kernel, int, int, int) offsets} of
+     * the source rows in {@code source}.
+     * @param width the width of each row.
+     * @param target the target row.
+     */
+    void vertical(final Kernel kernel, final int index, final int[] source,
+                  final int[] offsets, final int width, final int[] target) {
+
+        vertical(kernel, index, source, offsets, width, target, 0);
+    }
+
+
+    /**
+     * Resamples the part of the vertical kernel's row of given index starting
+     * from given column.
+     *
+     * @param from the first column to resample.
+     *
+     * @see #vertical(Kernel, int, int[], int[], int, int[])
+     */
+    static void vertical(final Kernel kernel, final int index,
+                         final int[] source, final int[] offsets,
+                         final int width, final int[] target,
+                         final int from) {
+
+        final int count = kernel.counts[index];
+        final int w = index * kernel.taps;
+        final int[] weights = kernel.weights;
+        for (int x = from; x < width; x++) {
+            int a = Kernel.HALF;
+            int r = Kernel.HALF;
+            int g = Kernel.HALF;
+            int b = Kernel.HALF;
+            for (int k = 0; k < count; k++) {
+                final int p = source[offsets[w + k] + x];
+                final int weight = weights[w + k];
+                a += (p >>> 24) * weight;
+                r += ((p >> 16) & 0xFF) * weight;
+                g += ((p >> 8) & 0xFF) * weight;
+                b += (p & 0xFF) * weight;
+            }
+            target[x] = pack(a, r, g, b);
+        }
+    }
+
+
+    /**
+     * Returns the index of the first pixel of each source row of each row of
+     * given vertical kernel, laid out as the kernel's weights, in rows where
+     * source row {@code r} is at row {@code (r - origin) % capacity}. The
+     * offsets depend only on the arguments, so they are computed once for
+     * all rows of a pass.
+     *
+     * @param kernel the vertical kernel.
+     * @param origin the source row at row {@code 0}.
+     * @param capacity the number of rows.
+     * @param width the width of each row.
+     *
+     * @return the offsets; {@code kernel.taps} entries for each row.
+     */
+    static int[] offsets(final Kernel kernel, final int origin,
+                         final int capacity, final int width) {
+
+        final int taps = kernel.taps;
+        final int[] offsets = new int[kernel.getLength() * taps];
+        for (int i = 0; i < kernel.getLength(); i++) {
+            final int first = kernel.firsts[i] - origin;
+            for (int k = 0; k < kernel.counts[i]; k++) {
+                offsets[i * taps + k] = ((first + k) % capacity) * width;
+            }
+        }
+        return offsets;
+    }
+
+
+    /**
+     * Premultiplies given non-premultiplied pixels in place.
+     *
+     * @param row the pixels.
+     * @param offset the index of the first pixel.
+     * @param length the number of pixels.
+     *
+     * @see Pixels#premultiply(int[], int, int)
+     */
+    void premultiply(final int[] row, final int offset, final int length) {
+
+        Pixels.premultiply(row, offset, length);
+    }
+
+
+    /**
+     * Unpremultiplies given premultiplied pixels in place.
+     *
+     * @param row the pixels.
+     * @param offset the index of the first pixel.
+     * @param length the number of pixels.
+     *
+     * @see Pixels#unpremultiply(int[], int, int)
+     */
+    void unpremultiply(final int[] row, final int offset, final int length) {
+
+        Pixels.unpremultiply(row, offset, length);
+    }
+
+
+    private static int clamp(int v) {
+
+        v >>= Kernel.PRECISION;
+        return v < 0 ? 0 : v > 0xFF ? 0xFF : v;
+    }
+
+
+    private static int pack(final int a, final int r, final int g,
+                            final int b) {
+
+        final int alpha = clamp(a);
+        // keep the premultiplied color not greater than the alpha
+        return (alpha << 24) | (Math.min(clamp(r), alpha) << 16)
+               | (Math.min(clamp(g), alpha) << 8) | Math.min(clamp(b), alpha);
+    }
+
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName();
+    }
+
+
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import static org.imgscalr.Scalr.Method;
+
+
+/**
+ * A cost model of resizes with scaling methods which picks the best method
+ * expected to finish within a given time.
+ * <p>
+ * The cost of each method is modelled as nanoseconds per pixel of the
+ * visible source region plus nanoseconds per pixel of the scaled image, kept
+ * apart for exact integer reductions, which take another path. Both are
+ * learned, without locking, from each resize done with a scaling method
+ * while this model is installed, once it has been asked to select a method;
+ * until then resizes are not sampled at all. Each resize moves them by a
+ * weight towards fitting the time of its scaling alone, excluding the wait
+ * for memory and the operations applied afterwards.
+ * <p>
+ * Times are normalized by the load, the number of resizes in flight per
+ * available processor, when they are learned and scaled by the current load
+ * when they are estimated. A saturated process thus degrades to cheaper
+ * methods, down to {@link Method#SPEED} which is picked when nothing fits,
+ * and comes back as soon as the load goes away.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ *
+ * @see Scalr#setLatencyBudget(com.github.jinahya.imgscalr.LatencyBudget)
+ */
+public class LatencyBudget {
+
+
+    /**
+     * The default weight of each resize.
+     */
+    public static final double DEFAULT_WEIGHT = .125d;
+
+
+    /**
+     * Scaling methods from the best to the cheapest.
+     */
+    private static final Method[] METHODS = {
+        Method.ULTRA_QUALITY, Method.QUALITY, Method.BALANCED, Method.SPEED};
+
+
+    /**
+     * Initial nanoseconds per source and target pixel of each scaling method,
+     * scaled and reduced, in the order of {@link #index(Method, boolean)}.
+     */
+    private static final double[][] PRIORS = {
+        {0.0d, 0.0d}, {0.0d, 0.0d}, // AUTOMATIC; never learned
+        {1.0d, 5.0d}, {1.0d, 5.0d}, // SPEED
+        {2.0d, 35.0d}, {2.0d, 35.0d}, // BALANCED
+        {25.0d, 100.0d}, {4.0d, 0.0d}, // QUALITY
+        {150.0d, 100.0d}, {4.0d, 0.0d} // ULTRA_QUALITY
+    };
+
+
+    /**
+     * Nanoseconds per source and target pixel.
+     */
+    private static final class Cost {
+
+
+        private Cost(final double perSource, final double perTarget,
+                     final long samples) {
+
+            super();
+
+            this.perSource = perSource;
+            this.perTarget = perTarget;
+            this.samples = samples;
+        }
+
+
+        private double estimate(final double sourcePixels,
+                                final double targetPixels) {
+
+            return perSource * sourcePixels + perTarget * targetPixels;
+        }
+
+
+        /**
+         * Returns a cost moved by given weight towards fitting given sample;
+         * the error is shared by both terms in proportion to their pixels.
+         */
+        private Cost learn(final double weight, final double sourcePixels,
+                           final double targetPixels, final double nanos) {
+
+            // the first samples weigh more so that priors fade out fast
+            final double w = Math.max(weight, 1.0d / (samples + 1L));
+            final double error = nanos - estimate(sourcePixels, targetPixels);
+            final double norm = sourcePixels * sourcePixels
+                                + targetPixels * targetPixels;
+            return new Cost(
+                Math.max(0.0d, perSource + w * error * sourcePixels / norm),
+                Math.max(0.0d, perTarget + w * error * targetPixels / norm),
+                samples + 1L);
+        }
+
+
+        private final double perSource;
+
+
+        private final double perTarget;
+
+
+        private final long samples;
+
+
+    }
+
+
+    /**
+     * A resize in flight.
+     */
+    final class Sample implements AutoCloseable {
+
+
+        private Sample(final int index, final double sourcePixels,
+                       final double targetPixels) {
+
+            super();
+
+            this.index = index;
+            this.sourcePixels = sourcePixels;
+            this.targetPixels = targetPixels;
+
+            load = load(inFlight.incrementAndGet());
+            started = System.nanoTime();
+        }
+
+
+        /**
+         * Learns the time elapsed since this sample started. Samples of
+         * resizes which fail are closed without being learned.
+         */
+        void done() {
+
+            final long nanos = System.nanoTime() - started;
+            learn(index, sourcePixels, targetPixels,
+                  nanos / ((load + load(inFlight.get())) / 2.0d));
+        }
+
+
+        /**
+         * Takes this sample out of flight.
+         */
+        @Override
+        public void close() {
+
+            if (!closed) {
+                closed = true;
+                inFlight.decrementAndGet();
+            }
+        }
+
+
+        private final int index;
+
+
+        private final double sourcePixels;
+
+
+        private final double targetPixels;
+
+
+        private final double load;
+
+
+        private final long started;
+
+
+        private boolean closed;
+
+
+    }
+
+
+    /**
+     * Returns the index of the cost of given resolved scaling method.
+     */
+    private static int index(final Method scalingMethod,
+                             final boolean reduced) {
+
+        return scalingMethod.ordinal() * 2 + (reduced ? 1 : 0);
+    }
+
+
+    /**
+     * Returns the index of the cost of resizing with given placement and
+     * given scaling method.
+     */
+    private static int index(final Placement placement,
+                             final Method scalingMethod) {
+
+        final int regionWidth = placement.getRegionWidth();
+        final int regionHeight = placement.getRegionHeight();
+        final int scaledWidth = placement.getScaledWidth();
+        final int scaledHeight = placement.getScaledHeight();
+        return index(Scalr.scalingMethod(regionWidth, regionHeight,
+                                         scalingMethod, scaledWidth,
+                                         scaledHeight),
+                     Scalr.factor(regionWidth, regionHeight, scalingMethod,
+                                  scaledWidth, scaledHeight) > 0);
+    }
+
+
+    private static double sourcePixels(final Placement placement) {
+
+        return (double) placement.getRegionWidth()
+               * placement.getRegionHeight();
+    }
+
+
+    private static double targetPixels(final Placement placement) {
+
+        return (double) placement.getScaledWidth()
+               * placement.getScaledHeight();
+    }
+
+
+    /**
+     * Creates a new model with {@link #DEFAULT_WEIGHT}.
+     */
+    public LatencyBudget() {
+
+        this(DEFAULT_WEIGHT);
+    }
+
+
+    /**
+     * Creates a new model with given weight.
+     *
+     * @param weight the weight of each resize; {@code 1.0d} for fitting
+     * the last resize only.
+     */
+    public LatencyBudget(final double weight) {
+
+        super();
+
+        if (!(weight > 0.0d)) {
+            throw new IllegalArgumentException(
+                "weight(" + weight + ") <= 0");
+        }
+        if (weight > 1.0d) {
+            throw new IllegalArgumentException(
+                "weight(" + weight + ") > 1");
+        }
+
+        this.weight = weight;
+
+        costs = new AtomicReferenceArray<Cost>(PRIORS.length);
+        for (int i = 0; i < PRIORS.length; i++) {
+            costs.set(i, new Cost(PRIORS[i][0], PRIORS[i][1], 0L));
+        }
+    }
+
+
+    /**
+     * Returns the best scaling method expected to resize an image of given
+     * size into given box within given time under the current load.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param timeout the time the resize may take.
+     * @param unit the unit of {@code timeout}.
+     *
+     * @return the best scaling method expected to finish in time;
+     * {@link Method#SPEED} if none is.
+     */
+    public Method select(final int sourceWidth, final int sourceHeight,
+                         final int targetWidth, final int targetHeight,
+                         final float magnificationFactor, final long timeout,
+                         final TimeUnit unit) {
+
+        return select(Placement.of(sourceWidth, sourceHeight, targetWidth,
+                                   targetHeight, magnificationFactor, .0f,
+                                   .0f),
+                      unit.toNanos(timeout));
+    }
+
+
+    /**
+     * Returns the best scaling method expected to resize with given
+     * placement within given nanoseconds under the current load.
+     */
+    Method select(final Placement placement, final long nanos) {
+
+        if (!sampling) {
+            sampling = true;
+        }
+
+        if (nanos > 0L) {
+            final double load = load(inFlight.get() + 1);
+            for (final Method method : METHODS) {
+                if (estimate(placement, method) * load <= nanos) {
+                    return method;
+                }
+            }
+        }
+
+        return Method.SPEED;
+    }
+
+
+    /**
+     * Returns the nanoseconds a resize of an image of given size into given
+     * box with given scaling method is expected to take under the current
+     * load.
+     *
+     * @param scalingMethod the scaling method.
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     *
+     * @return the expected nanoseconds.
+     */
+    public long estimate(final Method scalingMethod, final int sourceWidth,
+                         final int sourceHeight, final int targetWidth,
+                         final int targetHeight,
+                         final float magnificationFactor) {
+
+        if (scalingMethod == null) {
+            throw new NullPointerException("scalingMethod");
+        }
+
+        return (long) (estimate(Placement.of(
+            sourceWidth, sourceHeight, targetWidth, targetHeight,
+            magnificationFactor, .0f, .0f), scalingMethod)
+                       * load(inFlight.get() + 1));
+    }
+
+
+    /**
+     * Returns the nanoseconds a resize with given placement and given
+     * scaling method is expected to take without load.
+     */
+    private double estimate(final Placement placement,
+                            final Method scalingMethod) {
+
+        return costs.get(index(placement, scalingMethod))
+            .estimate(sourcePixels(placement), targetPixels(placement));
+    }
+
+
+    /**
+     * Starts a sample of a resize with given placement and given scaling
+     * method if this model has been asked to select a method.
+     *
+     * @return a new sample; {@code null} if not sampling.
+     *
+     * @see #start(Placement, Method)
+     */
+    Sample sample(final Placement placement, final Method scalingMethod) {
+
+        return sampling ? start(placement, scalingMethod) : null;
+    }
+
+
+    /**
+     * Starts a sample of a resize with given placement and given scaling
+     * method. The sample is in flight until closed.
+     */
+    Sample start(final Placement placement, final Method scalingMethod) {
+
+        return new Sample(index(placement, scalingMethod),
+                          sourcePixels(placement), targetPixels(placement));
+    }
+
+
+    /**
+     * Learns given nanoseconds, taken without load, of a resize with given
+     * placement and given scaling method.
+     */
+    void learn(final Placement placement, final Method scalingMethod,
+               final double nanos) {
+
+        learn(index(placement, scalingMethod), sourcePixels(placement),
+              targetPixels(placement), nanos);
+    }
+
+
+    private void learn(final int index, final double sourcePixels,
+                       final double targetPixels, final double nanos) {
+
+        while (true) {
+            final Cost current = costs.get(index);
+            final Cost learned = current.learn(weight, sourcePixels,
+                                               targetPixels, nanos);
+            if (costs.compareAndSet(index, current, learned)) {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the load of given number of resizes in flight; never less than
+     * {@code 1.0d}.
+     */
+    private double load(final int resizes) {
+
+        return Math.max(1.0d, resizes / (double) processors);
+    }
+
+
+    /**
+     * Returns the number of resizes in flight.
+     *
+     * @return the number of resizes in flight.
+     */
+    public int getInFlight() {
+
+        return inFlight.get();
+    }
+
+
+    @Override
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder(super.toString())
+            .append("?weight=").append(weight)
+            .append("&inFlight=").append(inFlight.get());
+        for (final Method method : METHODS) {
+            final Cost cost = costs.get(index(method, false));
+            builder.append('&').append(method).append('=')
+                .append(cost.perSource).append('+').append(cost.perTarget);
+        }
+        return builder.toString();
+    }
+
+
+    private final double weight;
+
+
+    private final AtomicReferenceArray<Cost> costs;
+
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+
+    /**
+     * Whether resizes are sampled; set once this model is asked to select.
+     */
+    private volatile boolean sampling;
+
+
+    private final int processors = Runtime.getRuntime().availableProcessors();
+
+
+}
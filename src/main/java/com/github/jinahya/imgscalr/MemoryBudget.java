@@ -0,0 +1,450 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import static org.imgscalr.Scalr.Method;
+
+
+/**
+ * A budget of bytes allocated by concurrent resizes. Each resize estimates
+ * its peak allocation before allocating anything and is admitted only when
+ * the estimate fits into what is left of the budget; otherwise it waits, in
+ * arrival order, up to the budget's timeout and is then rejected with a
+ * {@link RejectedExecutionException}. Bytes are given back as each
+ * intermediate buffer is freed and the rest, including the target image's
+ * share, when the resize returns.
+ * <p>
+ * An estimate larger than the whole budget is admitted, alone, once the
+ * whole budget is free. Bytes retained by the {@link RasterPool} are not
+ * part of the budget.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ *
+ * @see Scalr#setMemoryBudget(com.github.jinahya.imgscalr.MemoryBudget)
+ */
+public class MemoryBudget {
+
+
+    /**
+     * A budget which admits everything. While this budget is installed
+     * nothing is estimated at all.
+     */
+    public static final MemoryBudget UNLIMITED = new MemoryBudget();
+
+
+    /**
+     * The number of bytes of a permit.
+     */
+    private static final int UNIT_SHIFT = 10;
+
+
+    private static final ThreadLocal<Permit> PERMIT
+        = new ThreadLocal<Permit>();
+
+
+    /**
+     * Bytes admitted for a single resize.
+     */
+    public final class Permit implements AutoCloseable {
+
+
+        private Permit(final int units) {
+
+            super();
+
+            this.units = units;
+        }
+
+
+        /**
+         * Gives back given bytes, without going below zero.
+         *
+         * @param bytes the bytes to give back.
+         */
+        public void release(final long bytes) {
+
+            final int released = (int) Math.min(units, bytes >>> UNIT_SHIFT);
+            if (released > 0 && semaphore != null) {
+                units -= released;
+                semaphore.release(released);
+            }
+        }
+
+
+        /**
+         * Gives back all remaining bytes and unbinds this permit from the
+         * current thread if it is bound.
+         */
+        @Override
+        public void close() {
+
+            if (bound) {
+                bound = false;
+                if (previous == null) {
+                    PERMIT.remove();
+                } else {
+                    PERMIT.set(previous);
+                }
+            }
+            if (units > 0 && semaphore != null) {
+                semaphore.release(units);
+            }
+            units = 0;
+        }
+
+
+        /**
+         * Returns the bytes not given back yet.
+         *
+         * @return the remaining bytes.
+         */
+        public long getBytes() {
+
+            return (long) units << UNIT_SHIFT;
+        }
+
+
+        /**
+         * Binds this permit to the current thread, so that given share of
+         * intermediate bytes is given back by
+         * {@link MemoryBudget#releaseIntermediate()}.
+         */
+        Permit bind(final long intermediateBytes) {
+
+            intermediate = Math.min(units, intermediateBytes >>> UNIT_SHIFT);
+            previous = PERMIT.get();
+            PERMIT.set(this);
+            bound = true;
+            return this;
+        }
+
+
+        private int units;
+
+
+        private long intermediate;
+
+
+        private Permit previous;
+
+
+        private boolean bound;
+
+
+    }
+
+
+    /**
+     * Returns the bytes of a pixel of given image type.
+     */
+    static int bytesPerPixel(final int imageType) {
+
+        switch (imageType) {
+            case BufferedImage.TYPE_BYTE_GRAY:
+            case BufferedImage.TYPE_BYTE_INDEXED:
+            case BufferedImage.TYPE_BYTE_BINARY:
+                return 1;
+            case BufferedImage.TYPE_USHORT_GRAY:
+            case BufferedImage.TYPE_USHORT_555_RGB:
+            case BufferedImage.TYPE_USHORT_565_RGB:
+                return 2;
+            case BufferedImage.TYPE_3BYTE_BGR:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+
+    /**
+     * Tells whether images of given type may be opaque only. Types not known
+     * to be opaque are taken as translucent.
+     */
+    private static boolean opaque(final int imageType) {
+
+        switch (imageType) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_BGR:
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_BYTE_GRAY:
+            case BufferedImage.TYPE_USHORT_GRAY:
+            case BufferedImage.TYPE_USHORT_555_RGB:
+            case BufferedImage.TYPE_USHORT_565_RGB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Estimates the peak bytes allocated by
+     * {@link Scalr#resize(BufferedImage, Method, int, int, float, float,
+     * float, java.awt.image.BufferedImageOp...)}
+     * with given arguments: the target image plus the intermediate images
+     * held at once.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param sourceType the source image type.
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     *
+     * @return the estimated peak bytes.
+     */
+    public static long estimate(final int sourceWidth, final int sourceHeight,
+                                final int sourceType,
+                                final Method scalingMethod,
+                                final int targetWidth, final int targetHeight,
+                                final float magnificationFactor) {
+
+        final Placement placement = Placement.of(
+            sourceWidth, sourceHeight, targetWidth, targetHeight,
+            magnificationFactor, .5f, .5f);
+        return targetBytes(placement, sourceType)
+               + intermediateBytes(placement, scalingMethod);
+    }
+
+
+    /**
+     * Estimates the peak bytes allocated by
+     * {@link Scalr#resize(BufferedImage, Filter, int, int, float, float,
+     * float, java.awt.image.BufferedImageOp...)}
+     * with given arguments: the target image plus the intermediate buffer of
+     * the resampling passes.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param sourceType the source image type.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     *
+     * @return the estimated peak bytes.
+     */
+    public static long estimate(final int sourceWidth, final int sourceHeight,
+                                final int sourceType, final Filter filter,
+                                final int targetWidth, final int targetHeight,
+                                final float magnificationFactor) {
+
+        final Placement placement = Placement.of(
+            sourceWidth, sourceHeight, targetWidth, targetHeight,
+            magnificationFactor, .5f, .5f);
+        return targetBytes(placement, sourceType)
+               + intermediateBytes(Resampler.of(placement, filter));
+    }
+
+
+    static long targetBytes(final Placement placement, final int sourceType) {
+
+        return (long) bytesPerPixel(Scalr.imageType(
+            sourceType, opaque(sourceType), placement, null))
+               * placement.getTargetWidth() * placement.getTargetHeight();
+    }
+
+
+    static long intermediateBytes(final Placement placement,
+                                  final Method scalingMethod) {
+
+        return Scalr.scaleBytes(placement.getRegionWidth(),
+                                placement.getRegionHeight(), scalingMethod,
+                                placement.getScaledWidth(),
+                                placement.getScaledHeight());
+    }
+
+
+    static long intermediateBytes(final ResizePlan plan) {
+
+        return plan.getFilter() == null
+               ? intermediateBytes(plan.getPlacement(),
+                                   plan.getScalingMethod())
+               : intermediateBytes(plan.getResampler());
+    }
+
+
+    static long intermediateBytes(final Resampler resampler) {
+
+        if (resampler == null) {
+            return 0L;
+        }
+
+        return RasterPool.bytes(
+            (long) resampler.getHorizontal().getLength()
+            * (resampler.getVertical().getMaximum()
+               - resampler.getVertical().getMinimum()));
+    }
+
+
+    /**
+     * Gives back given bytes from the permit bound to the current thread, if
+     * any.
+     */
+    static void released(final long bytes) {
+
+        final Permit permit = PERMIT.get();
+        if (permit != null) {
+            permit.release(bytes);
+        }
+    }
+
+
+    /**
+     * Gives back the share of intermediate bytes of the permit bound to the
+     * current thread, if any, once all intermediate buffers are freed.
+     */
+    static void releaseIntermediate() {
+
+        final Permit permit = PERMIT.get();
+        if (permit != null && permit.intermediate > 0L) {
+            permit.release(permit.intermediate << UNIT_SHIFT);
+            permit.intermediate = 0L;
+        }
+    }
+
+
+    private MemoryBudget() {
+
+        super();
+
+        maximumBytes = Long.MAX_VALUE;
+        timeout = 0L;
+        semaphore = null;
+    }
+
+
+    /**
+     * Creates a new budget on which resizes wait indefinitely.
+     *
+     * @param maximumBytes the maximum bytes.
+     */
+    public MemoryBudget(final long maximumBytes) {
+
+        this(maximumBytes, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Creates a new budget on which resizes wait up to given timeout.
+     *
+     * @param maximumBytes the maximum bytes.
+     * @param timeout the maximum time to wait; {@code 0L} for rejecting
+     * resizes which do not fit at once.
+     * @param unit the unit of {@code timeout}.
+     */
+    public MemoryBudget(final long maximumBytes, final long timeout,
+                        final TimeUnit unit) {
+
+        super();
+
+        if (maximumBytes >>> UNIT_SHIFT <= 0L) {
+            throw new IllegalArgumentException(
+                "maximumBytes(" + maximumBytes + ") < " + (1 << UNIT_SHIFT));
+        }
+        if (maximumBytes >>> UNIT_SHIFT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "maximumBytes(" + maximumBytes + ") too large");
+        }
+        if (timeout < 0L) {
+            throw new IllegalArgumentException(
+                "timeout(" + timeout + ") < 0");
+        }
+
+        this.maximumBytes = maximumBytes;
+        this.timeout = unit.toNanos(timeout);
+
+        semaphore = new Semaphore((int) (maximumBytes >>> UNIT_SHIFT), true);
+    }
+
+
+    /**
+     * Admits given bytes, waiting up to this budget's timeout.
+     *
+     * @param bytes the bytes to admit.
+     *
+     * @return a permit of the admitted bytes.
+     *
+     * @throws RejectedExecutionException if not admitted in time or
+     * interrupted while waiting.
+     */
+    public Permit admit(final long bytes) {
+
+        if (bytes < 0L) {
+            throw new IllegalArgumentException("bytes(" + bytes + ") < 0");
+        }
+
+        if (semaphore == null) {
+            return new Permit(0);
+        }
+
+        final int units = (int) Math.min(
+            maximumBytes >>> UNIT_SHIFT,
+            (bytes + (1 << UNIT_SHIFT) - 1) >>> UNIT_SHIFT);
+        try {
+            // tryAcquire(0L, ...), unlike tryAcquire(), respects fairness
+            if (semaphore.tryAcquire(units, timeout, TimeUnit.NANOSECONDS)) {
+                return new Permit(units);
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        throw new RejectedExecutionException(
+            "not admitted: " + bytes + " bytes; "
+            + getAvailableBytes() + " of " + maximumBytes + " available");
+    }
+
+
+    public long getMaximumBytes() {
+
+        return maximumBytes;
+    }
+
+
+    /**
+     * Returns the bytes not admitted at the moment.
+     *
+     * @return the available bytes.
+     */
+    public long getAvailableBytes() {
+
+        if (semaphore == null) {
+            return maximumBytes;
+        }
+
+        return (long) semaphore.availablePermits() << UNIT_SHIFT;
+    }
+
+
+    private final long maximumBytes;
+
+
+    private final long timeout;
+
+
+    private final Semaphore semaphore;
+
+
+}
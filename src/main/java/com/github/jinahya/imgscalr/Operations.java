@@ -0,0 +1,646 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ByteLookupTable;
+import java.awt.image.ColorConvertOp;
+import java.awt.image.ConvolveOp;
+import java.awt.image.LookupOp;
+import java.awt.image.RescaleOp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * A sequence of {@link BufferedImageOp}s applied on rows of the target image
+ * while they are written. Leading point operations ({@link RescaleOp},
+ * {@link LookupOp} with a {@link ByteLookupTable} and {@link ColorConvertOp}
+ * to gray), optionally followed by a small {@link ConvolveOp} and more point
+ * operations, are fused into a single pass over the rows; the convolution
+ * keeps a rolling window of rows so that it can run in place. Any remaining
+ * operations are applied afterwards, as the parent class does.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final strictfp class Operations {
+
+
+    /**
+     * The maximum width and height of a fused convolution kernel.
+     */
+    private static final int MAXIMUM_KERNEL_SIZE = 7;
+
+
+    /**
+     * The luminance weights of the {@code sRGB} primaries, adapted to
+     * {@code D50}, as the built-in color management does.
+     */
+    private static final double[] LUMINANCES = {.2225d, .7169d, .0606d};
+
+
+    /**
+     * The number of fraction bits of a linear luminance.
+     */
+    private static final int LINEAR_PRECISION = 16;
+
+
+    /**
+     * The number of bits of the index to {@link #ENCODED}.
+     */
+    private static final int ENCODED_PRECISION = 12;
+
+
+    /**
+     * Weighted linear luminances of each 8-bit {@code sRGB} value, for red,
+     * green and blue in a row.
+     */
+    private static final int[] LINEAR = new int[256 * 3];
+
+
+    /**
+     * 8-bit {@code sRGB} values of linear luminances.
+     */
+    private static final int[] ENCODED = new int[(1 << ENCODED_PRECISION) + 1];
+
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            final double c = v / 255.0d;
+            final double linear = c <= .04045d
+                                  ? c / 12.92d
+                                  : Math.pow((c + .055d) / 1.055d, 2.4d);
+            for (int i = 0; i < 3; i++) {
+                LINEAR[i * 256 + v] = (int) Math.round(
+                    linear * LUMINANCES[i] * (1 << LINEAR_PRECISION));
+            }
+        }
+        for (int i = 0; i < ENCODED.length; i++) {
+            final double linear = i / (double) (1 << ENCODED_PRECISION);
+            final double c = linear <= .0031308d
+                             ? linear * 12.92d
+                             : 1.055d * Math.pow(linear, 1.0d / 2.4d) - .055d;
+            ENCODED[i] = Math.min(255, (int) Math.round(c * 255.0d));
+        }
+    }
+
+
+    /**
+     * A marker for a conversion to gray.
+     */
+    private static final int[] GRAY = new int[0];
+
+
+    /**
+     * Whether each probed {@link ColorConvertOp} converts to gray.
+     */
+    private static final Map<BufferedImageOp, Boolean> GRAYS
+        = Collections.synchronizedMap(
+            new WeakHashMap<BufferedImageOp, Boolean>());
+
+
+    /**
+     * A source of non-premultiplied {@code ARGB} rows.
+     */
+    interface Source {
+
+
+        /**
+         * Reads a row.
+         *
+         * @param y the index of the row.
+         * @param row the array to which pixels are written, from index 0.
+         */
+        void read(int y, int[] row);
+
+
+    }
+
+
+    /**
+     * Compiles specified operations. {@code null} operations are skipped.
+     *
+     * @param alpha whether the target image has alpha.
+     * @param ops the operations.
+     *
+     * @return compiled operations; {@code null} if there is nothing to apply.
+     */
+    static Operations of(final boolean alpha, final BufferedImageOp... ops) {
+
+        if (ops == null) {
+            return null;
+        }
+        final List<BufferedImageOp> list = new ArrayList<BufferedImageOp>();
+        for (final BufferedImageOp op : ops) {
+            if (op != null) {
+                list.add(op);
+            }
+        }
+        if (list.isEmpty()) {
+            return null;
+        }
+
+        final List<int[]> pre = new ArrayList<int[]>();
+        int index = points(alpha, list, 0, pre);
+        ConvolveOp convolution = null;
+        final List<int[]> post = new ArrayList<int[]>();
+        if (index < list.size() && fusible(list.get(index))) {
+            convolution = (ConvolveOp) list.get(index++);
+            index = points(alpha, list, index, post);
+        }
+        final List<BufferedImageOp> remaining
+            = list.subList(index, list.size());
+
+        return new Operations(
+            alpha, compose(pre), convolution, compose(post),
+            remaining.toArray(new BufferedImageOp[remaining.size()]));
+    }
+
+
+    /**
+     * Compiles consecutive point operations starting at given index.
+     *
+     * @return the index of the first operation not compiled.
+     */
+    private static int points(final boolean alpha,
+                              final List<BufferedImageOp> ops, int index,
+                              final List<int[]> points) {
+
+        for (; index < ops.size(); index++) {
+            final int[] point = point(alpha, ops.get(index));
+            if (point == null) {
+                break;
+            }
+            points.add(point);
+        }
+
+        return index;
+    }
+
+
+    /**
+     * Compiles a point operation into a table of {@code 4 * 256} entries, for
+     * alpha, red, green and blue in a row, or into {@link #GRAY}.
+     *
+     * @return the table; {@code null} if {@code op} is not a point operation.
+     */
+    private static int[] point(final boolean alpha, final BufferedImageOp op) {
+
+        if (op instanceof RescaleOp) {
+            final RescaleOp rescale = (RescaleOp) op;
+            final int count = rescale.getNumFactors();
+            if (!bands(alpha, count)) {
+                return null;
+            }
+            final float[] factors = rescale.getScaleFactors(null);
+            final float[] offsets = rescale.getOffsets(null);
+            final int[] table = identity();
+            for (int band = 0; band < (count == 4 ? 4 : 3); band++) {
+                final int i = count == 1 ? 0 : band;
+                for (int v = 0; v < 256; v++) {
+                    final int value = (int) (v * factors[i] + offsets[i]);
+                    table[channel(band) * 256 + v]
+                        = value < 0 ? 0 : value > 255 ? 255 : value;
+                }
+            }
+            return table;
+        }
+
+        if (op instanceof LookupOp) {
+            if (!(((LookupOp) op).getTable() instanceof ByteLookupTable)) {
+                return null;
+            }
+            final ByteLookupTable lookup
+                = (ByteLookupTable) ((LookupOp) op).getTable();
+            final int count = lookup.getNumComponents();
+            if (!bands(alpha, count)) {
+                return null;
+            }
+            final int[] table = identity();
+            final int[] source = new int[count];
+            final int[] target = new int[count];
+            try {
+                for (int v = 0; v < 256; v++) {
+                    for (int i = 0; i < count; i++) {
+                        source[i] = v;
+                    }
+                    lookup.lookupPixel(source, target);
+                    for (int band = 0; band < (count == 4 ? 4 : 3); band++) {
+                        table[channel(band) * 256 + v]
+                            = target[count == 1 ? 0 : band] & 0xFF;
+                    }
+                }
+            } catch (final ArrayIndexOutOfBoundsException aioobe) {
+                return null; // the table does not cover all 8-bit values
+            }
+            return table;
+        }
+
+        if (op instanceof ColorConvertOp && gray((ColorConvertOp) op)) {
+            return GRAY;
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Checks whether an operation of given number of bands is applicable to
+     * the target image.
+     */
+    private static boolean bands(final boolean alpha, final int count) {
+
+        return count == 1 || count == 3 || (count == 4 && alpha);
+    }
+
+
+    /**
+     * Returns the index, in a table, of given band of an {@code RGBA}
+     * raster.
+     */
+    private static int channel(final int band) {
+
+        return band == 3 ? 0 : band + 1;
+    }
+
+
+    private static int[] identity() {
+
+        final int[] table = new int[4 * 256];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = i & 0xFF;
+        }
+
+        return table;
+    }
+
+
+    /**
+     * Checks, once for each instance, whether given operation converts to
+     * gray the way {@link #gray(int[], int, int)} does.
+     */
+    private static boolean gray(final ColorConvertOp op) {
+
+        final Boolean cached = GRAYS.get(op);
+        if (cached != null) {
+            return cached;
+        }
+
+        final int[] probes = new int[]{
+            0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFF808080, 0xFF204060,
+            0xFFC0A080};
+        final BufferedImage source = new BufferedImage(
+            probes.length, 1, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, probes.length, 1, probes, 0, probes.length);
+        boolean gray;
+        try {
+            final BufferedImage target = op.filter(source, new BufferedImage(
+                probes.length, 1, BufferedImage.TYPE_INT_RGB));
+            final int[] expected = probes.clone();
+            gray(expected, 0, expected.length);
+            gray = true;
+            for (int i = 0; i < probes.length && gray; i++) {
+                final int actual = target.getRGB(i, 0);
+                for (int shift = 0; shift < 24 && gray; shift += 8) {
+                    gray = Math.abs(((actual >> shift) & 0xFF)
+                                    - ((expected[i] >> shift) & 0xFF)) <= 2;
+                }
+            }
+        } catch (final RuntimeException re) {
+            gray = false;
+        }
+        GRAYS.put(op, gray);
+
+        return gray;
+    }
+
+
+    /**
+     * Converts given pixels to gray in place.
+     */
+    private static void gray(final int[] row, final int offset,
+                             final int length) {
+
+        final int shift = LINEAR_PRECISION - ENCODED_PRECISION;
+        for (int i = offset; i < offset + length; i++) {
+            final int p = row[i];
+            final int linear = LINEAR[(p >> 16) & 0xFF]
+                               + LINEAR[256 + ((p >> 8) & 0xFF)]
+                               + LINEAR[512 + (p & 0xFF)];
+            final int v = ENCODED[Math.min(
+                ENCODED.length - 1, (linear + (1 << (shift - 1))) >> shift)];
+            row[i] = (p & 0xFF000000) | (v << 16) | (v << 8) | v;
+        }
+    }
+
+
+    /**
+     * Composes consecutive tables into one.
+     */
+    private static int[][] compose(final List<int[]> points) {
+
+        final List<int[]> composed = new ArrayList<int[]>();
+        for (final int[] point : points) {
+            final int last = composed.size() - 1;
+            if (point == GRAY || last < 0 || composed.get(last) == GRAY) {
+                composed.add(point);
+                continue;
+            }
+            final int[] previous = composed.get(last);
+            final int[] table = new int[previous.length];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = point[(i & ~0xFF) | previous[i]];
+            }
+            composed.set(last, table);
+        }
+
+        return composed.toArray(new int[composed.size()][]);
+    }
+
+
+    /**
+     * Applies given tables on given pixels in place.
+     */
+    private static void point(final int[][] points, final int[] row,
+                              final int offset, final int length) {
+
+        for (final int[] table : points) {
+            if (table == GRAY) {
+                gray(row, offset, length);
+                continue;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                final int p = row[i];
+                row[i] = (table[p >>> 24] << 24)
+                         | (table[256 + ((p >> 16) & 0xFF)] << 16)
+                         | (table[512 + ((p >> 8) & 0xFF)] << 8)
+                         | table[768 + (p & 0xFF)];
+            }
+        }
+    }
+
+
+    /**
+     * Checks whether given operation is a small, centered convolution.
+     */
+    private static boolean fusible(final BufferedImageOp op) {
+
+        if (!(op instanceof ConvolveOp)) {
+            return false;
+        }
+        final java.awt.image.Kernel kernel = ((ConvolveOp) op).getKernel();
+        final int width = kernel.getWidth();
+        final int height = kernel.getHeight();
+        return width % 2 == 1 && width <= MAXIMUM_KERNEL_SIZE
+               && height % 2 == 1 && height <= MAXIMUM_KERNEL_SIZE
+               && kernel.getXOrigin() == width / 2
+               && kernel.getYOrigin() == height / 2;
+    }
+
+
+    private Operations(final boolean alpha, final int[][] pre,
+                       final ConvolveOp convolution, final int[][] post,
+                       final BufferedImageOp[] remaining) {
+
+        super();
+
+        this.alpha = alpha;
+        this.pre = pre;
+        this.convolution = convolution;
+        this.post = post;
+        this.remaining = remaining;
+
+        if (convolution != null) {
+            final java.awt.image.Kernel kernel = convolution.getKernel();
+            kernelWidth = kernel.getWidth();
+            kernelHeight = kernel.getHeight();
+            kernelData = kernel.getKernelData(null);
+        } else {
+            kernelWidth = 0;
+            kernelHeight = 0;
+            kernelData = null;
+        }
+    }
+
+
+    /**
+     * Checks whether any operation is fused into the row pass.
+     *
+     * @return {@code true} if any operation is fused; {@code false}
+     * otherwise.
+     */
+    boolean isFused() {
+
+        return pre.length > 0 || convolution != null;
+    }
+
+
+    /**
+     * Writes rows of given range, read from given source and filtered with
+     * the fused operations, to given target image. The source must provide
+     * each row of the target image, as a whole.
+     *
+     * @param source the source of rows.
+     * @param targetImage the target image.
+     * @param from the index of the first row to write.
+     * @param to the index of the last row to write, exclusive.
+     * @param pool the pool from which buffers are acquired.
+     */
+    void filter(final Source source, final BufferedImage targetImage,
+                final int from, final int to, final RasterPool pool) {
+
+        final int width = targetImage.getWidth();
+        final int[] row = pool.acquireArray(width);
+        try {
+            if (convolution == null) {
+                for (int y = from; y < to; y++) {
+                    source.read(y, row);
+                    point(pre, row, 0, width);
+                    point(post, row, 0, width);
+                    Pixels.write(targetImage, 0, y, width, row);
+                }
+                return;
+            }
+            convolve(source, targetImage, from, to, pool, row);
+        } finally {
+            pool.releaseArray(row);
+        }
+    }
+
+
+    /**
+     * Filters given image in place with the fused operations.
+     *
+     * @param image the image.
+     * @param pool the pool from which buffers are acquired.
+     */
+    void filter(final BufferedImage image, final RasterPool pool) {
+
+        if (!isFused()) {
+            return;
+        }
+        final int width = image.getWidth();
+        filter(new Source() {
+            @Override
+            public void read(final int y, final int[] row) {
+                Pixels.read(image, 0, y, width, row);
+            }
+        }, image, 0, image.getHeight(), pool);
+    }
+
+
+    /**
+     * Applies the remaining operations, which are not fused, the way the
+     * parent class does.
+     *
+     * @param image the image to filter.
+     *
+     * @return the filtered image; {@code image} itself if there is no
+     * remaining operation.
+     */
+    BufferedImage apply(final BufferedImage image) {
+
+        if (remaining.length == 0) {
+            return image;
+        }
+
+        return org.imgscalr.Scalr.apply(image, remaining);
+    }
+
+
+    /**
+     * Convolves rows of given range keeping a window of the source rows, so
+     * that rows can be read from the very image being written. Samples are
+     * convolved as they are, without being premultiplied, the way
+     * {@link ConvolveOp} does for the common image types.
+     */
+    private void convolve(final Source source, final BufferedImage targetImage,
+                          final int from, final int to, final RasterPool pool,
+                          final int[] row) {
+
+        final int width = targetImage.getWidth();
+        final int height = targetImage.getHeight();
+        final int radiusX = kernelWidth / 2;
+        final int radiusY = kernelHeight / 2;
+        final int size = kernelHeight;
+        final boolean zero = convolution.getEdgeCondition()
+                             == ConvolveOp.EDGE_ZERO_FILL;
+
+        final int[] window = pool.acquireArray(size * width);
+        try {
+            int next = Math.max(0, from - radiusY);
+            for (int y = from; y < to; y++) {
+                for (final int last = Math.min(height - 1, y + radiusY);
+                     next <= last; next++) {
+                    source.read(next, row);
+                    if (!alpha) {
+                        for (int x = 0; x < width; x++) {
+                            row[x] |= 0xFF000000;
+                        }
+                    }
+                    point(pre, row, 0, width);
+                    System.arraycopy(row, 0, window, (next % size) * width,
+                                     width);
+                }
+                final int offset = (y % size) * width;
+                if (y < radiusY || y >= height - radiusY
+                    || width <= radiusX * 2) {
+                    if (zero) {
+                        for (int x = 0; x < width; x++) {
+                            row[x] = 0;
+                        }
+                    } else {
+                        System.arraycopy(window, offset, row, 0, width);
+                    }
+                } else {
+                    convolve(window, width, size, y, radiusX, radiusY, row);
+                    for (int x = 0; x < radiusX; x++) {
+                        row[x] = zero ? 0 : window[offset + x];
+                        row[width - 1 - x]
+                            = zero ? 0 : window[offset + width - 1 - x];
+                    }
+                }
+                point(post, row, 0, width);
+                Pixels.write(targetImage, 0, y, width, row);
+            }
+        } finally {
+            pool.releaseArray(window);
+        }
+    }
+
+
+    /**
+     * Convolves the inner pixels of a single row from the window.
+     */
+    private void convolve(final int[] window, final int width, final int size,
+                          final int y, final int radiusX, final int radiusY,
+                          final int[] row) {
+
+        final float[] data = kernelData;
+        for (int x = radiusX; x < width - radiusX; x++) {
+            float a = .0f;
+            float r = .0f;
+            float g = .0f;
+            float b = .0f;
+            for (int j = 0; j < kernelHeight; j++) {
+                final int o = ((y + radiusY - j) % size) * width + x + radiusX;
+                final int k = j * kernelWidth;
+                for (int i = 0; i < kernelWidth; i++) {
+                    final int p = window[o - i];
+                    final float weight = data[k + i];
+                    a += (p >>> 24) * weight;
+                    r += ((p >> 16) & 0xFF) * weight;
+                    g += ((p >> 8) & 0xFF) * weight;
+                    b += (p & 0xFF) * weight;
+                }
+            }
+            row[x] = ((alpha ? clamp(a) : 0xFF) << 24) | (clamp(r) << 16)
+                     | (clamp(g) << 8) | clamp(b);
+        }
+    }
+
+
+    private static int clamp(final float v) {
+
+        return v < 0.0f ? 0 : v >= 255.0f ? 255 : (int) v;
+    }
+
+
+    private final boolean alpha;
+
+    private final int[][] pre;
+
+    private final ConvolveOp convolution;
+
+    private final int[][] post;
+
+    private final BufferedImageOp[] remaining;
+
+    private final int kernelWidth;
+
+    private final int kernelHeight;
+
+    private final float[] kernelData;
+
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+
+/**
+ * Reads and writes rows of non-premultiplied {@code ARGB} pixels directly
+ * from and to the backing arrays of common image types. Other image types
+ * fall back to
+ * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)} and
+ * {@link BufferedImage#setRGB(int, int, int, int, int[], int, int)}.
+ * Gray samples are taken as is, the way Java2D blits them, rather than
+ * converted from the linear gray color space.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class Pixels {
+
+
+    /**
+     * Returns the index, in the backing array, of the first sample of the
+     * pixel at given location.
+     */
+    private static int offset(final WritableRaster raster, final int x,
+                              final int y) {
+
+        final SampleModel model = raster.getSampleModel();
+        final int mx = x - raster.getSampleModelTranslateX();
+        final int my = y - raster.getSampleModelTranslateY();
+        return raster.getDataBuffer().getOffset()
+               + (model instanceof SinglePixelPackedSampleModel
+                  ? ((SinglePixelPackedSampleModel) model).getOffset(mx, my)
+                  : ((ComponentSampleModel) model).getOffset(mx, my)
+                    - ((ComponentSampleModel) model).getBandOffsets()[0]);
+    }
+
+
+    private static boolean packed(final BufferedImage image) {
+
+        final WritableRaster raster = image.getRaster();
+        return raster.getDataBuffer() instanceof DataBufferInt
+               && raster.getSampleModel()
+                  instanceof SinglePixelPackedSampleModel;
+    }
+
+
+    private static boolean interleaved(final BufferedImage image) {
+
+        final WritableRaster raster = image.getRaster();
+        return raster.getDataBuffer() instanceof DataBufferByte
+               && raster.getSampleModel() instanceof ComponentSampleModel;
+    }
+
+
+    /**
+     * Reads a row of pixels.
+     *
+     * @param image the image to read.
+     * @param x the x coordinate of the first pixel.
+     * @param y the y coordinate of the row.
+     * @param width the number of pixels to read.
+     * @param row the array to which pixels are written, from index 0.
+     */
+    static void read(final BufferedImage image, final int x, final int y,
+                     final int width, final int[] row) {
+
+        final int type = image.getType();
+        final WritableRaster raster = image.getRaster();
+        switch (type) {
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_BGR:
+                if (packed(image)) {
+                    final int[] data
+                        = ((DataBufferInt) raster.getDataBuffer()).getData();
+                    System.arraycopy(data, offset(raster, x, y), row, 0,
+                                     width);
+                    if (type == BufferedImage.TYPE_INT_RGB) {
+                        for (int i = 0; i < width; i++) {
+                            row[i] |= 0xFF000000;
+                        }
+                    } else if (type == BufferedImage.TYPE_INT_BGR) {
+                        for (int i = 0; i < width; i++) {
+                            final int p = row[i];
+                            row[i] = 0xFF000000 | ((p & 0xFF) << 16)
+                                     | (p & 0xFF00) | ((p >> 16) & 0xFF);
+                        }
+                    }
+                    return;
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if (interleaved(image)) {
+                    final byte[] data
+                        = ((DataBufferByte) raster.getDataBuffer()).getData();
+                    final ComponentSampleModel model
+                        = (ComponentSampleModel) raster.getSampleModel();
+                    final int stride = model.getPixelStride();
+                    final int[] bands = model.getBandOffsets();
+                    int o = offset(raster, x, y);
+                    if (type == BufferedImage.TYPE_BYTE_GRAY) {
+                        final int g = bands[0];
+                        for (int i = 0; i < width; i++, o += stride) {
+                            final int v = data[o + g] & 0xFF;
+                            row[i] = 0xFF000000 | (v << 16) | (v << 8) | v;
+                        }
+                    } else if (type == BufferedImage.TYPE_3BYTE_BGR) {
+                        final int r = bands[0];
+                        final int g = bands[1];
+                        final int b = bands[2];
+                        for (int i = 0; i < width; i++, o += stride) {
+                            row[i] = 0xFF000000
+                                     | ((data[o + r] & 0xFF) << 16)
+                                     | ((data[o + g] & 0xFF) << 8)
+                                     | (data[o + b] & 0xFF);
+                        }
+                    } else {
+                        final int r = bands[0];
+                        final int g = bands[1];
+                        final int b = bands[2];
+                        final int a = bands[3];
+                        for (int i = 0; i < width; i++, o += stride) {
+                            row[i] = ((data[o + a] & 0xFF) << 24)
+                                     | ((data[o + r] & 0xFF) << 16)
+                                     | ((data[o + g] & 0xFF) << 8)
+                                     | (data[o + b] & 0xFF);
+                        }
+                    }
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+
+        image.getRGB(x, y, width, 1, row, 0, width);
+    }
+
+
+    /**
+     * Writes a row of pixels.
+     *
+     * @param image the image to write.
+     * @param x the x coordinate of the first pixel.
+     * @param y the y coordinate of the row.
+     * @param width the number of pixels to write.
+     * @param row the array from which pixels are read, from index 0.
+     */
+    static void write(final BufferedImage image, final int x, final int y,
+                      final int width, final int[] row) {
+
+        final int type = image.getType();
+        final WritableRaster raster = image.getRaster();
+        switch (type) {
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_BGR:
+                if (packed(image)) {
+                    final int[] data
+                        = ((DataBufferInt) raster.getDataBuffer()).getData();
+                    final int o = offset(raster, x, y);
+                    if (type == BufferedImage.TYPE_INT_ARGB) {
+                        System.arraycopy(row, 0, data, o, width);
+                    } else if (type == BufferedImage.TYPE_INT_RGB) {
+                        for (int i = 0; i < width; i++) {
+                            data[o + i] = row[i] & 0xFFFFFF;
+                        }
+                    } else {
+                        for (int i = 0; i < width; i++) {
+                            final int p = row[i];
+                            data[o + i] = ((p & 0xFF) << 16) | (p & 0xFF00)
+                                          | ((p >> 16) & 0xFF);
+                        }
+                    }
+                    return;
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if (interleaved(image)) {
+                    final byte[] data
+                        = ((DataBufferByte) raster.getDataBuffer()).getData();
+                    final ComponentSampleModel model
+                        = (ComponentSampleModel) raster.getSampleModel();
+                    final int stride = model.getPixelStride();
+                    final int[] bands = model.getBandOffsets();
+                    int o = offset(raster, x, y);
+                    if (type == BufferedImage.TYPE_BYTE_GRAY) {
+                        final int g = bands[0];
+                        for (int i = 0; i < width; i++, o += stride) {
+                            final int p = row[i];
+                            data[o + g] = (byte) ((((p >> 16) & 0xFF) * 77
+                                                   + ((p >> 8) & 0xFF) * 150
+                                                   + (p & 0xFF) * 29 + 128)
+                                                  >> 8);
+                        }
+                    } else {
+                        final int r = bands[0];
+                        final int g = bands[1];
+                        final int b = bands[2];
+                        final int a = type == BufferedImage.TYPE_4BYTE_ABGR
+                                      ? bands[3] : -1;
+                        for (int i = 0; i < width; i++, o += stride) {
+                            final int p = row[i];
+                            data[o + r] = (byte) (p >> 16);
+                            data[o + g] = (byte) (p >> 8);
+                            data[o + b] = (byte) p;
+                            if (a != -1) {
+                                data[o + a] = (byte) (p >>> 24);
+                            }
+                        }
+                    }
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+
+        image.setRGB(x, y, width, 1, row, 0, width);
+    }
+
+
+    /**
+     * Premultiplies given non-premultiplied pixels in place.
+     *
+     * @param row the pixels.
+     * @param offset the index of the first pixel.
+     * @param length the number of pixels.
+     */
+    static void premultiply(final int[] row, final int offset,
+                            final int length) {
+
+        for (int i = offset; i < offset + length; i++) {
+            final int p = row[i];
+            final int a = p >>> 24;
+            if (a == 0xFF) {
+                continue;
+            }
+            if (a == 0) {
+                row[i] = 0;
+                continue;
+            }
+            row[i] = (a << 24)
+                     | (multiply((p >> 16) & 0xFF, a) << 16)
+                     | (multiply((p >> 8) & 0xFF, a) << 8)
+                     | multiply(p & 0xFF, a);
+        }
+    }
+
+
+    /**
+     * Unpremultiplies given premultiplied pixels in place.
+     *
+     * @param row the pixels.
+     * @param offset the index of the first pixel.
+     * @param length the number of pixels.
+     */
+    static void unpremultiply(final int[] row, final int offset,
+                              final int length) {
+
+        for (int i = offset; i < offset + length; i++) {
+            final int p = row[i];
+            final int a = p >>> 24;
+            if (a == 0xFF) {
+                continue;
+            }
+            if (a == 0) {
+                row[i] = 0;
+                continue;
+            }
+            final int h = a >> 1;
+            row[i] = (a << 24)
+                     | (Math.min(255, (((p >> 16) & 0xFF) * 255 + h) / a) << 16)
+                     | (Math.min(255, (((p >> 8) & 0xFF) * 255 + h) / a) << 8)
+                     | Math.min(255, ((p & 0xFF) * 255 + h) / a);
+        }
+    }
+
+
+    /**
+     * Returns {@code round(c * a / 255)}.
+     */
+    private static int multiply(final int c, final int a) {
+
+        final int t = c * a + 128;
+        return (t + (t >> 8)) >> 8;
+    }
+
+
+    private Pixels() {
+
+        super();
+    }
+
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+/**
+ * The geometry of a single resize. An instance holds the size of the
+ * auxiliary (proportionally scaled) image, its location in the target box
+ * and the region of the source image which is actually visible in the target
+ * box.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final strictfp class Placement {
+
+
+    /**
+     * Computes the placement for given arguments.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeight the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     *
+     * @return a new placement.
+     */
+    static Placement of(final int sourceWidth, final int sourceHeight,
+                        final int targetWidth, final int targetHeight,
+                        final float magnificationFactor,
+                        final float horizontalWeight,
+                        final float verticalWeight) {
+
+        if (sourceWidth <= 0) {
+            throw new IllegalArgumentException(
+                "sourceWidth(" + sourceWidth + ") <= 0");
+        }
+        if (sourceHeight <= 0) {
+            throw new IllegalArgumentException(
+                "sourceHeight(" + sourceHeight + ") <= 0");
+        }
+        if (targetWidth <= 0) {
+            throw new IllegalArgumentException(
+                "targetWidth(" + targetWidth + ") <= 0");
+        }
+        if (targetHeight <= 0) {
+            throw new IllegalArgumentException(
+                "targetHeight(" + targetHeight + ") <= 0");
+        }
+
+        final double widthRatio = targetWidth / (double) sourceWidth;
+        final double heightRatio = targetHeight / (double) sourceHeight;
+
+        final double minRatio = Math.min(widthRatio, heightRatio);
+        final double maxRatio = Math.max(widthRatio, heightRatio);
+
+        final int auxiliaryWidth = Math.max(
+            1, (int) (magnificationFactor == .0f
+                      ? sourceWidth * minRatio
+                      : (sourceWidth * maxRatio) * magnificationFactor));
+        final int auxiliaryHeight = Math.max(
+            1, (int) (magnificationFactor == .0f
+                      ? sourceHeight * minRatio
+                      : (sourceHeight * maxRatio) * magnificationFactor));
+
+        final int x = (int) ((targetWidth - auxiliaryWidth) * horizontalWeight);
+        final int y = (int) ((targetHeight - auxiliaryHeight) * verticalWeight);
+
+        return new Placement(sourceWidth, sourceHeight, targetWidth,
+                             targetHeight, auxiliaryWidth, auxiliaryHeight, x,
+                             y);
+    }
+
+
+    /**
+     * Computes the placement for scaling a source to exactly the target size,
+     * ignoring the proportion.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     *
+     * @return a new placement.
+     */
+    static Placement exact(final int sourceWidth, final int sourceHeight,
+                           final int targetWidth, final int targetHeight) {
+
+        if (sourceWidth <= 0) {
+            throw new IllegalArgumentException(
+                "sourceWidth(" + sourceWidth + ") <= 0");
+        }
+        if (sourceHeight <= 0) {
+            throw new IllegalArgumentException(
+                "sourceHeight(" + sourceHeight + ") <= 0");
+        }
+        if (targetWidth <= 0) {
+            throw new IllegalArgumentException(
+                "targetWidth(" + targetWidth + ") <= 0");
+        }
+        if (targetHeight <= 0) {
+            throw new IllegalArgumentException(
+                "targetHeight(" + targetHeight + ") <= 0");
+        }
+
+        return new Placement(sourceWidth, sourceHeight, targetWidth,
+                             targetHeight, targetWidth, targetHeight, 0, 0);
+    }
+
+
+    private Placement(final int sourceWidth, final int sourceHeight,
+                      final int targetWidth, final int targetHeight,
+                      final int auxiliaryWidth, final int auxiliaryHeight,
+                      final int x, final int y) {
+
+        super();
+
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+        this.auxiliaryWidth = auxiliaryWidth;
+        this.auxiliaryHeight = auxiliaryHeight;
+        this.x = x;
+        this.y = y;
+
+        final int[] horizontal = region(sourceWidth, targetWidth,
+                                        auxiliaryWidth, x);
+        regionX = horizontal[0];
+        regionWidth = horizontal[1];
+        scaledX = horizontal[2];
+        scaledWidth = horizontal[3];
+
+        final int[] vertical = region(sourceHeight, targetHeight,
+                                      auxiliaryHeight, y);
+        regionY = vertical[0];
+        regionHeight = vertical[1];
+        scaledY = vertical[2];
+        scaledHeight = vertical[3];
+    }
+
+
+    /**
+     * Computes, along a single axis, the source range whose scaled image
+     * covers the visible part of the auxiliary range.
+     *
+     * @return an array of {@code regionOffset}, {@code regionLength},
+     * {@code scaledOffset} and {@code scaledLength}.
+     */
+    private static int[] region(final int sourceLength, final int targetLength,
+                                final int auxiliaryLength,
+                                final int auxiliaryOffset) {
+
+        final int visibleFrom = Math.max(0, -auxiliaryOffset);
+        final int visibleTo = Math.min(auxiliaryLength,
+                                       targetLength - auxiliaryOffset);
+        if (visibleFrom == 0 && visibleTo == auxiliaryLength) {
+            return new int[]{0, sourceLength, auxiliaryOffset, auxiliaryLength};
+        }
+
+        final double scale = sourceLength / (double) auxiliaryLength;
+        // a few more source pixels on each side for the filter support
+        final int margin = (int) Math.ceil(scale * 2.0d) + 1;
+        final int from = Math.max(
+            0, (int) Math.floor(visibleFrom * scale) - margin);
+        final int to = Math.min(
+            sourceLength,
+            (int) Math.ceil(Math.max(visibleFrom, visibleTo) * scale) + margin);
+
+        final int scaledFrom = (int) Math.round(from / scale);
+        final int scaledTo = (int) Math.round(to / scale);
+
+        return new int[]{from, to - from, auxiliaryOffset + scaledFrom,
+                         Math.max(1, scaledTo - scaledFrom)};
+    }
+
+
+    /**
+     * Returns {@code true} if the visible region is smaller than the source
+     * image.
+     *
+     * @return {@code true} if cropped; {@code false} otherwise.
+     */
+    boolean isCropped() {
+
+        return regionWidth < sourceWidth || regionHeight < sourceHeight;
+    }
+
+
+    /**
+     * Returns {@code true} if the scaled image does not cover the whole
+     * target box.
+     *
+     * @return {@code true} if padded; {@code false} otherwise.
+     */
+    boolean isPadded() {
+
+        return x > 0 || y > 0 || x + auxiliaryWidth < targetWidth
+               || y + auxiliaryHeight < targetHeight;
+    }
+
+
+    int getSourceWidth() {
+
+        return sourceWidth;
+    }
+
+
+    int getSourceHeight() {
+
+        return sourceHeight;
+    }
+
+
+    int getTargetWidth() {
+
+        return targetWidth;
+    }
+
+
+    int getTargetHeight() {
+
+        return targetHeight;
+    }
+
+
+    int getAuxiliaryWidth() {
+
+        return auxiliaryWidth;
+    }
+
+
+    int getAuxiliaryHeight() {
+
+        return auxiliaryHeight;
+    }
+
+
+    int getX() {
+
+        return x;
+    }
+
+
+    int getY() {
+
+        return y;
+    }
+
+
+    int getRegionX() {
+
+        return regionX;
+    }
+
+
+    int getRegionY() {
+
+        return regionY;
+    }
+
+
+    int getRegionWidth() {
+
+        return regionWidth;
+    }
+
+
+    int getRegionHeight() {
+
+        return regionHeight;
+    }
+
+
+    int getScaledX() {
+
+        return scaledX;
+    }
+
+
+    int getScaledY() {
+
+        return scaledY;
+    }
+
+
+    int getScaledWidth() {
+
+        return scaledWidth;
+    }
+
+
+    int getScaledHeight() {
+
+        return scaledHeight;
+    }
+
+
+    private final int sourceWidth;
+
+    private final int sourceHeight;
+
+    private final int targetWidth;
+
+    private final int targetHeight;
+
+    private final int auxiliaryWidth;
+
+    private final int auxiliaryHeight;
+
+    private final int x;
+
+    private final int y;
+
+    private final int regionX;
+
+    private final int regionY;
+
+    private final int regionWidth;
+
+    private final int regionHeight;
+
+    private final int scaledX;
+
+    private final int scaledY;
+
+    private final int scaledWidth;
+
+    private final int scaledHeight;
+
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+
+
+/**
+ * A listener notified after each stage of a progressive resize, from a fast
+ * preview to the final quality. Every stage is rendered into the same target
+ * image, so a listener which keeps a stage must copy or draw the target image
+ * before it returns. Listeners are called on the resizing thread.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ *
+ * @see Scalr#resize(java.awt.image.BufferedImage,
+ * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+ * com.github.jinahya.imgscalr.ProgressListener,
+ * java.awt.image.BufferedImageOp...)
+ */
+public interface ProgressListener {
+
+
+    /**
+     * Notified when a stage is rendered.
+     *
+     * @param targetImage the target image holding the stage.
+     * @param plan the plan of the stage; its scaling method or filter tells
+     * the quality.
+     * @param last whether the stage is the final one.
+     *
+     * @return {@code true} for refining further; {@code false} for stopping,
+     * e.g. when the client has gone away.
+     */
+    boolean progressed(BufferedImage targetImage, ResizePlan plan,
+                       boolean last);
+
+
+}
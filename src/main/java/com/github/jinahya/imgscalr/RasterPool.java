@@ -0,0 +1,347 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * A thread-safe pool of {@code int[]} pixel arrays for intermediate images.
+ * Arrays are bucketed by their length rounded up to a size class, one of four
+ * steps between consecutive powers of two, so that no more than a quarter of
+ * an array is wasted; the total number of bytes held by the pool never
+ * exceeds the maximum given at construction. When releasing an array would
+ * exceed the maximum, arrays of the least recently used buckets are evicted
+ * first.
+ * <p>
+ * Images acquired from a pool have undefined pixels and must not be used any
+ * more once released. Releasing an image which is not (or no longer) acquired
+ * from the pool has no effect. Releasing is not mandatory; acquired arrays
+ * are only weakly referenced by the pool, so an image which is simply
+ * dropped is garbage collected as any other, it just is not reused.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class RasterPool {
+
+
+    /**
+     * The default value for the maximum number of bytes a pool holds.
+     */
+    public static final long DEFAULT_MAXIMUM_BYTES = 32L * 1024L * 1024L;
+
+
+    private static final int MINIMUM_SHIFT = 10; // 1024 pixels
+
+
+    /**
+     * The number of bits of the size classes between two powers of two.
+     */
+    private static final int STEP_BITS = 2;
+
+
+    /**
+     * The number of buckets; arrays of larger buckets, over {@code 1 << 29}
+     * pixels, are never pooled.
+     */
+    private static final int BUCKETS
+        = 1 + ((29 - MINIMUM_SHIFT) << STEP_BITS);
+
+
+    private static final int[] MASKS_ARGB = new int[]{
+        0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
+
+
+    private static final int[] MASKS_RGB = new int[]{
+        0x00FF0000, 0x0000FF00, 0x000000FF};
+
+
+    private static final ColorModel COLOR_MODEL_RGB
+        = new DirectColorModel(24, MASKS_RGB[0], MASKS_RGB[1], MASKS_RGB[2], 0);
+
+
+    /**
+     * Returns the bucket of given length.
+     */
+    static int bucket(final int length) {
+
+        if (length <= 1 << MINIMUM_SHIFT) {
+            return 0;
+        }
+
+        // 2^shift < length <= 2^(shift + 1)
+        final int shift = 31 - Integer.numberOfLeadingZeros(length - 1);
+        return ((shift - MINIMUM_SHIFT) << STEP_BITS)
+               + ((length - 1 - (1 << shift)) >>> (shift - STEP_BITS)) + 1;
+    }
+
+
+    /**
+     * Returns the length of the arrays of given bucket.
+     */
+    static int length(final int bucket) {
+
+        if (bucket == 0) {
+            return 1 << MINIMUM_SHIFT;
+        }
+
+        final int shift = MINIMUM_SHIFT + ((bucket - 1) >>> STEP_BITS);
+        final int step = ((bucket - 1) & ((1 << STEP_BITS) - 1)) + 1;
+        return (1 << shift) + (step << (shift - STEP_BITS));
+    }
+
+
+    /**
+     * Returns the bytes of the array {@link #acquireArray(int)} allocates
+     * for given length, which is rounded up to the length of its bucket.
+     */
+    static long bytes(final long length) {
+
+        if (length <= 0L || length > Integer.MAX_VALUE) {
+            return 4L * Math.max(0L, length);
+        }
+
+        final int bucket = bucket((int) length);
+        return bucket >= BUCKETS ? 4L * length : 4L * length(bucket);
+    }
+
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maximumBytes the maximum number of bytes this pool holds.
+     */
+    @SuppressWarnings("unchecked")
+    public RasterPool(final long maximumBytes) {
+
+        super();
+
+        if (maximumBytes < 0L) {
+            throw new IllegalArgumentException(
+                "maximumBytes(" + maximumBytes + ") < 0L");
+        }
+
+        this.maximumBytes = maximumBytes;
+
+        buckets = new ArrayDeque[BUCKETS];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<int[]>();
+        }
+        ticks = new long[buckets.length];
+        // arrays inherit identity equals and hashCode from Object
+        acquired = new WeakHashMap<int[], Boolean>();
+    }
+
+
+    /**
+     * Acquires an {@code int[]} whose length is not less than given.
+     *
+     * @param length the minimum length.
+     *
+     * @return an array with undefined contents.
+     */
+    int[] acquireArray(final int length) {
+
+        if (length < 0) {
+            throw new IllegalArgumentException("length(" + length + ") < 0");
+        }
+
+        final int bucket = bucket(length);
+        if (bucket >= buckets.length) {
+            return new int[length]; // never pooled
+        }
+        synchronized (buckets) {
+            int[] array = buckets[bucket].pollLast();
+            if (array != null) {
+                pooledBytes -= array.length * 4L;
+            } else {
+                array = new int[length(bucket)];
+            }
+            acquired.put(array, Boolean.TRUE);
+            return array;
+        }
+    }
+
+
+    /**
+     * Returns specified array, previously acquired from this pool, to this
+     * pool.
+     *
+     * @param array the array to release.
+     */
+    void releaseArray(final int[] array) {
+
+        final long bytes = array.length * 4L;
+        synchronized (buckets) {
+            if (acquired.remove(array) == null) {
+                return; // not one of ours, or already released
+            }
+            if (bytes > maximumBytes) {
+                return;
+            }
+            final int bucket = bucket(array.length);
+            while (pooledBytes + bytes > maximumBytes) {
+                int eldest = -1;
+                for (int i = 0; i < buckets.length; i++) {
+                    if (!buckets[i].isEmpty()
+                        && (eldest == -1 || ticks[i] < ticks[eldest])) {
+                        eldest = i;
+                    }
+                }
+                final int[] evicted = buckets[eldest].pollFirst();
+                pooledBytes -= evicted.length * 4L;
+            }
+            buckets[bucket].offerLast(array);
+            pooledBytes += bytes;
+            ticks[bucket] = ++tick;
+        }
+    }
+
+
+    /**
+     * Acquires an image of specified size and type. The image's pixels are
+     * undefined.
+     *
+     * @param width the image width.
+     * @param height the image height.
+     * @param imageType the image type; either
+     * {@link BufferedImage#TYPE_INT_ARGB} or
+     * {@link BufferedImage#TYPE_INT_RGB}.
+     *
+     * @return an image backed by a pooled array.
+     *
+     * @see #release(java.awt.image.BufferedImage)
+     */
+    public BufferedImage acquire(final int width, final int height,
+                                 final int imageType) {
+
+        if (width <= 0) {
+            throw new IllegalArgumentException("width(" + width + ") <= 0");
+        }
+        if (height <= 0) {
+            throw new IllegalArgumentException("height(" + height + ") <= 0");
+        }
+
+        final ColorModel colorModel;
+        final int[] masks;
+        switch (imageType) {
+            case BufferedImage.TYPE_INT_ARGB:
+                colorModel = ColorModel.getRGBdefault();
+                masks = MASKS_ARGB;
+                break;
+            case BufferedImage.TYPE_INT_RGB:
+                colorModel = COLOR_MODEL_RGB;
+                masks = MASKS_RGB;
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    "unsupported image type: " + imageType);
+        }
+
+        final long length = width * (long) height;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(
+                "too large: " + width + "x" + height);
+        }
+
+        final int[] array = acquireArray((int) length);
+        final DataBuffer buffer = new DataBufferInt(array, (int) length);
+        final WritableRaster raster = Raster.createPackedRaster(
+            buffer, width, height, width, masks, null);
+
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+
+    /**
+     * Returns specified image, previously acquired from this pool, to this
+     * pool. Images not acquired from this pool are silently ignored.
+     *
+     * @param image the image to release.
+     */
+    public void release(final BufferedImage image) {
+
+        final DataBuffer buffer = image.getRaster().getDataBuffer();
+        if (buffer instanceof DataBufferInt) {
+            releaseArray(((DataBufferInt) buffer).getData());
+        }
+    }
+
+
+    /**
+     * Returns the maximum number of bytes this pool holds.
+     *
+     * @return the maximum number of bytes.
+     */
+    public long getMaximumBytes() {
+
+        return maximumBytes;
+    }
+
+
+    /**
+     * Returns the number of bytes currently held by this pool.
+     *
+     * @return the number of pooled bytes.
+     */
+    public long getPooledBytes() {
+
+        synchronized (buckets) {
+            return pooledBytes;
+        }
+    }
+
+
+    /**
+     * Evicts all pooled arrays.
+     */
+    public void clear() {
+
+        synchronized (buckets) {
+            for (final ArrayDeque<int[]> bucket : buckets) {
+                bucket.clear();
+            }
+            pooledBytes = 0L;
+        }
+    }
+
+
+    private final long maximumBytes;
+
+    private final ArrayDeque<int[]>[] buckets;
+
+    private final long[] ticks;
+
+    private final Map<int[], Boolean> acquired;
+
+    private long tick;
+
+    private long pooledBytes;
+
+
+}
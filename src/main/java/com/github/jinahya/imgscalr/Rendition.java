@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import static org.imgscalr.Scalr.Method;
+
+
+/**
+ * An immutable specification of a single rendition for batch resizing.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ * @see Scalr#resize(java.awt.image.BufferedImage, java.util.List)
+ */
+public final class Rendition {
+
+
+    /**
+     * Creates a rendition fitting into the target box.
+     *
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param horizontalWeight the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     *
+     * @return a new rendition.
+     */
+    public static Rendition inbox(final Method scalingMethod,
+                                  final int targetWidth,
+                                  final int targetHeight,
+                                  final float horizontalWeight,
+                                  final float verticalWeight) {
+
+        return new Rendition(scalingMethod, targetWidth, targetHeight, .0f,
+                             horizontalWeight, verticalWeight);
+    }
+
+
+    /**
+     * Creates a rendition filling the target box.
+     *
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param horizontalWeight the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     *
+     * @return a new rendition.
+     */
+    public static Rendition outbox(final Method scalingMethod,
+                                   final int targetWidth,
+                                   final int targetHeight,
+                                   final float horizontalWeight,
+                                   final float verticalWeight) {
+
+        return new Rendition(scalingMethod, targetWidth, targetHeight, 1.0f,
+                             horizontalWeight, verticalWeight);
+    }
+
+
+    /**
+     * Creates a new instance.
+     *
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeight the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     */
+    public Rendition(final Method scalingMethod, final int targetWidth,
+                     final int targetHeight, final float magnificationFactor,
+                     final float horizontalWeight,
+                     final float verticalWeight) {
+
+        super();
+
+        if (scalingMethod == null) {
+            throw new NullPointerException("scalingMethod");
+        }
+        if (targetWidth <= 0) {
+            throw new IllegalArgumentException(
+                "targetWidth(" + targetWidth + ") <= 0");
+        }
+        if (targetHeight <= 0) {
+            throw new IllegalArgumentException(
+                "targetHeight(" + targetHeight + ") <= 0");
+        }
+
+        this.scalingMethod = scalingMethod;
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+        this.magnificationFactor = magnificationFactor;
+        this.horizontalWeight = horizontalWeight;
+        this.verticalWeight = verticalWeight;
+    }
+
+
+    @Override
+    public String toString() {
+
+        return super.toString() + "?scalingMethod=" + scalingMethod
+               + "&targetWidth=" + targetWidth
+               + "&targetHeight=" + targetHeight
+               + "&magnificationFactor=" + magnificationFactor
+               + "&horizontalWeight=" + horizontalWeight
+               + "&verticalWeight=" + verticalWeight;
+    }
+
+
+    @Override
+    public int hashCode() {
+
+        int hash = 7;
+        hash = 29 * hash + scalingMethod.hashCode();
+        hash = 29 * hash + targetWidth;
+        hash = 29 * hash + targetHeight;
+        hash = 29 * hash + Float.floatToIntBits(magnificationFactor);
+        hash = 29 * hash + Float.floatToIntBits(horizontalWeight);
+        hash = 29 * hash + Float.floatToIntBits(verticalWeight);
+        return hash;
+    }
+
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Rendition other = (Rendition) obj;
+        return scalingMethod == other.scalingMethod
+               && targetWidth == other.targetWidth
+               && targetHeight == other.targetHeight
+               && Float.floatToIntBits(magnificationFactor)
+                  == Float.floatToIntBits(other.magnificationFactor)
+               && Float.floatToIntBits(horizontalWeight)
+                  == Float.floatToIntBits(other.horizontalWeight)
+               && Float.floatToIntBits(verticalWeight)
+                  == Float.floatToIntBits(other.verticalWeight);
+    }
+
+
+    public Method getScalingMethod() {
+
+        return scalingMethod;
+    }
+
+
+    public int getTargetWidth() {
+
+        return targetWidth;
+    }
+
+
+    public int getTargetHeight() {
+
+        return targetHeight;
+    }
+
+
+    public float getMagnificationFactor() {
+
+        return magnificationFactor;
+    }
+
+
+    public float getHorizontalWeight() {
+
+        return horizontalWeight;
+    }
+
+
+    public float getVerticalWeight() {
+
+        return verticalWeight;
+    }
+
+
+    private final Method scalingMethod;
+
+    private final int targetWidth;
+
+    private final int targetHeight;
+
+    private final float magnificationFactor;
+
+    private final float horizontalWeight;
+
+    private final float verticalWeight;
+
+
+}
@@ -0,0 +1,710 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A bounded, thread-safe cache of resized images keyed by a fingerprint of
+ * the source image and a {@link Rendition}. Entries are weighted by the byte
+ * size of their rasters against the maximum given at construction; the total
+ * weight may exceed the maximum only briefly, while concurrent insertions are
+ * evicting. A single entry may weigh up to the whole maximum; an entry
+ * heavier than that is never cached.
+ * <p>
+ * The cache is split into segments, each guarded by its own lock, sharing a
+ * single weight. Each segment evicts with a segmented LRU policy: new
+ * entries enter a probationary segment and are promoted to a protected
+ * segment when hit again, so that a burst of one-time requests does not
+ * flush frequently requested renditions. The protected share is counted
+ * across all segments; a promotion demotes the least recently used
+ * protected entries of its own segment while the whole share is exceeded,
+ * and an entry larger than the share stays probationary. An insertion
+ * evicts from its own segment first and from the following segments while
+ * the total weight is still over the maximum, probationary entries before
+ * protected ones. Concurrent requests for the same missing entry are
+ * coalesced and only one of them resizes.
+ * <p>
+ * Cached images are shared between callers and must not be modified.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class RenditionCache {
+
+
+    /**
+     * The default number of segments.
+     */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+
+    /**
+     * The share of the maximum for protected entries.
+     */
+    private static final double PROTECTED_RATIO = .8d;
+
+
+    /**
+     * Computes a 64-bit fingerprint of given image's size and pixels. This
+     * reads every pixel so it costs far less than a resize, but not nothing;
+     * callers which already identify their sources (e.g. by a path and a
+     * modification time) should use those as fingerprints instead.
+     *
+     * @param image the image.
+     *
+     * @return the fingerprint.
+     */
+    public static long fingerprint(final BufferedImage image) {
+
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        long hash = mix(((long) width << 32) | height);
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            Pixels.read(image, 0, y, width, row);
+            for (int x = 0; x < width; x++) {
+                hash = (hash ^ row[x]) * 0x9E3779B97F4A7C15L;
+            }
+            hash = mix(hash);
+        }
+
+        return hash;
+    }
+
+
+    private static long mix(long h) {
+
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+
+    /**
+     * Returns the number of bytes of given image's raster.
+     */
+    static long bytes(final BufferedImage image) {
+
+        final DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks()
+               * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8L;
+    }
+
+
+    /**
+     * Waits for given future uninterruptibly and unwraps its failure.
+     */
+    private static BufferedImage get(final Future<BufferedImage> future) {
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (final InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_CONCURRENCY_LEVEL}.
+     *
+     * @param maximumBytes the maximum number of bytes this cache holds.
+     */
+    public RenditionCache(final long maximumBytes) {
+
+        this(maximumBytes, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maximumBytes the maximum number of bytes this cache holds.
+     * @param concurrencyLevel the expected number of concurrent callers;
+     * rounded up to a power of two for the number of segments.
+     */
+    public RenditionCache(final long maximumBytes,
+                          final int concurrencyLevel) {
+
+        super();
+
+        if (maximumBytes < 0L) {
+            throw new IllegalArgumentException(
+                "maximumBytes(" + maximumBytes + ") < 0L");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException(
+                "concurrencyLevel(" + concurrencyLevel + ") <= 0");
+        }
+
+        this.maximumBytes = maximumBytes;
+
+        int count = 1;
+        while (count < concurrencyLevel && count < (1 << 16)) {
+            count <<= 1;
+        }
+        segments = new Segment[count];
+        final AtomicLong protectedBytes = new AtomicLong();
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(
+                (long) (maximumBytes * PROTECTED_RATIO), protectedBytes);
+        }
+        weightedBytes = new AtomicLong();
+        pending = new ConcurrentHashMap<Key, FutureTask<BufferedImage>>();
+    }
+
+
+    /**
+     * Returns the cached rendition of given source image, resizing it on a
+     * miss. The fingerprint is computed with
+     * {@link #fingerprint(java.awt.image.BufferedImage)}.
+     *
+     * @param sourceImage the source image.
+     * @param rendition the rendition.
+     *
+     * @return a resized image which must not be modified.
+     */
+    public BufferedImage resize(final BufferedImage sourceImage,
+                                final Rendition rendition) {
+
+        return resize(fingerprint(sourceImage), sourceImage, rendition);
+    }
+
+
+    /**
+     * Returns the cached rendition of given source image, resizing it on a
+     * miss. When other threads request the same missing entry at the same
+     * time only one of them resizes and all get the same image.
+     *
+     * @param fingerprint an object identifying the source image; must have
+     * proper {@code equals} and {@code hashCode}.
+     * @param sourceImage the source image.
+     * @param rendition the rendition.
+     *
+     * @return a resized image which must not be modified.
+     */
+    public BufferedImage resize(final Object fingerprint,
+                                final BufferedImage sourceImage,
+                                final Rendition rendition) {
+
+        final Key key = new Key(fingerprint, rendition);
+        final int index = index(key);
+
+        final BufferedImage cached = segments[index].get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final FutureTask<BufferedImage> task = new FutureTask<BufferedImage>(
+            new Callable<BufferedImage>() {
+                @Override
+                public BufferedImage call() {
+                    return Scalr.resize(
+                        sourceImage, rendition.getScalingMethod(),
+                        rendition.getTargetWidth(),
+                        rendition.getTargetHeight(),
+                        rendition.getMagnificationFactor(),
+                        rendition.getHorizontalWeight(),
+                        rendition.getVerticalWeight());
+                }
+            });
+        final FutureTask<BufferedImage> existing
+            = pending.putIfAbsent(key, task);
+        if (existing != null) {
+            return get(existing);
+        }
+        try {
+            task.run();
+            final BufferedImage resized = get(task);
+            put(index, key, resized, bytes(resized));
+            return resized;
+        } finally {
+            pending.remove(key, task);
+        }
+    }
+
+
+    /**
+     * Returns the cached rendition, if any.
+     *
+     * @param fingerprint the fingerprint of the source image.
+     * @param rendition the rendition.
+     *
+     * @return the cached image; {@code null} if not cached.
+     */
+    public BufferedImage get(final Object fingerprint,
+                             final Rendition rendition) {
+
+        final Key key = new Key(fingerprint, rendition);
+        return segments[index(key)].get(key);
+    }
+
+
+    /**
+     * Discards the cached rendition, if any.
+     *
+     * @param fingerprint the fingerprint of the source image.
+     * @param rendition the rendition.
+     */
+    public void invalidate(final Object fingerprint,
+                           final Rendition rendition) {
+
+        final Key key = new Key(fingerprint, rendition);
+        weightedBytes.addAndGet(-segments[index(key)].remove(key));
+    }
+
+
+    /**
+     * Discards all cached renditions.
+     */
+    public void clear() {
+
+        for (final Segment segment : segments) {
+            weightedBytes.addAndGet(-segment.clear());
+        }
+    }
+
+
+    /**
+     * Returns the maximum number of bytes this cache holds.
+     *
+     * @return the maximum number of bytes.
+     */
+    public long getMaximumBytes() {
+
+        return maximumBytes;
+    }
+
+
+    /**
+     * Returns the maximum number of bytes a single entry of this cache may
+     * weigh; the same as {@link #getMaximumBytes()}.
+     *
+     * @return the maximum number of bytes of an entry.
+     */
+    public long getMaximumEntryBytes() {
+
+        return maximumBytes;
+    }
+
+
+    /**
+     * Returns the number of bytes currently held by this cache.
+     *
+     * @return the number of bytes.
+     */
+    public long getWeightedBytes() {
+
+        return weightedBytes.get();
+    }
+
+
+    /**
+     * Returns the number of requests found in this cache.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+
+        long count = 0L;
+        for (final Segment segment : segments) {
+            count += segment.hits();
+        }
+        return count;
+    }
+
+
+    /**
+     * Returns the number of requests not found in this cache.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+
+        long count = 0L;
+        for (final Segment segment : segments) {
+            count += segment.misses();
+        }
+        return count;
+    }
+
+
+    private int index(final Key key) {
+
+        final int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (segments.length - 1);
+    }
+
+
+    /**
+     * Puts given entry into the segment of given index and evicts, from
+     * that segment on, while the total weight is over the maximum;
+     * probationary entries of all segments first, then protected ones. Only
+     * one segment is locked at a time and the entry just put is evicted
+     * last.
+     */
+    private void put(final int index, final Key key,
+                     final BufferedImage image, final long bytes) {
+
+        if (bytes > maximumBytes) {
+            return; // never cached
+        }
+
+        weightedBytes.addAndGet(segments[index].put(key, image, bytes));
+        for (final boolean evictProtected : new boolean[]{false, true}) {
+            for (int i = 0; i < segments.length
+                            && weightedBytes.get() > maximumBytes;) {
+                final long evicted
+                    = segments[(index + i) & (segments.length - 1)]
+                    .evict(key, evictProtected);
+                if (evicted == 0L) {
+                    i++;
+                } else {
+                    weightedBytes.addAndGet(-evicted);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A cache key.
+     */
+    private static final class Key {
+
+
+        Key(final Object fingerprint, final Rendition rendition) {
+
+            super();
+
+            if (fingerprint == null) {
+                throw new NullPointerException("fingerprint");
+            }
+            if (rendition == null) {
+                throw new NullPointerException("rendition");
+            }
+
+            this.fingerprint = fingerprint;
+            this.rendition = rendition;
+
+            hash = 31 * fingerprint.hashCode() + rendition.hashCode();
+        }
+
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+
+
+        @Override
+        public boolean equals(final Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return hash == other.hash && fingerprint.equals(other.fingerprint)
+                   && rendition.equals(other.rendition);
+        }
+
+
+        private final Object fingerprint;
+
+        private final Rendition rendition;
+
+        private final int hash;
+
+
+    }
+
+
+    /**
+     * A cached image with its weight.
+     */
+    private static final class Entry {
+
+
+        Entry(final BufferedImage image, final long bytes) {
+
+            super();
+
+            this.image = image;
+            this.bytes = bytes;
+        }
+
+
+        private final BufferedImage image;
+
+        private final long bytes;
+
+
+    }
+
+
+    /**
+     * A segment of the cache with its own lock. The weight of the cache is
+     * kept by the cache; each method returns the change of this segment's
+     * bytes for it. The protected weight is shared by all segments.
+     */
+    private static final class Segment {
+
+
+        Segment(final long protectedMaximumBytes,
+                final AtomicLong sharedProtectedBytes) {
+
+            super();
+
+            this.protectedMaximumBytes = protectedMaximumBytes;
+            this.sharedProtectedBytes = sharedProtectedBytes;
+
+            probation = new LinkedHashMap<Key, Entry>(16, .75f, true);
+            protected_ = new LinkedHashMap<Key, Entry>(16, .75f, true);
+        }
+
+
+        synchronized BufferedImage get(final Key key) {
+
+            Entry entry = protected_.get(key);
+            if (entry == null) {
+                entry = probation.get(key);
+                if (entry != null && entry.bytes <= protectedMaximumBytes) {
+                    probation.remove(key);
+                    probationBytes -= entry.bytes;
+                    protected_.put(key, entry);
+                    protect(entry.bytes);
+                    demote(key);
+                }
+            }
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+
+            return entry == null ? null : entry.image;
+        }
+
+
+        /**
+         * Puts given entry into the probationary segment.
+         *
+         * @return the bytes added, less those of the entry replaced.
+         */
+        synchronized long put(final Key key, final BufferedImage image,
+                              final long bytes) {
+
+            final long removed = remove(key);
+            probation.put(key, new Entry(image, bytes));
+            probationBytes += bytes;
+
+            return bytes - removed;
+        }
+
+
+        /**
+         * Evicts the least recently used entry, probationary ones first,
+         * other than the one of given key.
+         *
+         * @param evictProtected whether protected entries may be evicted.
+         *
+         * @return the bytes evicted; {@code 0L} if nothing is evicted.
+         */
+        synchronized long evict(final Key except,
+                                final boolean evictProtected) {
+
+            for (final LinkedHashMap<Key, Entry> victims
+                 : evictProtected
+                   ? Arrays.asList(probation, protected_)
+                   : Arrays.asList(probation)) {
+                final Iterator<Map.Entry<Key, Entry>> eldest
+                    = victims.entrySet().iterator();
+                while (eldest.hasNext()) {
+                    final Map.Entry<Key, Entry> victim = eldest.next();
+                    if (victim.getKey().equals(except)) {
+                        continue;
+                    }
+                    eldest.remove();
+                    final long bytes = victim.getValue().bytes;
+                    if (victims == probation) {
+                        probationBytes -= bytes;
+                    } else {
+                        protect(-bytes);
+                    }
+                    return bytes;
+                }
+            }
+
+            return 0L;
+        }
+
+
+        /**
+         * Removes the entry of given key, if any.
+         *
+         * @return the bytes removed.
+         */
+        synchronized long remove(final Key key) {
+
+            long removed = 0L;
+            Entry entry = probation.remove(key);
+            if (entry != null) {
+                probationBytes -= entry.bytes;
+                removed += entry.bytes;
+            }
+            entry = protected_.remove(key);
+            if (entry != null) {
+                protect(-entry.bytes);
+                removed += entry.bytes;
+            }
+
+            return removed;
+        }
+
+
+        /**
+         * Removes all entries.
+         *
+         * @return the bytes removed.
+         */
+        synchronized long clear() {
+
+            final long removed = probationBytes + protectedBytes;
+            probation.clear();
+            protected_.clear();
+            probationBytes = 0L;
+            protect(-protectedBytes);
+
+            return removed;
+        }
+
+
+        synchronized long hits() {
+
+            return hits;
+        }
+
+
+        synchronized long misses() {
+
+            return misses;
+        }
+
+
+        /**
+         * Adds given bytes to the protected weight of this segment and of
+         * the cache.
+         */
+        private void protect(final long bytes) {
+
+            protectedBytes += bytes;
+            sharedProtectedBytes.addAndGet(bytes);
+        }
+
+
+        /**
+         * Moves the least recently used protected entries of this segment,
+         * other than the one of given key, back to the probationary segment
+         * while the protected weight of the cache is over its share.
+         */
+        private void demote(final Key promoted) {
+
+            final Iterator<Map.Entry<Key, Entry>> eldest
+                = protected_.entrySet().iterator();
+            while (sharedProtectedBytes.get() > protectedMaximumBytes
+                   && eldest.hasNext()) {
+                final Map.Entry<Key, Entry> demoted = eldest.next();
+                if (demoted.getKey().equals(promoted)) {
+                    continue;
+                }
+                eldest.remove();
+                protect(-demoted.getValue().bytes);
+                probation.put(demoted.getKey(), demoted.getValue());
+                probationBytes += demoted.getValue().bytes;
+            }
+        }
+
+
+        private final long protectedMaximumBytes;
+
+        private final AtomicLong sharedProtectedBytes;
+
+        private final LinkedHashMap<Key, Entry> probation;
+
+        private final LinkedHashMap<Key, Entry> protected_;
+
+        private long probationBytes;
+
+        private long protectedBytes;
+
+        private long hits;
+
+        private long misses;
+
+
+    }
+
+
+    private final long maximumBytes;
+
+    private final Segment[] segments;
+
+    private final AtomicLong weightedBytes;
+
+    private final ConcurrentMap<Key, FutureTask<BufferedImage>> pending;
+
+
+}
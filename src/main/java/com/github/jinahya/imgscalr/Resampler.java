@@ -0,0 +1,401 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * A separable resampler. The source image is first resampled horizontally,
+ * row by row, into a premultiplied intermediate buffer which is then
+ * resampled vertically straight into the target image. Only the source rows
+ * and columns which contribute to the visible part of the target box are
+ * read.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class Resampler {
+
+
+    /**
+     * The minimum number of rows of a single stripe.
+     */
+    private static final int MINIMUM_STRIPE = 16;
+
+
+    /**
+     * Creates a resampler for given placement.
+     *
+     * @param placement the placement.
+     * @param filter the filter.
+     *
+     * @return a new resampler; {@code null} if nothing is visible.
+     */
+    static Resampler of(final Placement placement, final Filter filter) {
+
+        final int x = placement.getX();
+        final int y = placement.getY();
+        final int left = Math.max(0, -x);
+        final int right = Math.min(placement.getAuxiliaryWidth(),
+                                   placement.getTargetWidth() - x);
+        final int top = Math.max(0, -y);
+        final int bottom = Math.min(placement.getAuxiliaryHeight(),
+                                    placement.getTargetHeight() - y);
+        if (left >= right || top >= bottom) {
+            return null;
+        }
+
+        return new Resampler(
+            new Kernel(filter, placement.getSourceWidth(),
+                       placement.getAuxiliaryWidth(), left, right),
+            new Kernel(filter, placement.getSourceHeight(),
+                       placement.getAuxiliaryHeight(), top, bottom),
+            x + left, y + top);
+    }
+
+
+    private Resampler(final Kernel horizontal, final Kernel vertical,
+                      final int targetX, final int targetY) {
+
+        super();
+
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+        this.targetX = targetX;
+        this.targetY = targetY;
+
+        offsets = Kernels.offsets(
+            vertical, vertical.getMinimum(),
+            vertical.getMaximum() - vertical.getMinimum(),
+            horizontal.getLength());
+    }
+
+
+    /**
+     * Resamples given source image into given target image.
+     *
+     * @param sourceImage the source image.
+     * @param targetImage the target image.
+     * @param pool the pool from which buffers are acquired.
+     */
+    void resample(final BufferedImage sourceImage,
+                  final BufferedImage targetImage, final RasterPool pool) {
+
+        resample(sourceImage, targetImage, pool, null);
+    }
+
+
+    /**
+     * Resamples given source image into given target image, splitting each
+     * pass into row stripes on given fork-join pool. Each pass only starts
+     * when the previous pass is done so the result is identical to the
+     * single-threaded one.
+     *
+     * @param sourceImage the source image.
+     * @param targetImage the target image.
+     * @param pool the pool from which buffers are acquired.
+     * @param forkJoinPool the fork-join pool to run stripes on;
+     * {@code null} for running on the current thread.
+     */
+    void resample(final BufferedImage sourceImage,
+                  final BufferedImage targetImage, final RasterPool pool,
+                  final ForkJoinPool forkJoinPool) {
+
+        resample(sourceImage, targetImage, pool, forkJoinPool, null);
+    }
+
+
+    /**
+     * Resamples given source image into given target image, filtering each
+     * target row with given operations before it is written. Operations may
+     * only be given when this resampler {@link #covers(BufferedImage) covers}
+     * the target image.
+     *
+     * @param sourceImage the source image.
+     * @param targetImage the target image.
+     * @param pool the pool from which buffers are acquired.
+     * @param forkJoinPool the fork-join pool to run stripes on;
+     * {@code null} for running on the current thread.
+     * @param operations the operations to fuse into the vertical pass;
+     * {@code null} for none.
+     */
+    void resample(final BufferedImage sourceImage,
+                  final BufferedImage targetImage, final RasterPool pool,
+                  final ForkJoinPool forkJoinPool,
+                  final Operations operations) {
+
+        if (operations != null && !covers(targetImage)) {
+            throw new IllegalArgumentException(
+                "operations given for a target image not covered");
+        }
+
+        final int rows = vertical.getMaximum() - vertical.getMinimum();
+        final int height = vertical.getLength();
+
+        final int[] intermediate
+            = pool.acquireArray(horizontal.getLength() * rows);
+        try {
+            if (forkJoinPool == null) {
+                horizontal(sourceImage, intermediate, 0, rows, pool);
+                Cancellation.check();
+                vertical(sourceImage, intermediate, targetImage, 0, height,
+                         pool, operations);
+                return;
+            }
+            final int parallelism = forkJoinPool.getParallelism();
+            forkJoinPool.invoke(new Stripe(
+                sourceImage, intermediate, targetImage, pool, null, true, 0,
+                rows, threshold(rows, parallelism)));
+            Cancellation.check();
+            forkJoinPool.invoke(new Stripe(
+                sourceImage, intermediate, targetImage, pool, operations,
+                false, 0, height, threshold(height, parallelism)));
+        } finally {
+            pool.releaseArray(intermediate);
+            MemoryBudget.releaseIntermediate();
+        }
+    }
+
+
+    /**
+     * Returns the number of rows below which a stripe is not split any more.
+     */
+    private static int threshold(final int rows, final int parallelism) {
+
+        return Math.max(MINIMUM_STRIPE, rows / (parallelism * 4));
+    }
+
+
+    /**
+     * Resamples horizontally source rows of given range, relative to the
+     * vertical kernel's minimum, into the intermediate buffer.
+     */
+    private void horizontal(final BufferedImage sourceImage,
+                            final int[] intermediate, final int from,
+                            final int to, final RasterPool pool) {
+
+        final boolean alpha = sourceImage.getColorModel().hasAlpha();
+        final int columnMinimum = horizontal.getMinimum();
+        final int columns = horizontal.getMaximum() - columnMinimum;
+        final int rowMinimum = vertical.getMinimum();
+        final int width = horizontal.getLength();
+
+        final int[] row = pool.acquireArray(columns);
+        try {
+            for (int i = from; i < to; i++) {
+                Pixels.read(sourceImage, columnMinimum, rowMinimum + i,
+                            columns, row);
+                if (alpha) {
+                    Kernels.INSTANCE.premultiply(row, 0, columns);
+                }
+                Kernels.INSTANCE.horizontal(horizontal, row, intermediate,
+                                            i * width);
+            }
+        } finally {
+            pool.releaseArray(row);
+        }
+    }
+
+
+    /**
+     * Resamples vertically target rows of given range, relative to the
+     * vertical kernel, from the intermediate buffer into the target image.
+     */
+    private void vertical(final BufferedImage sourceImage,
+                          final int[] intermediate,
+                          final BufferedImage targetImage, final int from,
+                          final int to, final RasterPool pool,
+                          final Operations operations) {
+
+        final boolean alpha = sourceImage.getColorModel().hasAlpha();
+        final int width = horizontal.getLength();
+
+        if (operations != null) {
+            operations.filter(new Operations.Source() {
+                @Override
+                public void read(final int y, final int[] row) {
+                    Kernels.INSTANCE.vertical(vertical, y, intermediate,
+                                              offsets, width, row);
+                    if (alpha) {
+                        Kernels.INSTANCE.unpremultiply(row, 0, width);
+                    }
+                }
+            }, targetImage, from, to, pool);
+            return;
+        }
+
+        final int[] row = pool.acquireArray(width);
+        try {
+            for (int i = from; i < to; i++) {
+                Kernels.INSTANCE.vertical(vertical, i, intermediate, offsets,
+                                          width, row);
+                if (alpha) {
+                    Kernels.INSTANCE.unpremultiply(row, 0, width);
+                }
+                Pixels.write(targetImage, targetX, targetY + i, width, row);
+            }
+        } finally {
+            pool.releaseArray(row);
+        }
+    }
+
+
+    /**
+     * A stripe of rows of either pass.
+     */
+    private final class Stripe extends RecursiveAction {
+
+
+        private static final long serialVersionUID = 1L;
+
+
+        Stripe(final BufferedImage sourceImage, final int[] intermediate,
+               final BufferedImage targetImage, final RasterPool pool,
+               final Operations operations, final boolean horizontal,
+               final int from, final int to, final int threshold) {
+
+            super();
+
+            this.sourceImage = sourceImage;
+            this.intermediate = intermediate;
+            this.targetImage = targetImage;
+            this.pool = pool;
+            this.operations = operations;
+            this.horizontal = horizontal;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= threshold) {
+                if (horizontal) {
+                    horizontal(sourceImage, intermediate, from, to, pool);
+                } else {
+                    vertical(sourceImage, intermediate, targetImage, from, to,
+                             pool, operations);
+                }
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new Stripe(sourceImage, intermediate, targetImage, pool,
+                                 operations, horizontal, from, middle,
+                                 threshold),
+                      new Stripe(sourceImage, intermediate, targetImage, pool,
+                                 operations, horizontal, middle, to,
+                                 threshold));
+        }
+
+
+        private final transient BufferedImage sourceImage;
+
+        private final int[] intermediate;
+
+        private final transient BufferedImage targetImage;
+
+        private final transient RasterPool pool;
+
+        private final transient Operations operations;
+
+        private final boolean horizontal;
+
+        private final int from;
+
+        private final int to;
+
+        private final int threshold;
+
+
+    }
+
+
+    /**
+     * Checks whether this resampler writes every pixel of given image.
+     *
+     * @param image the image to check.
+     *
+     * @return {@code true} if every pixel is written; {@code false}
+     * otherwise.
+     */
+    boolean covers(final BufferedImage image) {
+
+        return targetX == 0 && targetY == 0
+               && horizontal.getLength() == image.getWidth()
+               && vertical.getLength() == image.getHeight();
+    }
+
+
+    Kernel getHorizontal() {
+
+        return horizontal;
+    }
+
+
+    Kernel getVertical() {
+
+        return vertical;
+    }
+
+
+    /**
+     * Returns the x coordinate, in the target image, of the first column this
+     * resampler writes.
+     *
+     * @return the x coordinate.
+     */
+    int getTargetX() {
+
+        return targetX;
+    }
+
+
+    /**
+     * Returns the y coordinate, in the target image, of the first row this
+     * resampler writes.
+     *
+     * @return the y coordinate.
+     */
+    int getTargetY() {
+
+        return targetY;
+    }
+
+
+    private final Kernel horizontal;
+
+    private final Kernel vertical;
+
+    private final int targetX;
+
+    private final int targetY;
+
+    /**
+     * The {@link Kernels#offsets(Kernel, int, int, int) offsets} of the
+     * vertical kernel in the intermediate buffer.
+     */
+    private final int[] offsets;
+
+
+}
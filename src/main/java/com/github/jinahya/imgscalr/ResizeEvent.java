@@ -0,0 +1,280 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import static org.imgscalr.Scalr.Method;
+
+
+/**
+ * Measurements of a single resize, reported to a {@link ResizeListener}.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public final class ResizeEvent {
+
+
+    /**
+     * Phases of a resize.
+     */
+    public static enum Phase {
+
+
+        /**
+         * Decoding the source region; only for resizing from streams.
+         */
+        DECODE,
+
+
+        /**
+         * Allocating the target image.
+         */
+        ALLOCATE,
+
+
+        /**
+         * Resampling the source region, including acquiring intermediate
+         * images.
+         */
+        RESAMPLE,
+
+
+        /**
+         * Clearing the padding and drawing the intermediate image onto the
+         * target image.
+         */
+        COMPOSITE,
+
+
+        /**
+         * Applying operations.
+         */
+        FILTER,
+
+
+        /**
+         * Releasing intermediate images back to the pool.
+         */
+        RELEASE;
+
+
+    }
+
+
+    /**
+     * Returns the current time if given event is not {@code null}.
+     */
+    static long time(final ResizeEvent event) {
+
+        return event == null ? 0L : System.nanoTime();
+    }
+
+
+    /**
+     * Adds the time elapsed since given time to given phase of given event,
+     * if any.
+     *
+     * @return the current time; {@code 0L} if {@code event} is {@code null}.
+     */
+    static long lap(final ResizeEvent event, final Phase phase,
+                    final long since) {
+
+        if (event == null) {
+            return 0L;
+        }
+
+        final long now = System.nanoTime();
+        event.add(phase, now - since);
+        return now;
+    }
+
+
+    /**
+     * Adds the size of given intermediate image, if any event is given.
+     */
+    static void allocated(final ResizeEvent event,
+                          final BufferedImage intermediateImage) {
+
+        if (event != null) {
+            event.intermediateBytes += RenditionCache.bytes(intermediateImage);
+        }
+    }
+
+
+    ResizeEvent(final Method scalingMethod, final Filter filter,
+                final int sourceWidth, final int sourceHeight,
+                final BufferedImage targetImage) {
+
+        super();
+
+        this.scalingMethod = scalingMethod;
+        this.filter = filter;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.targetWidth = targetImage.getWidth();
+        this.targetHeight = targetImage.getHeight();
+        this.targetBytes = RenditionCache.bytes(targetImage);
+    }
+
+
+    void add(final Phase phase, final long nanos) {
+
+        this.nanos[phase.ordinal()] += nanos;
+    }
+
+
+    @Override
+    public String toString() {
+
+        return super.toString() + "?scalingMethod=" + scalingMethod
+               + "&filter=" + filter
+               + "&source=" + sourceWidth + "x" + sourceHeight
+               + "&target=" + targetWidth + "x" + targetHeight
+               + "&intermediateBytes=" + intermediateBytes
+               + "&targetBytes=" + targetBytes
+               + "&nanos=" + Arrays.toString(nanos);
+    }
+
+
+    /**
+     * Returns the scaling method.
+     *
+     * @return the scaling method; {@code null} if resized with a filter.
+     */
+    public Method getScalingMethod() {
+
+        return scalingMethod;
+    }
+
+
+    /**
+     * Returns the filter.
+     *
+     * @return the filter; {@code null} if resized with a scaling method.
+     */
+    public Filter getFilter() {
+
+        return filter;
+    }
+
+
+    public int getSourceWidth() {
+
+        return sourceWidth;
+    }
+
+
+    public int getSourceHeight() {
+
+        return sourceHeight;
+    }
+
+
+    public int getTargetWidth() {
+
+        return targetWidth;
+    }
+
+
+    public int getTargetHeight() {
+
+        return targetHeight;
+    }
+
+
+    /**
+     * Returns the total bytes of intermediate images acquired while
+     * resampling.
+     *
+     * @return the bytes of intermediate images.
+     */
+    public long getIntermediateBytes() {
+
+        return intermediateBytes;
+    }
+
+
+    /**
+     * Returns the bytes of the target image's data buffer.
+     *
+     * @return the bytes of the target image.
+     */
+    public long getTargetBytes() {
+
+        return targetBytes;
+    }
+
+
+    /**
+     * Returns the nanoseconds spent in given phase.
+     *
+     * @param phase the phase.
+     *
+     * @return the nanoseconds spent in {@code phase}.
+     */
+    public long getNanos(final Phase phase) {
+
+        return nanos[phase.ordinal()];
+    }
+
+
+    /**
+     * Returns the nanoseconds spent in all phases.
+     *
+     * @return the total nanoseconds.
+     */
+    public long getTotalNanos() {
+
+        long total = 0L;
+        for (final long n : nanos) {
+            total += n;
+        }
+        return total;
+    }
+
+
+    private final Method scalingMethod;
+
+
+    private final Filter filter;
+
+
+    private final int sourceWidth;
+
+
+    private final int sourceHeight;
+
+
+    private final int targetWidth;
+
+
+    private final int targetHeight;
+
+
+    private final long targetBytes;
+
+
+    private long intermediateBytes;
+
+
+    private final long[] nanos = new long[Phase.values().length];
+
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import com.github.jinahya.imgscalr.ResizeEvent.Phase;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * A listener aggregating resize events into histograms: nanoseconds of each
+ * phase, total nanoseconds per scaling method or filter, and bytes of
+ * intermediate and target images. All histograms are lock-free and may be
+ * read, e.g. by a metrics scraper, while being recorded.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class ResizeHistograms implements ResizeListener {
+
+
+    public ResizeHistograms() {
+
+        super();
+
+        final Map<Phase, Histogram> map
+            = new EnumMap<Phase, Histogram>(Phase.class);
+        for (final Phase phase : Phase.values()) {
+            map.put(phase, new Histogram());
+        }
+        phases = Collections.unmodifiableMap(map);
+    }
+
+
+    @Override
+    public void resized(final ResizeEvent event) {
+
+        for (final Phase phase : Phase.values()) {
+            final long nanos = event.getNanos(phase);
+            if (nanos > 0L) {
+                phases.get(phase).record(nanos);
+            }
+        }
+
+        final Object key = event.getScalingMethod() != null
+                           ? event.getScalingMethod() : event.getFilter();
+        Histogram total = totals.get(key);
+        if (total == null) {
+            final Histogram created = new Histogram();
+            total = totals.putIfAbsent(key, created);
+            if (total == null) {
+                total = created;
+            }
+        }
+        total.record(event.getTotalNanos());
+
+        intermediateBytes.record(event.getIntermediateBytes());
+        targetBytes.record(event.getTargetBytes());
+    }
+
+
+    /**
+     * Returns the histogram of nanoseconds spent in given phase. Phases not
+     * taken by a resize are not recorded.
+     *
+     * @param phase the phase.
+     *
+     * @return the histogram of {@code phase}.
+     */
+    public Histogram getPhaseNanos(final Phase phase) {
+
+        return phases.get(phase);
+    }
+
+
+    /**
+     * Returns the histograms of total nanoseconds keyed by either
+     * {@link org.imgscalr.Scalr.Method} or {@link Filter}.
+     *
+     * @return an unmodifiable view of the histograms of total nanoseconds.
+     */
+    public Map<Object, Histogram> getTotalNanos() {
+
+        return Collections.unmodifiableMap(totals);
+    }
+
+
+    /**
+     * Returns the histogram of bytes of intermediate images per resize.
+     *
+     * @return the histogram of intermediate bytes.
+     */
+    public Histogram getIntermediateBytes() {
+
+        return intermediateBytes;
+    }
+
+
+    /**
+     * Returns the histogram of bytes of target images.
+     *
+     * @return the histogram of target bytes.
+     */
+    public Histogram getTargetBytes() {
+
+        return targetBytes;
+    }
+
+
+    private final Map<Phase, Histogram> phases;
+
+
+    private final ConcurrentMap<Object, Histogram> totals
+        = new ConcurrentHashMap<Object, Histogram>();
+
+
+    private final Histogram intermediateBytes = new Histogram();
+
+
+    private final Histogram targetBytes = new Histogram();
+
+
+}
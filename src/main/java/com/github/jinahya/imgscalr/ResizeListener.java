@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+/**
+ * A listener notified after each resize with its measurements. Listeners are
+ * called on the resizing thread, possibly concurrently, and should neither
+ * block nor throw.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ *
+ * @see Scalr#setResizeListener(com.github.jinahya.imgscalr.ResizeListener)
+ */
+public interface ResizeListener {
+
+
+    /**
+     * A listener which does nothing. While this listener is installed no
+     * measurement is taken at all.
+     */
+    ResizeListener NOOP = new ResizeListener() {
+
+        @Override
+        public void resized(final ResizeEvent event) {
+        }
+
+    };
+
+
+    /**
+     * Notified when a resize is done.
+     *
+     * @param event the measurements of the resize.
+     */
+    void resized(ResizeEvent event);
+
+
+}
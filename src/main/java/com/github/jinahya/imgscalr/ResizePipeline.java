@@ -0,0 +1,593 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+
+/**
+ * Decodes, resizes and encodes images in three stages, each running on its
+ * own threads and connected to the next one by a bounded queue, so that
+ * different images overlap across cores.
+ * <p>
+ * Each decoding thread keeps a reader for each format it has seen and each
+ * encoding thread keeps a single writer with its write parameters, so that
+ * neither readers nor writers are looked up or created per image. Streams
+ * are wrapped in memory-cached image streams rather than in whatever
+ * {@link ImageIO#createImageInputStream(java.lang.Object)} would choose.
+ * <p>
+ * Submitting blocks while the decoding queue is full. Cancelling a returned
+ * future skips the stages not started yet and stops the resize at its next
+ * stage boundary.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class ResizePipeline implements AutoCloseable {
+
+
+    /**
+     * An image on its way through the stages.
+     */
+    private static final class Job {
+
+
+        Job(final InputStream source, final OutputStream target) {
+
+            super();
+
+            this.source = source;
+            this.target = target;
+
+            future = new CompletableFuture<Void>();
+        }
+
+
+        private final InputStream source;
+
+        private final OutputStream target;
+
+        private final CompletableFuture<Void> future;
+
+        private BufferedImage image;
+
+
+    }
+
+
+    /**
+     * The job which tells a stage thread to finish.
+     */
+    private static final Job END = new Job(null, null);
+
+
+    /**
+     * A thread of a stage. The last thread of a stage to finish tells each
+     * thread of the next stage to finish.
+     */
+    private abstract class Stage implements Runnable {
+
+
+        Stage(final BlockingQueue<Job> input, final BlockingQueue<Job> output,
+              final AtomicInteger running, final int next) {
+
+            super();
+
+            this.input = input;
+            this.output = output;
+            this.running = running;
+            this.next = next;
+        }
+
+
+        @Override
+        public void run() {
+
+            try {
+                for (Job job; (job = take()) != END;) {
+                    if (job.future.isDone()) { // cancelled or failed
+                        job.image = null;
+                        continue;
+                    }
+                    try {
+                        process(job);
+                    } catch (final CancellationException ce) {
+                        job.image = null;
+                        job.future.cancel(false);
+                        continue;
+                    } catch (final Throwable t) {
+                        job.image = null;
+                        job.future.completeExceptionally(t);
+                        continue;
+                    }
+                    if (output == null) {
+                        job.future.complete(null);
+                    } else {
+                        put(output, job);
+                    }
+                }
+            } finally {
+                dispose();
+                if (running.decrementAndGet() == 0 && output != null) {
+                    for (int i = 0; i < next; i++) {
+                        put(output, END);
+                    }
+                }
+            }
+        }
+
+
+        private Job take() {
+
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return input.take();
+                    } catch (final InterruptedException ie) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+
+        abstract void process(Job job) throws IOException;
+
+
+        void dispose() {
+        }
+
+
+        private final BlockingQueue<Job> input;
+
+        private final BlockingQueue<Job> output;
+
+        private final AtomicInteger running;
+
+        private final int next;
+
+
+    }
+
+
+    private final class Decoder extends Stage {
+
+
+        Decoder() {
+
+            super(decodeQueue, resizeQueue, decoding, resizers);
+        }
+
+
+        @Override
+        void process(final Job job) throws IOException {
+
+            try (ImageInputStream stream
+                = new MemoryCacheImageInputStream(job.source)) {
+                final ImageReader reader = reader(stream);
+                try {
+                    reader.setInput(stream, true, true);
+                    job.image = reader.read(0);
+                } finally {
+                    reader.reset();
+                }
+            }
+        }
+
+
+        /**
+         * Returns this thread's reader for the format of given stream.
+         */
+        private ImageReader reader(final ImageInputStream stream)
+            throws IOException {
+
+            for (final ImageReaderSpi provider : providers) {
+                if (provider.canDecodeInput(stream)) {
+                    ImageReader reader = readers.get(provider);
+                    if (reader == null) {
+                        reader = provider.createReaderInstance();
+                        readers.put(provider, reader);
+                    }
+                    return reader;
+                }
+            }
+
+            throw new IOException("no image reader found");
+        }
+
+
+        @Override
+        void dispose() {
+
+            for (final ImageReader reader : readers.values()) {
+                reader.dispose();
+            }
+            readers.clear();
+        }
+
+
+        private final List<ImageReaderSpi> providers = providers();
+
+        private final Map<ImageReaderSpi, ImageReader> readers
+            = new HashMap<ImageReaderSpi, ImageReader>();
+
+
+    }
+
+
+    private final class Resizer extends Stage {
+
+
+        Resizer() {
+
+            super(resizeQueue, encodeQueue, resizing, encoders);
+        }
+
+
+        @Override
+        void process(final Job job) {
+
+            final Future<?> previous = Cancellation.bind(job.future);
+            try {
+                job.image = resize.apply(job.image);
+            } finally {
+                Cancellation.restore(previous);
+            }
+        }
+
+
+    }
+
+
+    private final class Encoder extends Stage {
+
+
+        Encoder() {
+
+            super(encodeQueue, null, encoding, 0);
+
+            writer = ImageIO.getImageWritersByFormatName(formatName).next();
+            param = writer.getDefaultWriteParam();
+            if (compressionQuality >= .0f && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(compressionQuality);
+            }
+        }
+
+
+        @Override
+        void process(final Job job) throws IOException {
+
+            final BufferedImage image = job.image;
+            job.image = null;
+            if (!writer.getOriginatingProvider().canEncodeImage(image)) {
+                throw new IOException(
+                    "can not encode image type " + image.getType() + " as "
+                    + formatName);
+            }
+            try (ImageOutputStream stream
+                = new MemoryCacheImageOutputStream(job.target)) {
+                writer.setOutput(stream);
+                try {
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.reset();
+                }
+            }
+            job.target.flush();
+        }
+
+
+        @Override
+        void dispose() {
+
+            writer.dispose();
+        }
+
+
+        private final ImageWriter writer;
+
+        private final ImageWriteParam param;
+
+
+    }
+
+
+    /**
+     * Returns the registered reader providers, in the order
+     * {@link ImageIO#getImageReaders(java.lang.Object)} tries them.
+     */
+    private static List<ImageReaderSpi> providers() {
+
+        final List<ImageReaderSpi> providers = new ArrayList<ImageReaderSpi>();
+        final Iterator<ImageReaderSpi> i = IIORegistry.getDefaultInstance()
+            .getServiceProviders(ImageReaderSpi.class, true);
+        while (i.hasNext()) {
+            providers.add(i.next());
+        }
+        return providers;
+    }
+
+
+    /**
+     * Creates a new pipeline and starts its threads.
+     *
+     * @param decoders the number of decoding threads.
+     * @param resizers the number of resizing threads.
+     * @param encoders the number of encoding threads.
+     * @param capacity the capacity of each queue.
+     * @param resize the function resizing each decoded image; e.g.
+     * {@code i -> Scalr.resizeInboxCenter(i, Method.QUALITY, 320, 240)}.
+     * @param formatName the format name to encode with.
+     * @param compressionQuality the compression quality between {@code 0.0f}
+     * and {@code 1.0f}; a negative value for the writer's default.
+     */
+    public ResizePipeline(
+        final int decoders, final int resizers, final int encoders,
+        final int capacity,
+        final Function<? super BufferedImage, ? extends BufferedImage> resize,
+        final String formatName, final float compressionQuality) {
+
+        super();
+
+        if (decoders <= 0) {
+            throw new IllegalArgumentException(
+                "decoders(" + decoders + ") <= 0");
+        }
+        if (resizers <= 0) {
+            throw new IllegalArgumentException(
+                "resizers(" + resizers + ") <= 0");
+        }
+        if (encoders <= 0) {
+            throw new IllegalArgumentException(
+                "encoders(" + encoders + ") <= 0");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                "capacity(" + capacity + ") <= 0");
+        }
+        if (resize == null) {
+            throw new NullPointerException("resize");
+        }
+        if (!ImageIO.getImageWritersByFormatName(formatName).hasNext()) {
+            throw new IllegalArgumentException(
+                "no image writer for " + formatName);
+        }
+        if (compressionQuality > 1.0f) {
+            throw new IllegalArgumentException(
+                "compressionQuality(" + compressionQuality + ") > 1.0f");
+        }
+
+        this.decoders = decoders;
+        this.resizers = resizers;
+        this.encoders = encoders;
+        this.resize = resize;
+        this.formatName = formatName;
+        this.compressionQuality = compressionQuality;
+
+        decodeQueue = new ArrayBlockingQueue<Job>(capacity);
+        resizeQueue = new ArrayBlockingQueue<Job>(capacity);
+        encodeQueue = new ArrayBlockingQueue<Job>(capacity);
+        decoding = new AtomicInteger(decoders);
+        resizing = new AtomicInteger(resizers);
+        encoding = new AtomicInteger(encoders);
+
+        threads = new ArrayList<Thread>(decoders + resizers + encoders);
+        for (int i = 0; i < decoders; i++) {
+            threads.add(new Thread(new Decoder(), "imgscalr-decode-" + i));
+        }
+        for (int i = 0; i < resizers; i++) {
+            threads.add(new Thread(new Resizer(), "imgscalr-resize-" + i));
+        }
+        for (int i = 0; i < encoders; i++) {
+            threads.add(new Thread(new Encoder(), "imgscalr-encode-" + i));
+        }
+        for (final Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+
+    /**
+     * Stops taking new images and waits until every submitted image is done.
+     */
+    @Override
+    public void close() {
+
+        synchronized (decodeQueue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = 0; i < decoders; i++) {
+                put(decodeQueue, END);
+            }
+        }
+
+        boolean interrupted = false;
+        for (final Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (final InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Puts given job to given queue, waiting uninterruptibly for space.
+     */
+    private static void put(final BlockingQueue<Job> queue, final Job job) {
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(job);
+                break;
+            } catch (final InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Submits an image to decode from given input stream, resize and encode
+     * to given output stream. Neither stream is closed.
+     *
+     * @param source the stream to decode from.
+     * @param target the stream to encode to.
+     *
+     * @return a future completed once the image is written; failed with a
+     * {@link RejectedExecutionException} if this pipeline is closed or the
+     * current thread is interrupted while waiting.
+     */
+    public CompletableFuture<Void> submit(final InputStream source,
+                                          final OutputStream target) {
+
+        if (source == null) {
+            throw new NullPointerException("source");
+        }
+        if (target == null) {
+            throw new NullPointerException("target");
+        }
+
+        final Job job = new Job(source, target);
+        synchronized (decodeQueue) {
+            if (closed) {
+                job.future.completeExceptionally(
+                    new RejectedExecutionException("closed"));
+                return job.future;
+            }
+            try {
+                decodeQueue.put(job);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                job.future.completeExceptionally(
+                    new RejectedExecutionException("interrupted"));
+            }
+        }
+
+        return job.future;
+    }
+
+
+    /**
+     * Submits an image to decode from given input stream, resize and encode
+     * to given channel. Neither the stream nor the channel is closed.
+     *
+     * @param source the stream to decode from.
+     * @param target the channel to encode to.
+     *
+     * @return a future completed once the image is written.
+     *
+     * @see #submit(java.io.InputStream, java.io.OutputStream)
+     */
+    public CompletableFuture<Void> submit(final InputStream source,
+                                          final WritableByteChannel target) {
+
+        if (target == null) {
+            throw new NullPointerException("target");
+        }
+
+        return submit(source, Channels.newOutputStream(target));
+    }
+
+
+    private final int decoders;
+
+    private final int resizers;
+
+    private final int encoders;
+
+    private final Function<? super BufferedImage, ? extends BufferedImage>
+        resize;
+
+    private final String formatName;
+
+    private final float compressionQuality;
+
+    private final BlockingQueue<Job> decodeQueue;
+
+    private final BlockingQueue<Job> resizeQueue;
+
+    private final BlockingQueue<Job> encodeQueue;
+
+    private final AtomicInteger decoding;
+
+    private final AtomicInteger resizing;
+
+    private final AtomicInteger encoding;
+
+    private final List<Thread> threads;
+
+    /**
+     * Guarded by {@link #decodeQueue}.
+     */
+    private boolean closed;
+
+
+}
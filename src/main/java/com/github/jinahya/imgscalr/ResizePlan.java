@@ -0,0 +1,359 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.util.concurrent.ForkJoinPool;
+import static org.imgscalr.Scalr.Method;
+
+
+/**
+ * A precomputed resize of a fixed source size into a fixed target box. A
+ * plan holds the placement and, for a {@link Filter}, the fixed-point weight
+ * tables and source index maps of both axes, so that resizing any number of
+ * images of the source size costs no setup at all. Plans are immutable and
+ * may be shared among threads.
+ * <p>
+ * Every {@code Scalr.resize} of a {@link BufferedImage} builds and applies a
+ * plan, so a plan's results are identical to those of the corresponding
+ * {@code Scalr.resize}.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public final class ResizePlan {
+
+
+    /**
+     * Creates a plan resizing with given scaling method.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param scalingMethod the scaling method.
+     *
+     * @return a new plan.
+     *
+     * @see Scalr#resize(java.awt.image.BufferedImage,
+     * org.imgscalr.Scalr.Method, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static ResizePlan of(final int sourceWidth, final int sourceHeight,
+                                final int targetWidth, final int targetHeight,
+                                final float magnificationFactor,
+                                final float horizontalWeigth,
+                                final float verticalWeight,
+                                final Method scalingMethod) {
+
+        if (scalingMethod == null) {
+            throw new NullPointerException("scalingMethod");
+        }
+
+        return new ResizePlan(
+            Placement.of(sourceWidth, sourceHeight, targetWidth, targetHeight,
+                         magnificationFactor, horizontalWeigth,
+                         verticalWeight),
+            scalingMethod, null);
+    }
+
+
+    /**
+     * Creates a plan resizing with given filter of the separable resampling
+     * engine.
+     *
+     * @param sourceWidth the source width.
+     * @param sourceHeight the source height.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param filter the resampling filter.
+     *
+     * @return a new plan.
+     *
+     * @see Scalr#resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static ResizePlan of(final int sourceWidth, final int sourceHeight,
+                                final int targetWidth, final int targetHeight,
+                                final float magnificationFactor,
+                                final float horizontalWeigth,
+                                final float verticalWeight,
+                                final Filter filter) {
+
+        if (filter == null) {
+            throw new NullPointerException("filter");
+        }
+
+        return new ResizePlan(
+            Placement.of(sourceWidth, sourceHeight, targetWidth, targetHeight,
+                         magnificationFactor, horizontalWeigth,
+                         verticalWeight),
+            null, filter);
+    }
+
+
+    private ResizePlan(final Placement placement, final Method scalingMethod,
+                       final Filter filter) {
+
+        super();
+
+        this.placement = placement;
+        this.scalingMethod = scalingMethod;
+        this.filter = filter;
+
+        resampler = filter == null ? null : Resampler.of(placement, filter);
+    }
+
+
+    /**
+     * Returns a plan of this plan's placement resizing with given scaling
+     * method.
+     */
+    ResizePlan with(final Method scalingMethod) {
+
+        return new ResizePlan(placement, scalingMethod, null);
+    }
+
+
+    /**
+     * Returns a plan of this plan's placement resizing with given filter.
+     */
+    ResizePlan with(final Filter filter) {
+
+        return filter == this.filter
+               ? this : new ResizePlan(placement, null, filter);
+    }
+
+
+    /**
+     * Checks whether given image is of this plan's source size.
+     *
+     * @param sourceImage the image to check.
+     *
+     * @return {@code true} if it is; {@code false} otherwise.
+     */
+    public boolean matches(final BufferedImage sourceImage) {
+
+        return sourceImage.getWidth() == placement.getSourceWidth()
+               && sourceImage.getHeight() == placement.getSourceHeight();
+    }
+
+
+    private void check(final BufferedImage sourceImage) {
+
+        if (!matches(sourceImage)) {
+            throw new IllegalArgumentException(
+                "sourceImage(" + sourceImage.getWidth() + "x"
+                + sourceImage.getHeight() + ") does not match "
+                + placement.getSourceWidth() + "x"
+                + placement.getSourceHeight());
+        }
+    }
+
+
+    /**
+     * Resizes given image into a new target image.
+     *
+     * @param sourceImage the source image; must be of the source size.
+     * @param ops
+     *
+     * @return a resized image.
+     */
+    public BufferedImage resize(final BufferedImage sourceImage,
+                                final BufferedImageOp... ops) {
+
+        return resize(sourceImage, (Color) null, ops);
+    }
+
+
+    /**
+     * Resizes given image into a new target image, filling the padding of the
+     * target box with given background color.
+     *
+     * @param sourceImage the source image; must be of the source size.
+     * @param background the background color of the padding; {@code null}
+     * for transparent.
+     * @param ops
+     *
+     * @return a resized image.
+     */
+    public BufferedImage resize(final BufferedImage sourceImage,
+                                final Color background,
+                                final BufferedImageOp... ops) {
+
+        return resize(sourceImage, background, (ForkJoinPool) null, ops);
+    }
+
+
+    /**
+     * Resizes given image into a new target image, running each resampling
+     * pass of a filter plan as row stripes on given fork-join pool.
+     *
+     * @param sourceImage the source image; must be of the source size.
+     * @param background the background color of the padding; {@code null}
+     * for transparent.
+     * @param forkJoinPool the fork-join pool to run on; {@code null} for
+     * running on the current thread. Ignored by scaling method plans.
+     * @param ops
+     *
+     * @return a resized image.
+     */
+    public BufferedImage resize(final BufferedImage sourceImage,
+                                final Color background,
+                                final ForkJoinPool forkJoinPool,
+                                final BufferedImageOp... ops) {
+
+        check(sourceImage);
+
+        return Scalr.resize(sourceImage, this, background, forkJoinPool, ops);
+    }
+
+
+    /**
+     * Resizes given image into given target image, which is entirely
+     * overwritten.
+     *
+     * @param sourceImage the source image; must be of the source size.
+     * @param targetImage the target image; must be of the target size.
+     * @param ops
+     *
+     * @return given target image.
+     */
+    public BufferedImage resize(final BufferedImage sourceImage,
+                                final BufferedImage targetImage,
+                                final BufferedImageOp... ops) {
+
+        return resize(sourceImage, targetImage, (ForkJoinPool) null, ops);
+    }
+
+
+    /**
+     * Resizes given image into given target image, running each resampling
+     * pass of a filter plan as row stripes on given fork-join pool.
+     *
+     * @param sourceImage the source image; must be of the source size.
+     * @param targetImage the target image; must be of the target size.
+     * @param forkJoinPool the fork-join pool to run on; {@code null} for
+     * running on the current thread. Ignored by scaling method plans.
+     * @param ops
+     *
+     * @return given target image.
+     */
+    public BufferedImage resize(final BufferedImage sourceImage,
+                                final BufferedImage targetImage,
+                                final ForkJoinPool forkJoinPool,
+                                final BufferedImageOp... ops) {
+
+        check(sourceImage);
+        if (targetImage.getWidth() != placement.getTargetWidth()
+            || targetImage.getHeight() != placement.getTargetHeight()) {
+            throw new IllegalArgumentException(
+                "targetImage(" + targetImage.getWidth() + "x"
+                + targetImage.getHeight() + ") does not match "
+                + placement.getTargetWidth() + "x"
+                + placement.getTargetHeight());
+        }
+
+        return Scalr.resize(sourceImage, this, targetImage, forkJoinPool,
+                            ops);
+    }
+
+
+    public int getSourceWidth() {
+
+        return placement.getSourceWidth();
+    }
+
+
+    public int getSourceHeight() {
+
+        return placement.getSourceHeight();
+    }
+
+
+    public int getTargetWidth() {
+
+        return placement.getTargetWidth();
+    }
+
+
+    public int getTargetHeight() {
+
+        return placement.getTargetHeight();
+    }
+
+
+    /**
+     * Returns the scaling method of this plan.
+     *
+     * @return the scaling method; {@code null} for a filter plan.
+     */
+    public Method getScalingMethod() {
+
+        return scalingMethod;
+    }
+
+
+    /**
+     * Returns the filter of this plan.
+     *
+     * @return the filter; {@code null} for a scaling method plan.
+     */
+    public Filter getFilter() {
+
+        return filter;
+    }
+
+
+    Placement getPlacement() {
+
+        return placement;
+    }
+
+
+    /**
+     * Returns the resampler of a filter plan.
+     *
+     * @return the resampler; {@code null} for a scaling method plan or if
+     * nothing is visible.
+     */
+    Resampler getResampler() {
+
+        return resampler;
+    }
+
+
+    private final Placement placement;
+
+    private final Method scalingMethod;
+
+    private final Filter filter;
+
+    private final Resampler resampler;
+
+
+}
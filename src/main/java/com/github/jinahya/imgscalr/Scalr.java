@@ -18,9 +18,32 @@
 package com.github.jinahya.imgscalr;
 
 
+import java.awt.AlphaComposite;
+import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
 import static org.imgscalr.Scalr.Method;
 import static org.imgscalr.Scalr.Mode;
 
@@ -32,77 +55,2151 @@ import static org.imgscalr.Scalr.Mode;
 public strictfp class Scalr extends org.imgscalr.Scalr {
 
 
+    private static final Color TRANSPARENT = new Color(0, true);
+
+
+    private static volatile RasterPool rasterPool
+        = new RasterPool(RasterPool.DEFAULT_MAXIMUM_BYTES);
+
+
+    private static volatile ResizeListener resizeListener
+        = ResizeListener.NOOP;
+
+
+    private static volatile MemoryBudget memoryBudget = MemoryBudget.UNLIMITED;
+
+
+    private static volatile LatencyBudget latencyBudget = new LatencyBudget();
+
+
     /**
      * Resizes specified image preserving the proportion and relocates by given
      * arguments.
+     * <p>
+     * When the scaled image overflows the target box (e.g. for
+     * {@code magnificationFactor} of {@code 1.0f}) only the region of the
+     * source image which stays visible, plus a few pixels of margin for the
+     * filter support, is resampled. The result may differ from resampling the
+     * whole source image by at most one target pixel of displacement along
+     * each axis and by the usual resampling phase error of the
+     * {@code scalingMethod}.
+     * <p>
+     * Given operations are applied on the target image, never on a larger
+     * intermediate one. Point operations ({@link java.awt.image.RescaleOp},
+     * {@link java.awt.image.LookupOp} and
+     * {@link java.awt.image.ColorConvertOp} to gray) and a small
+     * {@link java.awt.image.ConvolveOp} are fused into a single pass over the
+     * target rows; other operations are applied afterwards as
+     * {@link #apply(java.awt.image.BufferedImage,
+     * java.awt.image.BufferedImageOp...)} does.
+     * <p>
+     * The type of the resized image follows the source image. Alpha is kept
+     * only when the source image has it or when the target box is padded;
+     * opaque sources are resized into {@link BufferedImage#TYPE_INT_RGB} or,
+     * when the source image is, into {@link BufferedImage#TYPE_3BYTE_BGR}.
+     *
+     * @param sourceImage the source image to resize.
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor. {@code 1.0f} for
+     * fitting into the box, {@code 1.0f} for fit to max width or height.
+     * @param horizontalWeigth the horizontal weight. {@code 1.0f} for aligning
+     * to the left align, {@code 1.0f} for aligning to the right.
+     * @param verticalWeight the vertical weight. {@code 1.0f} for aligning to
+     * the top, {@code 1.0f} for aligning to the bottom.
+     * @param ops
+     *
+     * @return a resized image.
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Method scalingMethod,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
+                      magnificationFactor, horizontalWeigth, verticalWeight,
+                      (Color) null, ops);
+    }
+
+
+    /**
+     * Resizes specified image preserving the proportion and relocates by given
+     * arguments, filling the padding of the target box with given background
+     * color. An opaque background lets opaque sources be resized into an
+     * opaque image even when the target box is padded.
+     *
+     * @param sourceImage the source image to resize.
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param background the background color of the padding; {@code null}
+     * for transparent.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Method scalingMethod,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final Color background,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, ResizePlan.of(
+            sourceImage.getWidth(), sourceImage.getHeight(), targetWidth,
+            targetHeight, magnificationFactor, horizontalWeigth,
+            verticalWeight, scalingMethod), background, null, ops);
+    }
+
+
+    /**
+     * Resizes specified image preserving the proportion and relocates into
+     * given target image. The target image is entirely overwritten; pixels
+     * not covered by the scaled image are cleared.
+     *
+     * @param sourceImage the source image to resize.
+     * @param scalingMethod the scaling method.
+     * @param targetImage the target image to write to.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return given target image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Method scalingMethod,
+                                       final BufferedImage targetImage,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, ResizePlan.of(
+            sourceImage.getWidth(), sourceImage.getHeight(),
+            targetImage.getWidth(), targetImage.getHeight(),
+            magnificationFactor, horizontalWeigth, verticalWeight,
+            scalingMethod), targetImage, null, ops);
+    }
+
+
+    /**
+     * Resizes specified image preserving the proportion and relocates into
+     * given target raster. The target raster must be compatible with
+     * {@link ColorModel#getRGBdefault()}.
+     *
+     * @param sourceImage the source image to resize.
+     * @param scalingMethod the scaling method.
+     * @param targetRaster the target raster to write to.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return given target raster.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * java.awt.image.BufferedImage, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static WritableRaster resize(final BufferedImage sourceImage,
+                                        final Method scalingMethod,
+                                        final WritableRaster targetRaster,
+                                        final float magnificationFactor,
+                                        final float horizontalWeigth,
+                                        final float verticalWeight,
+                                        final BufferedImageOp... ops) {
+
+        final ColorModel colorModel = ColorModel.getRGBdefault();
+        if (!colorModel.isCompatibleRaster(targetRaster)) {
+            throw new IllegalArgumentException(
+                "targetRaster is not compatible with " + colorModel);
+        }
+
+        resize(sourceImage, scalingMethod,
+               new BufferedImage(colorModel, targetRaster, false, null),
+               magnificationFactor, horizontalWeigth, verticalWeight, ops);
+
+        return targetRaster;
+    }
+
+
+    /**
+     * Resizes specified image with the separable resampling engine preserving
+     * the proportion and relocates by given arguments. Only the source pixels
+     * contributing to the visible part of the target box are read and no
+     * auxiliary image is created.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Filter filter,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight,
+                      magnificationFactor, horizontalWeigth, verticalWeight,
+                      (ForkJoinPool) null, ops);
+    }
+
+
+    /**
+     * Resizes specified image with the separable resampling engine, running
+     * each resampling pass as row stripes on given fork-join pool. The result
+     * is identical to the single-threaded one.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param forkJoinPool the fork-join pool to run on; {@code null} for
+     * running on the current thread.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Filter filter,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final ForkJoinPool forkJoinPool,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight,
+                      magnificationFactor, horizontalWeigth, verticalWeight,
+                      (Color) null, forkJoinPool, ops);
+    }
+
+
+    /**
+     * Resizes specified image with the separable resampling engine, filling
+     * the padding of the target box with given background color.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param background the background color of the padding; {@code null}
+     * for transparent.
+     * @param forkJoinPool the fork-join pool to run on; {@code null} for
+     * running on the current thread.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.Color,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Filter filter,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final Color background,
+                                       final ForkJoinPool forkJoinPool,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, ResizePlan.of(
+            sourceImage.getWidth(), sourceImage.getHeight(), targetWidth,
+            targetHeight, magnificationFactor, horizontalWeigth,
+            verticalWeight, filter), background, forkJoinPool, ops);
+    }
+
+
+    /**
+     * Resizes specified image with the separable resampling engine preserving
+     * the proportion and relocates into given target image. The target image
+     * is entirely overwritten; pixels not covered by the scaled image are
+     * cleared.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetImage the target image to write to.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return given target image.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Filter filter,
+                                       final BufferedImage targetImage,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetImage, magnificationFactor,
+                      horizontalWeigth, verticalWeight, (ForkJoinPool) null,
+                      ops);
+    }
+
+
+    /**
+     * Resizes specified image with the separable resampling engine into given
+     * target image, running each resampling pass as row stripes on given
+     * fork-join pool.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetImage the target image to write to.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param forkJoinPool the fork-join pool to run on; {@code null} for
+     * running on the current thread.
+     * @param ops
+     *
+     * @return given target image.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, java.awt.image.BufferedImage,
+     * float, float, float, java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Filter filter,
+                                       final BufferedImage targetImage,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final ForkJoinPool forkJoinPool,
+                                       final BufferedImageOp... ops) {
+
+        return resize(sourceImage, ResizePlan.of(
+            sourceImage.getWidth(), sourceImage.getHeight(),
+            targetImage.getWidth(), targetImage.getHeight(),
+            magnificationFactor, horizontalWeigth, verticalWeight, filter),
+                      targetImage, forkJoinPool, ops);
+    }
+
+
+    /**
+     * Resizes specified image preserving the proportion and relocates by given
+     * arguments with the best scaling method which the
+     * {@link #getLatencyBudget() latency budget} expects to finish within
+     * given time.
+     *
+     * @param sourceImage the source image to resize.
+     * @param timeout the time the resize may take.
+     * @param unit the unit of {@code timeout}.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see LatencyBudget#select(int, int, int, int, float, long,
+     * java.util.concurrent.TimeUnit)
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final long timeout,
+                                       final TimeUnit unit,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final BufferedImageOp... ops) {
+
+        final Placement placement = Placement.of(
+            sourceImage.getWidth(), sourceImage.getHeight(), targetWidth,
+            targetHeight, magnificationFactor, horizontalWeigth,
+            verticalWeight);
+        final Method scalingMethod
+            = latencyBudget.select(placement, unit.toNanos(timeout));
+
+        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
+                      magnificationFactor, horizontalWeigth, verticalWeight,
+                      ops);
+    }
+
+
+    /**
+     * Resizes specified image progressively with the separable resampling
+     * engine, preserving the proportion and relocating by given arguments.
+     * A {@link Method#SPEED} preview is rendered first, then refined with
+     * {@link Filter#BILINEAR}, if given filter is finer, and with given
+     * filter. Every stage shares the placement and is rendered into the same
+     * target image, which given listener is notified of after each stage.
+     * <p>
+     * Refinement stops when the listener returns {@code false} or, for a
+     * resize run by {@link AsyncScalr}, when its future is cancelled.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter of the final stage.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param listener the listener notified after each stage.
+     * @param ops
+     *
+     * @return the target image holding the last rendered stage.
+     */
+    public static BufferedImage resize(final BufferedImage sourceImage,
+                                       final Filter filter,
+                                       final int targetWidth,
+                                       final int targetHeight,
+                                       final float magnificationFactor,
+                                       final float horizontalWeigth,
+                                       final float verticalWeight,
+                                       final ProgressListener listener,
+                                       final BufferedImageOp... ops) {
+
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+
+        final ResizePlan plan = ResizePlan.of(
+            sourceImage.getWidth(), sourceImage.getHeight(), targetWidth,
+            targetHeight, magnificationFactor, horizontalWeigth,
+            verticalWeight, filter);
+        final ResizePlan[] stages = filter.compareTo(Filter.BILINEAR) > 0
+                                    ? new ResizePlan[]{
+                                        plan.with(Method.SPEED),
+                                        plan.with(Filter.BILINEAR), plan}
+                                    : new ResizePlan[]{
+                                        plan.with(Method.SPEED), plan};
+
+        final BufferedImage targetImage = new BufferedImage(
+            targetWidth, targetHeight,
+            imageType(sourceImage, plan.getPlacement(), null, ops));
+        for (int i = 0; i < stages.length; i++) {
+            if (i > 0) {
+                Cancellation.check();
+            }
+            resize(sourceImage, stages[i], targetImage, null, ops);
+            if (!listener.progressed(targetImage, stages[i],
+                                     i == stages.length - 1)) {
+                break;
+            }
+        }
+
+        return targetImage;
+    }
+
+
+    /**
+     * Resizes specified image, which matches given plan, into a new target
+     * image.
+     */
+    static BufferedImage resize(final BufferedImage sourceImage,
+                                final ResizePlan plan,
+                                final Color background,
+                                final ForkJoinPool forkJoinPool,
+                                final BufferedImageOp... ops) {
+
+        return resize(sourceImage, plan,
+                      imageType(sourceImage, plan.getPlacement(), background,
+                                ops),
+                      background, forkJoinPool, ops);
+    }
+
+
+    /**
+     * Resizes specified image, which matches given plan, into a new target
+     * image of given type.
+     */
+    private static BufferedImage resize(final BufferedImage sourceImage,
+                                        final ResizePlan plan,
+                                        final int targetType,
+                                        final Color background,
+                                        final ForkJoinPool forkJoinPool,
+                                        final BufferedImageOp... ops) {
+
+        final ResizeListener listener = resizeListener;
+        final long time
+            = listener == ResizeListener.NOOP ? 0L : System.nanoTime();
+
+        final Placement placement = plan.getPlacement();
+        final int targetWidth = placement.getTargetWidth();
+        final int targetHeight = placement.getTargetHeight();
+        try (MemoryBudget.Permit permit = admit(
+                 plan, (long) MemoryBudget.bytesPerPixel(targetType)
+                       * targetWidth * targetHeight)) {
+
+            final BufferedImage targetImage;
+            final ResizeEvent event;
+            final Operations operations;
+            // sampled once admitted, until the unfused operations
+            try (LatencyBudget.Sample sample = plan.getFilter() == null
+                                               ? latencyBudget.sample(
+                                                   placement,
+                                                   plan.getScalingMethod())
+                                               : null) {
+
+                targetImage = new BufferedImage(
+                    targetWidth, targetHeight, targetType);
+
+                event = listener == ResizeListener.NOOP
+                        ? null
+                        : new ResizeEvent(plan.getScalingMethod(),
+                                          plan.getFilter(),
+                                          sourceImage.getWidth(),
+                                          sourceImage.getHeight(),
+                                          targetImage);
+                ResizeEvent.lap(event, ResizeEvent.Phase.ALLOCATE, time);
+
+                operations = Operations.of(
+                    targetImage.getColorModel().hasAlpha(), ops);
+                render(sourceImage, plan, targetImage, background,
+                       forkJoinPool, operations, event);
+
+                if (sample != null) {
+                    sample.done();
+                }
+            }
+
+            return apply(operations, targetImage, false, listener, event);
+        }
+    }
+
+
+    /**
+     * Resizes specified image, which matches given plan, into given target
+     * image.
+     */
+    static BufferedImage resize(final BufferedImage sourceImage,
+                                final ResizePlan plan,
+                                final BufferedImage targetImage,
+                                final ForkJoinPool forkJoinPool,
+                                final BufferedImageOp... ops) {
+
+        try (MemoryBudget.Permit permit = admit(plan, 0L)) {
+            return resizeAdmitted(sourceImage, plan, targetImage,
+                                  forkJoinPool, ops);
+        }
+    }
+
+
+    /**
+     * Resizes specified image, which matches given plan, into given target
+     * image under a permit the caller already holds.
+     */
+    private static BufferedImage resizeAdmitted(
+        final BufferedImage sourceImage, final ResizePlan plan,
+        final BufferedImage targetImage, final ForkJoinPool forkJoinPool,
+        final BufferedImageOp... ops) {
+
+        final ResizeListener listener = resizeListener;
+        final ResizeEvent event = listener == ResizeListener.NOOP
+                                  ? null
+                                  : new ResizeEvent(
+                                      plan.getScalingMethod(),
+                                      plan.getFilter(),
+                                      sourceImage.getWidth(),
+                                      sourceImage.getHeight(),
+                                      targetImage);
+
+        final Operations operations = Operations.of(
+            targetImage.getColorModel().hasAlpha(), ops);
+        render(sourceImage, plan, targetImage, TRANSPARENT, forkJoinPool,
+               operations, event);
+
+        return apply(operations, targetImage, true, listener, event);
+    }
+
+
+    private static void render(final BufferedImage sourceImage,
+                               final ResizePlan plan,
+                               final BufferedImage targetImage,
+                               final Color background,
+                               final ForkJoinPool forkJoinPool,
+                               final Operations operations,
+                               final ResizeEvent event) {
+
+        if (plan.getFilter() == null) {
+            render(sourceImage, plan.getScalingMethod(), plan.getPlacement(),
+                   targetImage, background, operations, event);
+        } else {
+            render(sourceImage, plan.getResampler(), targetImage, background,
+                   forkJoinPool, operations, event);
+        }
+    }
+
+
+    /**
+     * Admits a resize with given plan against the memory budget and binds
+     * the permit to the current thread.
+     *
+     * @return a bound permit; {@code null} if the budget is unlimited.
+     */
+    private static MemoryBudget.Permit admit(final ResizePlan plan,
+                                             final long targetBytes) {
+
+        final MemoryBudget budget = memoryBudget;
+        if (budget == MemoryBudget.UNLIMITED) {
+            return null;
+        }
+
+        final long intermediateBytes = MemoryBudget.intermediateBytes(plan);
+        return budget.admit(targetBytes + intermediateBytes)
+            .bind(intermediateBytes);
+    }
+
+
+    /**
+     * Admits a resize from a stream, decoding given number of columns and
+     * rows, against the memory budget and binds the permit to the current
+     * thread. The types of the decoded region and of the target image are
+     * not known yet; both are taken as four bytes per pixel.
+     *
+     * @return a bound permit; {@code null} if the budget is unlimited.
+     */
+    private static MemoryBudget.Permit admit(final Placement placement,
+                                             final Method scalingMethod,
+                                             final int columns,
+                                             final int rows) {
+
+        final MemoryBudget budget = memoryBudget;
+        if (budget == MemoryBudget.UNLIMITED) {
+            return null;
+        }
+
+        final long intermediateBytes = scaleBytes(
+            columns, rows, scalingMethod, placement.getScaledWidth(),
+            placement.getScaledHeight());
+        return budget.admit(
+            4L * columns * rows + intermediateBytes
+            + 4L * placement.getTargetWidth() * placement.getTargetHeight())
+            .bind(intermediateBytes);
+    }
+
+
+    /**
+     * Admits given bytes against the memory budget and binds the permit to
+     * the current thread.
+     *
+     * @return a bound permit; {@code null} if the budget is unlimited.
+     */
+    private static MemoryBudget.Permit admit(final long bytes) {
+
+        final MemoryBudget budget = memoryBudget;
+        if (budget == MemoryBudget.UNLIMITED) {
+            return null;
+        }
+
+        return budget.admit(bytes).bind(0L);
+    }
+
+
+    /**
+     * Fills given image with given color unless given rectangle covers it
+     * entirely.
+     */
+    private static void clear(final BufferedImage image, final int x,
+                              final int y, final int width,
+                              final int height, final Color color) {
+
+        if (x <= 0 && y <= 0 && x + width >= image.getWidth()
+            && y + height >= image.getHeight()) {
+            return;
+        }
+
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+    }
+
+
+    /**
+     * Resamples the visible region of the source image straight into the
+     * target image. When the resampled region covers the whole target image
+     * the fused operations are applied while the rows are written; otherwise
+     * they are applied afterwards in a single pass.
+     */
+    private static void render(final BufferedImage sourceImage,
+                               final Resampler resampler,
+                               final BufferedImage targetImage,
+                               final Color background,
+                               final ForkJoinPool forkJoinPool,
+                               final Operations operations,
+                               final ResizeEvent event) {
+
+        long time = ResizeEvent.time(event);
+
+        final RasterPool pool = rasterPool;
+        if (resampler == null) {
+            if (background != null) {
+                clear(targetImage, 0, 0, 0, 0, background);
+            }
+            time = ResizeEvent.lap(event, ResizeEvent.Phase.COMPOSITE, time);
+            if (operations != null) {
+                operations.filter(targetImage, pool);
+            }
+            ResizeEvent.lap(event, ResizeEvent.Phase.FILTER, time);
+            return;
+        }
+
+        if (background != null) {
+            clear(targetImage, resampler.getTargetX(), resampler.getTargetY(),
+                  resampler.getHorizontal().getLength(),
+                  resampler.getVertical().getLength(), background);
+        }
+        time = ResizeEvent.lap(event, ResizeEvent.Phase.COMPOSITE, time);
+
+        final boolean fused = operations != null && operations.isFused()
+                              && resampler.covers(targetImage);
+        resampler.resample(sourceImage, targetImage, pool, forkJoinPool,
+                           fused ? operations : null);
+        time = ResizeEvent.lap(event, ResizeEvent.Phase.RESAMPLE, time);
+        if (operations != null && !fused) {
+            Cancellation.check();
+            operations.filter(targetImage, pool);
+        }
+        ResizeEvent.lap(event, ResizeEvent.Phase.FILTER, time);
+    }
+
+
+    /**
+     * Resamples the visible region of the source image into a pooled
+     * auxiliary image and composites it onto the target image.
+     */
+    private static void render(final BufferedImage sourceImage,
+                               final Method scalingMethod,
+                               final Placement placement,
+                               final BufferedImage targetImage,
+                               final Color background,
+                               final Operations operations,
+                               final ResizeEvent event) {
+
+        final BufferedImage regionImage = placement.isCropped()
+                                          ? sourceImage.getSubimage(
+                                              placement.getRegionX(),
+                                              placement.getRegionY(),
+                                              placement.getRegionWidth(),
+                                              placement.getRegionHeight())
+                                          : sourceImage;
+
+        composite(regionImage, scalingMethod, placement, targetImage,
+                  background, operations, event);
+    }
+
+
+    /**
+     * Scales specified image, which is the visible region of the source
+     * image, into a pooled auxiliary image and composites it onto the target
+     * image. The fused operations are then applied on the target image in a
+     * single pass.
+     * <p>
+     * An exact reduction by an integer factor is averaged by the
+     * {@link BoxReducer} straight into the target image, in place of the
+     * incremental steps, if any; a scaled image which exactly fills the
+     * target image is scaled straight into it. Neither needs an auxiliary
+     * image.
+     */
+    private static void composite(final BufferedImage regionImage,
+                                  final Method scalingMethod,
+                                  final Placement placement,
+                                  final BufferedImage targetImage,
+                                  final Color background,
+                                  final Operations operations,
+                                  final ResizeEvent event) {
+
+        long time = ResizeEvent.time(event);
+
+        final RasterPool pool = rasterPool;
+        final int x = placement.getScaledX();
+        final int y = placement.getScaledY();
+        final int width = placement.getScaledWidth();
+        final int height = placement.getScaledHeight();
+
+        final int factor = factor(regionImage.getWidth(),
+                                  regionImage.getHeight(), scalingMethod,
+                                  width, height);
+        if (factor > 0) {
+            try {
+                if (background != null) {
+                    clear(targetImage, x, y, width, height, background);
+                }
+                BoxReducer.reduce(regionImage, factor, targetImage, x, y,
+                                  pool);
+            } finally {
+                MemoryBudget.releaseIntermediate();
+            }
+            time = ResizeEvent.lap(event, ResizeEvent.Phase.RESAMPLE, time);
+        } else if (x == 0 && y == 0 && width == targetImage.getWidth()
+                   && height == targetImage.getHeight()) {
+            try {
+                scale(regionImage, scalingMethod, width, height, pool,
+                      targetImage, event);
+            } finally {
+                MemoryBudget.releaseIntermediate();
+            }
+            time = ResizeEvent.lap(event, ResizeEvent.Phase.RESAMPLE, time);
+        } else {
+            BufferedImage auxiliaryImage = null;
+            try {
+                auxiliaryImage = scale(regionImage, scalingMethod, width,
+                                       height, pool, null, event);
+                time = ResizeEvent.lap(event, ResizeEvent.Phase.RESAMPLE,
+                                       time);
+
+                if (background != null) {
+                    clear(targetImage, x, y, width, height, background);
+                }
+                final Graphics2D graphics = targetImage.createGraphics();
+                graphics.setComposite(AlphaComposite.Src);
+                graphics.drawImage(auxiliaryImage, x, y, null);
+                graphics.dispose();
+                time = ResizeEvent.lap(event, ResizeEvent.Phase.COMPOSITE,
+                                       time);
+            } finally {
+                if (auxiliaryImage != null) {
+                    pool.release(auxiliaryImage);
+                }
+                MemoryBudget.releaseIntermediate();
+            }
+            time = ResizeEvent.lap(event, ResizeEvent.Phase.RELEASE, time);
+        }
+
+        if (operations != null) {
+            Cancellation.check();
+            operations.filter(targetImage, pool);
+        }
+        ResizeEvent.lap(event, ResizeEvent.Phase.FILTER, time);
+    }
+
+
+    /**
+     * Applies the remaining, not fused, operations on given target image and
+     * then notifies given listener of given event, if any.
+     *
+     * @param copy whether to copy the filtered image back to the target
+     * image.
+     *
+     * @return the filtered image; {@code targetImage} if {@code copy} is
+     * {@code true}.
+     */
+    private static BufferedImage apply(final Operations operations,
+                                       final BufferedImage targetImage,
+                                       final boolean copy,
+                                       final ResizeListener listener,
+                                       final ResizeEvent event) {
+
+        final long time = ResizeEvent.time(event);
+        final BufferedImage filteredImage = apply(operations, targetImage,
+                                                  copy);
+        if (event != null) {
+            ResizeEvent.lap(event, ResizeEvent.Phase.FILTER, time);
+            listener.resized(event);
+        }
+
+        return filteredImage;
+    }
+
+
+    private static BufferedImage apply(final Operations operations,
+                                       final BufferedImage targetImage,
+                                       final boolean copy) {
+
+        if (operations == null) {
+            return targetImage;
+        }
+
+        Cancellation.check();
+        final BufferedImage filteredImage = operations.apply(targetImage);
+        if (!copy || filteredImage == targetImage) {
+            return filteredImage;
+        }
+
+        final Graphics2D graphics = targetImage.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.drawImage(filteredImage, 0, 0, null);
+        graphics.dispose();
+        filteredImage.flush();
+
+        return targetImage;
+    }
+
+
+    /**
+     * Chooses the type of a new target image. Alpha is kept only when the
+     * source image has it or when the target box is padded without an opaque
+     * background. Otherwise the source type is kept if it is written
+     * directly, except gray which is kept only when neither operations nor a
+     * colored background may bring colors in.
+     */
+    private static int imageType(final BufferedImage sourceImage,
+                                 final Placement placement,
+                                 final Color background,
+                                 final BufferedImageOp... ops) {
+
+        return imageType(sourceImage.getType(),
+                         sourceImage.getTransparency() == Transparency.OPAQUE,
+                         placement, background, ops);
+    }
+
+
+    static int imageType(final int sourceType, final boolean opaque,
+                         final Placement placement, final Color background,
+                         final BufferedImageOp... ops) {
+
+        final boolean padded = placement.isPadded();
+
+        if (!opaque
+            || (padded
+                && (background == null || background.getAlpha() != 0xFF))) {
+            return sourceType == BufferedImage.TYPE_4BYTE_ABGR
+                   ? sourceType : BufferedImage.TYPE_INT_ARGB;
+        }
+
+        switch (sourceType) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_BGR:
+            case BufferedImage.TYPE_3BYTE_BGR:
+                return sourceType;
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if ((ops == null || ops.length == 0)
+                    && (!padded || (background.getRed() == background.getGreen()
+                                    && background.getGreen()
+                                       == background.getBlue()))) {
+                    return sourceType;
+                }
+                break;
+            default:
+                break;
+        }
+
+        return BufferedImage.TYPE_INT_RGB;
+    }
+
+
+    /**
+     * Scales specified image to exactly given size, the way the parent class
+     * does with {@link Mode#FIT_EXACT}, but into images acquired from given
+     * pool. The last step draws into given destination image, if any.
+     *
+     * @param destination the image of given size to draw the last step into;
+     * {@code null} for an image acquired from {@code pool}.
+     *
+     * @return {@code destination} or an image acquired from {@code pool}.
+     */
+    private static BufferedImage scale(final BufferedImage sourceImage,
+                                       Method scalingMethod,
+                                       final int width, final int height,
+                                       final RasterPool pool,
+                                       final BufferedImage destination,
+                                       final ResizeEvent event) {
+
+        final int imageType
+            = sourceImage.getTransparency() == Transparency.OPAQUE
+              ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        scalingMethod = scalingMethod(sourceImage.getWidth(),
+                                      sourceImage.getHeight(), scalingMethod,
+                                      width, height);
+
+        if (scalingMethod == Method.SPEED) {
+            return scale(sourceImage, width, height, imageType, pool,
+                         destination,
+                         RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR,
+                         event);
+        }
+
+        if (scalingMethod == Method.BALANCED
+            || width > sourceImage.getWidth()
+            || height > sourceImage.getHeight()) {
+            return scale(sourceImage, width, height, imageType, pool,
+                         destination,
+                         scalingMethod == Method.BALANCED
+                         ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                         : RenderingHints.VALUE_INTERPOLATION_BICUBIC,
+                         event);
+        }
+
+        // incremental, as the parent class does for QUALITY and ULTRA_QUALITY
+        final int fraction = scalingMethod == Method.ULTRA_QUALITY ? 7 : 2;
+        BufferedImage currentImage = sourceImage;
+        int currentWidth = sourceImage.getWidth();
+        int currentHeight = sourceImage.getHeight();
+        do {
+            final BufferedImage incrementalImage;
+            try {
+                if (currentImage != sourceImage) {
+                    Cancellation.check();
+                }
+                currentWidth = step(currentWidth, width, fraction);
+                currentHeight = step(currentHeight, height, fraction);
+                incrementalImage = scale(
+                    currentImage, currentWidth, currentHeight, imageType,
+                    pool, currentWidth == width && currentHeight == height
+                          ? destination : null,
+                    RenderingHints.VALUE_INTERPOLATION_BICUBIC, event);
+            } finally {
+                if (currentImage != sourceImage) {
+                    pool.release(currentImage);
+                }
+            }
+            currentImage = incrementalImage;
+        } while (currentWidth != width || currentHeight != height);
+
+        return currentImage;
+    }
+
+
+    /**
+     * Returns the factor by which the {@link BoxReducer} reduces an image of
+     * given size to given size with given scaling method. Only the
+     * incrementally scaling methods are replaced; a single nearest neighbor
+     * or bilinear step reads fewer source pixels than any box does.
+     *
+     * @return the factor; {@code 0} for scaling as usual.
+     */
+    static int factor(final int sourceWidth, final int sourceHeight,
+                      Method scalingMethod, final int width,
+                      final int height) {
+
+        scalingMethod = scalingMethod(sourceWidth, sourceHeight,
+                                      scalingMethod, width, height);
+
+        if (scalingMethod != Method.QUALITY
+            && scalingMethod != Method.ULTRA_QUALITY) {
+            return 0;
+        }
+
+        return BoxReducer.factor(sourceWidth, sourceHeight, width, height);
+    }
+
+
+    /**
+     * Returns given scaling method, or the one {@link Method#AUTOMATIC}
+     * stands for when scaling an image of given size to given size.
+     */
+    static Method scalingMethod(final int sourceWidth, final int sourceHeight,
+                                final Method scalingMethod, final int width,
+                                final int height) {
+
+        if (scalingMethod != Method.AUTOMATIC) {
+            return scalingMethod;
+        }
+
+        return determineScalingMethod(
+            width, height, sourceHeight / (float) sourceWidth);
+    }
+
+
+    /**
+     * Returns the next length of an incremental scaling step.
+     */
+    private static int step(final int current, final int target,
+                            final int fraction) {
+
+        if (current <= target) {
+            return current;
+        }
+
+        final int decrement = current / fraction;
+        return decrement == 0 ? target : Math.max(current - decrement, target);
+    }
+
+
+    /**
+     * Returns the peak bytes of intermediate images held at once while
+     * {@link #scale(BufferedImage, Method, int, int, RasterPool,
+     * BufferedImage, ResizeEvent)}
+     * scales an image of given size to given size, each as large as the
+     * pooled array it is backed by. The source image itself is not counted,
+     * nor are the reductions of {@link #factor(int, int, Method, int, int)},
+     * which need no intermediate image.
+     */
+    static long scaleBytes(final int sourceWidth, final int sourceHeight,
+                           Method scalingMethod, final int width,
+                           final int height) {
+
+        if (factor(sourceWidth, sourceHeight, scalingMethod, width, height)
+            > 0) {
+            return 0L;
+        }
+
+        scalingMethod = scalingMethod(sourceWidth, sourceHeight,
+                                      scalingMethod, width, height);
+
+        if (scalingMethod == Method.SPEED || scalingMethod == Method.BALANCED
+            || width > sourceWidth || height > sourceHeight) {
+            return RasterPool.bytes((long) width * height);
+        }
+
+        final int fraction = scalingMethod == Method.ULTRA_QUALITY ? 7 : 2;
+        long peak = 0L;
+        long previous = 0L;
+        int currentWidth = sourceWidth;
+        int currentHeight = sourceHeight;
+        do {
+            currentWidth = step(currentWidth, width, fraction);
+            currentHeight = step(currentHeight, height, fraction);
+            final long current
+                = RasterPool.bytes((long) currentWidth * currentHeight);
+            peak = Math.max(peak, previous + current);
+            previous = current;
+        } while (currentWidth != width || currentHeight != height);
+
+        return peak;
+    }
+
+
+    private static BufferedImage scale(final BufferedImage sourceImage,
+                                       final int width, final int height,
+                                       final int imageType,
+                                       final RasterPool pool,
+                                       final BufferedImage destination,
+                                       final Object interpolation,
+                                       final ResizeEvent event) {
+
+        final BufferedImage scaledImage;
+        if (destination == null) {
+            scaledImage = pool.acquire(width, height, imageType);
+            ResizeEvent.allocated(event, scaledImage);
+        } else {
+            scaledImage = destination;
+        }
+        final Graphics2D graphics = scaledImage.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                  interpolation);
+        graphics.drawImage(sourceImage, 0, 0, width, height, null);
+        graphics.dispose();
+
+        return scaledImage;
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param scalingMethod
+     * @param targetWidth
+     * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
+                                            final Method scalingMethod,
+                                            final int targetWidth,
+                                            final int targetHeight,
+                                            final float horizontalWeigth,
+                                            final float verticalWeight,
+                                            final BufferedImageOp... ops) {
+
+        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
+                      .0f, horizontalWeigth, verticalWeight, ops);
+    }
+
+
+    /**
+     * Resizes specified image to fit into the target box, filling the
+     * letterbox with given background color.
+     *
+     * @param sourceImage the source image to resize.
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param background the background color of the letterbox;
+     * {@code null} for transparent.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.Color,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
+                                            final Method scalingMethod,
+                                            final int targetWidth,
+                                            final int targetHeight,
+                                            final float horizontalWeigth,
+                                            final float verticalWeight,
+                                            final Color background,
+                                            final BufferedImageOp... ops) {
+
+        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
+                      .0f, horizontalWeigth, verticalWeight, background, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param filter
+     * @param targetWidth
+     * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
+                                            final Filter filter,
+                                            final int targetWidth,
+                                            final int targetHeight,
+                                            final float horizontalWeigth,
+                                            final float verticalWeight,
+                                            final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight, .0f,
+                      horizontalWeigth, verticalWeight, ops);
+    }
+
+
+    /**
+     * Resizes specified image with the separable resampling engine to fit
+     * into the target box, filling the letterbox with given background color.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param background the background color of the letterbox;
+     * {@code null} for transparent.
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.Color, java.util.concurrent.ForkJoinPool,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
+                                            final Filter filter,
+                                            final int targetWidth,
+                                            final int targetHeight,
+                                            final float horizontalWeigth,
+                                            final float verticalWeight,
+                                            final Color background,
+                                            final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight, .0f,
+                      horizontalWeigth, verticalWeight, background,
+                      (ForkJoinPool) null, ops);
+    }
+
+
+    /**
+     * Resizes specified image progressively to fit into the target box.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter of the final stage.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param listener the listener notified after each stage.
+     * @param ops
+     *
+     * @return the target image holding the last rendered stage.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * com.github.jinahya.imgscalr.ProgressListener,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
+                                            final Filter filter,
+                                            final int targetWidth,
+                                            final int targetHeight,
+                                            final float horizontalWeigth,
+                                            final float verticalWeight,
+                                            final ProgressListener listener,
+                                            final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight, .0f,
+                      horizontalWeigth, verticalWeight, listener, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param scalingMethod
+     * @param targetWidth
+     * @param targetHeight
+     * @param ops
+     *
+     * @return
+     *
+     * @see #resizeInbox(java.awt.image.BufferedImage,
+     * org.imgscalr.Scalr.Method, int, int, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInboxUpperLeft(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final BufferedImageOp... ops) {
+
+        return resizeInbox(sourceImage, scalingMethod, targetWidth,
+                           targetHeight, .0f, .0f, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param scalingMethod
+     * @param targetWidth
+     * @param targetHeight
+     * @param ops
+     *
+     * @return
+     *
+     * @see #resizeInbox(java.awt.image.BufferedImage,
+     * org.imgscalr.Scalr.Method, int, int, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInboxCenter(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final BufferedImageOp... ops) {
+
+        return resizeInbox(sourceImage, scalingMethod, targetWidth,
+                           targetHeight, .5f, .5f, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param scalingMethod
+     * @param targetWidth
+     * @param targetHeight
+     * @param ops
+     *
+     * @return
+     *
+     * @see #resizeInbox(java.awt.image.BufferedImage,
+     * org.imgscalr.Scalr.Method, int, int, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInboxLowerRight(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final BufferedImageOp... ops) {
+
+        return resizeInbox(sourceImage, scalingMethod, targetWidth,
+                           targetHeight, 1.0f, 1.0f, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param scalingMethod
+     * @param targetImage
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return given target image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * java.awt.image.BufferedImage, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
+                                            final Method scalingMethod,
+                                            final BufferedImage targetImage,
+                                            final float horizontalWeigth,
+                                            final float verticalWeight,
+                                            final BufferedImageOp... ops) {
+
+        return resize(sourceImage, scalingMethod, targetImage, .0f,
+                      horizontalWeigth, verticalWeight, ops);
+    }
+
+
+    public static BufferedImage resizeOutbox(final BufferedImage sourceImage,
+                                             final Method scalingMethod,
+                                             final int targetWidth,
+                                             final int targetHeight,
+                                             final float horizontalWeigth,
+                                             final float verticalWeight,
+                                             final BufferedImageOp... ops) {
+
+        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
+                      1.0f, horizontalWeigth, verticalWeight, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param filter
+     * @param targetWidth
+     * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeOutbox(final BufferedImage sourceImage,
+                                             final Filter filter,
+                                             final int targetWidth,
+                                             final int targetHeight,
+                                             final float horizontalWeigth,
+                                             final float verticalWeight,
+                                             final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight, 1.0f,
+                      horizontalWeigth, verticalWeight, ops);
+    }
+
+
+    /**
+     * Resizes specified image progressively to cover the target box.
+     *
+     * @param sourceImage the source image to resize.
+     * @param filter the resampling filter of the final stage.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param listener the listener notified after each stage.
+     * @param ops
+     *
+     * @return the target image holding the last rendered stage.
+     *
+     * @see #resize(java.awt.image.BufferedImage,
+     * com.github.jinahya.imgscalr.Filter, int, int, float, float, float,
+     * com.github.jinahya.imgscalr.ProgressListener,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeOutbox(final BufferedImage sourceImage,
+                                             final Filter filter,
+                                             final int targetWidth,
+                                             final int targetHeight,
+                                             final float horizontalWeigth,
+                                             final float verticalWeight,
+                                             final ProgressListener listener,
+                                             final BufferedImageOp... ops) {
+
+        return resize(sourceImage, filter, targetWidth, targetHeight, 1.0f,
+                      horizontalWeigth, verticalWeight, listener, ops);
+    }
+
+
+    public static BufferedImage resizeOutboxUpperLeft(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final BufferedImageOp... ops) {
+
+        return resizeOutbox(sourceImage, scalingMethod, targetWidth,
+                            targetHeight, .0f, .0f, ops);
+    }
+
+
+    public static BufferedImage resizeOutboxCenter(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final BufferedImageOp... ops) {
+
+        return resizeOutbox(sourceImage, scalingMethod, targetWidth,
+                            targetHeight, .5f, .5f, ops);
+    }
+
+
+    public static BufferedImage resizeOutboxLowerRight(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final BufferedImageOp... ops) {
+
+        return resizeOutbox(sourceImage, scalingMethod, targetWidth,
+                            targetHeight, 1.0f, 1.0f, ops);
+    }
+
+
+    /**
+     *
+     * @param sourceImage
+     * @param scalingMethod
+     * @param targetImage
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return given target image.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * java.awt.image.BufferedImage, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeOutbox(final BufferedImage sourceImage,
+                                             final Method scalingMethod,
+                                             final BufferedImage targetImage,
+                                             final float horizontalWeigth,
+                                             final float verticalWeight,
+                                             final BufferedImageOp... ops) {
+
+        return resize(sourceImage, scalingMethod, targetImage, 1.0f,
+                      horizontalWeigth, verticalWeight, ops);
+    }
+
+
+    /**
+     * Resizes specified image into many renditions at once. A single
+     * descending cascade of halved images is planned; each rendition is made
+     * from the smallest halved image which is still not smaller than the
+     * rendition's scaled size, and each halved image is released as soon as
+     * no further rendition needs it. Odd sizes are halved up, repeating the
+     * last column or row, and every rendition is of the type a single resize
+     * of the source image would give.
+     *
+     * @param sourceImage the source image to resize.
+     * @param renditions the renditions to make.
+     *
+     * @return a list of resized images in the order of {@code renditions}.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
+     */
+    public static List<BufferedImage> resize(
+        final BufferedImage sourceImage, final List<Rendition> renditions) {
+
+        final int size = renditions.size();
+        final int[] levels = new int[size];
+        final int[] types = new int[size];
+        final Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            final Rendition rendition = renditions.get(i);
+            final Placement placement = Placement.of(
+                sourceImage.getWidth(), sourceImage.getHeight(),
+                rendition.getTargetWidth(), rendition.getTargetHeight(),
+                rendition.getMagnificationFactor(),
+                rendition.getHorizontalWeight(),
+                rendition.getVerticalWeight());
+            int width = sourceImage.getWidth();
+            int height = sourceImage.getHeight();
+            while (width > 1 && height > 1
+                   && (width + 1) / 2 >= placement.getAuxiliaryWidth()
+                   && (height + 1) / 2 >= placement.getAuxiliaryHeight()) {
+                width = (width + 1) / 2;
+                height = (height + 1) / 2;
+                levels[i]++;
+            }
+            types[i] = imageType(sourceImage, placement, null);
+            indices[i] = i;
+        }
+        Arrays.sort(indices, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return Integer.compare(levels[o1], levels[o2]);
+            }
+        });
+
+        final RasterPool pool = rasterPool;
+        final BufferedImage[] resized = new BufferedImage[size];
+        BufferedImage levelImage = sourceImage;
+        int level = 0;
+        try {
+            for (final int index : indices) {
+                for (; level < levels[index]; level++) {
+                    final BufferedImage halvedImage = halve(levelImage, pool);
+                    if (levelImage != sourceImage) {
+                        pool.release(levelImage);
+                    }
+                    levelImage = halvedImage;
+                }
+                final Rendition rendition = renditions.get(index);
+                resized[index] = resize(levelImage, ResizePlan.of(
+                    levelImage.getWidth(), levelImage.getHeight(),
+                    rendition.getTargetWidth(), rendition.getTargetHeight(),
+                    rendition.getMagnificationFactor(),
+                    rendition.getHorizontalWeight(),
+                    rendition.getVerticalWeight(),
+                    rendition.getScalingMethod()), types[index], null, null);
+            }
+        } finally {
+            if (levelImage != sourceImage) {
+                pool.release(levelImage);
+            }
+        }
+
+        return Arrays.asList(resized);
+    }
+
+
+    /**
+     * Halves specified image, rounding odd sizes up, by averaging each 2x2
+     * block with the {@link BoxReducer}.
+     *
+     * @return an image acquired from {@code pool}.
+     */
+    private static BufferedImage halve(final BufferedImage sourceImage,
+                                       final RasterPool pool) {
+
+        final BufferedImage halvedImage = pool.acquire(
+            (sourceImage.getWidth() + 1) / 2,
+            (sourceImage.getHeight() + 1) / 2,
+            sourceImage.getColorModel().hasAlpha()
+            ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        try {
+            BoxReducer.reduce(sourceImage, 2, halvedImage, 0, 0, pool);
+        } catch (final RuntimeException re) {
+            pool.release(halvedImage);
+            throw re;
+        }
+
+        return halvedImage;
+    }
+
+
+    /**
+     * Reads and resizes the first image of specified stream preserving the
+     * proportion and relocates by given arguments. Only the region of the
+     * source image visible in the target box is decoded, subsampled down to
+     * about twice the scaled size, and then resampled to the exact size with
+     * given scaling method.
      *
-     * @param sourceImage the source image to resize.
+     * @param sourceStream the stream to read the source image from.
      * @param scalingMethod the scaling method.
      * @param targetWidth the target width.
      * @param targetHeight the target height.
-     * @param magnificationFactor the magnification factor. {@code 1.0f} for
-     * fitting into the box, {@code 1.0f} for fit to max width or height.
-     * @param horizontalWeigth the horizontal weight. {@code 1.0f} for aligning
-     * to the left align, {@code 1.0f} for aligning to the right.
-     * @param verticalWeight the vertical weight. {@code 1.0f} for aligning to
-     * the top, {@code 1.0f} for aligning to the bottom.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
      * @param ops
      *
      * @return a resized image.
+     *
+     * @throws IOException if an I/O error occurs or no reader is found.
+     *
+     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
+     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
      */
-    public static BufferedImage resize(final BufferedImage sourceImage,
+    public static BufferedImage resize(final ImageInputStream sourceStream,
                                        final Method scalingMethod,
                                        final int targetWidth,
                                        final int targetHeight,
                                        final float magnificationFactor,
                                        final float horizontalWeigth,
                                        final float verticalWeight,
-                                       final BufferedImageOp... ops) {
+                                       final BufferedImageOp... ops)
+        throws IOException {
 
-        final int sourceWidth = sourceImage.getWidth();
-        final int sourceHeight = sourceImage.getHeight();
+        final Iterator<ImageReader> readers
+            = ImageIO.getImageReaders(sourceStream);
+        if (!readers.hasNext()) {
+            throw new IOException("no image reader found");
+        }
+        final ResizeListener listener = resizeListener;
+        final long time
+            = listener == ResizeListener.NOOP ? 0L : System.nanoTime();
 
-        final double widthRatio = targetWidth / (double) sourceWidth;
-        final double heightRatio = targetHeight / (double) sourceHeight;
+        final ImageReader reader = readers.next();
+        try {
+            reader.setInput(sourceStream, true, true);
 
-        final double minRatio = Math.min(widthRatio, heightRatio);
-        final double maxRatio = Math.max(widthRatio, heightRatio);
+            final Placement placement = Placement.of(
+                reader.getWidth(0), reader.getHeight(0), targetWidth,
+                targetHeight, magnificationFactor, horizontalWeigth,
+                verticalWeight);
 
-        final int auxiliaryWidth
-            = (int) (magnificationFactor == .0f
-                     ? sourceWidth * minRatio
-                     : (sourceWidth * maxRatio) * magnificationFactor);
-        final int auxiliaryHeight
-            = (int) (magnificationFactor == .0f
-                     ? sourceHeight * minRatio
-                     : (sourceHeight * maxRatio) * magnificationFactor);
+            final int columnPeriod = subsampling(placement.getRegionWidth(),
+                                                 placement.getScaledWidth());
+            final int rowPeriod = subsampling(placement.getRegionHeight(),
+                                              placement.getScaledHeight());
+            final ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(
+                placement.getRegionX(), placement.getRegionY(),
+                placement.getRegionWidth(), placement.getRegionHeight()));
+            // the center of each period, as the BandResampler samples
+            final int columnOffset = columnPeriod / 2;
+            final int rowOffset = rowPeriod / 2;
+            param.setSourceSubsampling(columnPeriod, rowPeriod, columnOffset,
+                                       rowOffset);
 
-//        final int imageType
-//            = auxiliaryImage.getTransparency() == Transparency.OPAQUE
-//              ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
-        final int imageType = BufferedImage.TYPE_INT_ARGB;
-        final BufferedImage targetImage = new BufferedImage(
-            targetWidth, targetHeight, imageType);
+            try (MemoryBudget.Permit permit = admit(
+                placement, scalingMethod,
+                (placement.getRegionWidth() - columnOffset + columnPeriod - 1)
+                / columnPeriod,
+                (placement.getRegionHeight() - rowOffset + rowPeriod - 1)
+                / rowPeriod)) {
 
-        final BufferedImage auxiliaryImage = resize(
-            sourceImage, scalingMethod, Mode.FIT_EXACT, auxiliaryWidth,
-            auxiliaryHeight);
+                final BufferedImage regionImage = reader.read(0, param);
+                final long decoded
+                    = listener == ResizeListener.NOOP ? 0L : System.nanoTime();
 
-        final int x = (int) ((targetWidth - auxiliaryWidth) * horizontalWeigth);
-        final int y = (int) ((targetHeight - auxiliaryHeight) * verticalWeight);
-        final Graphics2D graphics = targetImage.createGraphics();
-        graphics.drawImage(auxiliaryImage, x, y, null);
-        graphics.dispose();
+                final BufferedImage targetImage = new BufferedImage(
+                    targetWidth, targetHeight,
+                    imageType(regionImage, placement, null, ops));
+                final ResizeEvent event = listener == ResizeListener.NOOP
+                                          ? null
+                                          : new ResizeEvent(
+                                              scalingMethod, null,
+                                              reader.getWidth(0),
+                                              reader.getHeight(0),
+                                              targetImage);
+                if (event != null) {
+                    event.add(ResizeEvent.Phase.DECODE, decoded - time);
+                    ResizeEvent.lap(event, ResizeEvent.Phase.ALLOCATE,
+                                    decoded);
+                }
+                final Operations operations = Operations.of(
+                    targetImage.getColorModel().hasAlpha(), ops);
+                composite(regionImage, scalingMethod, placement, targetImage,
+                          null, operations, event);
+                final long composited = ResizeEvent.time(event);
+                final long regionBytes = RenditionCache.bytes(regionImage);
+                regionImage.flush();
+                MemoryBudget.released(regionBytes);
+                ResizeEvent.lap(event, ResizeEvent.Phase.RELEASE, composited);
+
+                return apply(operations, targetImage, false, listener, event);
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
 
-        auxiliaryImage.flush();
 
-        return targetImage;
+    /**
+     * Reads the first image of specified stream, resizes it preserving the
+     * proportion, relocates by given arguments and writes the result to
+     * specified writer, without ever holding the whole source image. The
+     * source is decoded in bands of rows, subsampled down to about twice the
+     * scaled size, and resampled with given filter through a ring buffer of
+     * rows; peak memory depends on the widths and the filter height rather
+     * than on the source height, so that images too large to be decoded at
+     * once can be resized.
+     * <p>
+     * If the writer can write an empty image (e.g. the TIFF writer) the
+     * target image is written band by band; otherwise it is collected and
+     * written at the end. Padded areas are transparent, or black if the
+     * writer can not encode alpha (e.g. the JPEG writer).
+     *
+     * @param sourceStream the stream to read the source image from.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param targetWriter the writer to write the target image with; its
+     * output must be set and is neither closed nor disposed by this method.
+     *
+     * @throws IOException if an I/O error occurs or no reader is found.
+     *
+     * @see #resize(javax.imageio.stream.ImageInputStream, Filter, int, int,
+     * float, float, float, java.awt.Color, javax.imageio.ImageWriter)
+     */
+    public static void resize(final ImageInputStream sourceStream,
+                              final Filter filter, final int targetWidth,
+                              final int targetHeight,
+                              final float magnificationFactor,
+                              final float horizontalWeigth,
+                              final float verticalWeight,
+                              final ImageWriter targetWriter)
+        throws IOException {
+
+        resize(sourceStream, filter, targetWidth, targetHeight,
+               magnificationFactor, horizontalWeigth, verticalWeight, null,
+               targetWriter);
     }
 
 
     /**
+     * Reads the first image of specified stream, resizes it preserving the
+     * proportion, relocates by given arguments and writes the result, padded
+     * with given background color, to specified writer, the way
+     * {@link #resize(javax.imageio.stream.ImageInputStream, Filter, int, int,
+     * float, float, float, javax.imageio.ImageWriter)} does. If the writer
+     * can not encode alpha (e.g. the JPEG writer) the target image is opaque
+     * and translucent source pixels are composited onto the background.
      *
-     * @param sourceImage
+     * @param sourceStream the stream to read the source image from.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param background the background color; {@code null} for transparent,
+     * or black if the writer can not encode alpha.
+     * @param targetWriter the writer to write the target image with; its
+     * output must be set and is neither closed nor disposed by this method.
+     *
+     * @throws IOException if an I/O error occurs or no reader is found.
+     */
+    public static void resize(final ImageInputStream sourceStream,
+                              final Filter filter, final int targetWidth,
+                              final int targetHeight,
+                              final float magnificationFactor,
+                              final float horizontalWeigth,
+                              final float verticalWeight,
+                              final Color background,
+                              final ImageWriter targetWriter)
+        throws IOException {
+
+        if (targetWriter == null) {
+            throw new NullPointerException("targetWriter");
+        }
+
+        final Iterator<ImageReader> readers
+            = ImageIO.getImageReaders(sourceStream);
+        if (!readers.hasNext()) {
+            throw new IOException("no image reader found");
+        }
+
+        final ImageReader reader = readers.next();
+        try {
+            reader.setInput(sourceStream, true, true);
+
+            final Placement placement = Placement.of(
+                reader.getWidth(0), reader.getHeight(0), targetWidth,
+                targetHeight, magnificationFactor, horizontalWeigth,
+                verticalWeight);
+
+            final BandResampler resampler = BandResampler.of(
+                placement, filter,
+                subsampling(placement.getRegionWidth(),
+                            placement.getScaledWidth()),
+                subsampling(placement.getRegionHeight(),
+                            placement.getScaledHeight()));
+            if (resampler == null) {
+                final BufferedImage targetImage = new BufferedImage(
+                    targetWidth, targetHeight, BandResampler.targetType(
+                        targetWriter, false, true, background));
+                BandResampler.fill(targetImage, background);
+                targetWriter.write(targetImage);
+                return;
+            }
+
+            final long bytes = resampler.getBytes(
+                targetWidth, targetWriter.canWriteEmpty()
+                             ? BandResampler.TARGET_BAND : targetHeight);
+            try (MemoryBudget.Permit permit = admit(bytes)) {
+                resampler.resample(reader, 0, targetWidth, targetHeight,
+                                   background, targetWriter, rasterPool);
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
+
+
+    /**
+     * Reads the frames of specified stream one by one, e.g. of an animated
+     * GIF or a multi-page TIFF, resizes each of them preserving the
+     * proportion, relocates by given arguments and writes it to specified
+     * writer before the next frame is read. The frames of a GIF are composed
+     * onto a single canvas first, following their disposal methods, so that
+     * every target frame is whole; the canvas and the target image are
+     * reused across frames, and so is the plan while the frame size stays.
+     * <p>
+     * The metadata of each frame (e.g. the delay and the looping of a GIF)
+     * is carried over to the target frame as far as the writer can convert
+     * it. If the writer can not write sequences only the first frame is
+     * written.
+     *
+     * @param sourceStream the stream to read the source frames from.
+     * @param scalingMethod the scaling method.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param targetWriter the writer to write the target frames with; its
+     * output must be set and is neither closed nor disposed by this method.
+     * @param ops
+     *
+     * @return the number of frames written.
+     *
+     * @throws IOException if an I/O error occurs, no reader is found or the
+     * stream has no frame.
+     */
+    public static int resizeFrames(final ImageInputStream sourceStream,
+                                   final Method scalingMethod,
+                                   final int targetWidth,
+                                   final int targetHeight,
+                                   final float magnificationFactor,
+                                   final float horizontalWeigth,
+                                   final float verticalWeight,
+                                   final ImageWriter targetWriter,
+                                   final BufferedImageOp... ops)
+        throws IOException {
+
+        if (scalingMethod == null) {
+            throw new NullPointerException("scalingMethod");
+        }
+
+        return resizeFrames(sourceStream, scalingMethod, null, targetWidth,
+                            targetHeight, magnificationFactor,
+                            horizontalWeigth, verticalWeight, targetWriter,
+                            ops);
+    }
+
+
+    /**
+     * Reads the frames of specified stream one by one, resizes each of them
+     * with the separable resampling engine and writes it to specified writer
+     * before the next frame is read.
+     *
+     * @param sourceStream the stream to read the source frames from.
+     * @param filter the resampling filter.
+     * @param targetWidth the target width.
+     * @param targetHeight the target height.
+     * @param magnificationFactor the magnification factor.
+     * @param horizontalWeigth the horizontal weight.
+     * @param verticalWeight the vertical weight.
+     * @param targetWriter the writer to write the target frames with; its
+     * output must be set and is neither closed nor disposed by this method.
+     * @param ops
+     *
+     * @return the number of frames written.
+     *
+     * @throws IOException if an I/O error occurs, no reader is found or the
+     * stream has no frame.
+     *
+     * @see #resizeFrames(javax.imageio.stream.ImageInputStream,
+     * org.imgscalr.Scalr.Method, int, int, float, float, float,
+     * javax.imageio.ImageWriter, java.awt.image.BufferedImageOp...)
+     */
+    public static int resizeFrames(final ImageInputStream sourceStream,
+                                   final Filter filter,
+                                   final int targetWidth,
+                                   final int targetHeight,
+                                   final float magnificationFactor,
+                                   final float horizontalWeigth,
+                                   final float verticalWeight,
+                                   final ImageWriter targetWriter,
+                                   final BufferedImageOp... ops)
+        throws IOException {
+
+        if (filter == null) {
+            throw new NullPointerException("filter");
+        }
+
+        return resizeFrames(sourceStream, null, filter, targetWidth,
+                            targetHeight, magnificationFactor,
+                            horizontalWeigth, verticalWeight, targetWriter,
+                            ops);
+    }
+
+
+    private static int resizeFrames(final ImageInputStream sourceStream,
+                                    final Method scalingMethod,
+                                    final Filter filter,
+                                    final int targetWidth,
+                                    final int targetHeight,
+                                    final float magnificationFactor,
+                                    final float horizontalWeigth,
+                                    final float verticalWeight,
+                                    final ImageWriter targetWriter,
+                                    final BufferedImageOp... ops)
+        throws IOException {
+
+        if (targetWriter == null) {
+            throw new NullPointerException("targetWriter");
+        }
+
+        final Iterator<ImageReader> readers
+            = ImageIO.getImageReaders(sourceStream);
+        if (!readers.hasNext()) {
+            throw new IOException("no image reader found");
+        }
+
+        final ImageReader reader = readers.next();
+        try {
+            reader.setInput(sourceStream, true, false);
+
+            final Frames frames = new Frames(reader);
+            BufferedImage frameImage = frames.next();
+            if (frameImage == null) {
+                throw new IOException("no frame");
+            }
+
+            ResizePlan plan = plan(frameImage, scalingMethod, filter,
+                                   targetWidth, targetHeight,
+                                   magnificationFactor, horizontalWeigth,
+                                   verticalWeight);
+            // a single permit, estimated from the first frame, for all
+            // frames; each frame is resized under it without being admitted
+            // again
+            try (MemoryBudget.Permit permit = admit(
+                4L * frames.getWidth() * frames.getHeight()
+                + 4L * targetWidth * targetHeight
+                + (memoryBudget == MemoryBudget.UNLIMITED
+                   ? 0L : MemoryBudget.intermediateBytes(plan)))) {
+
+                final boolean sequence = targetWriter.canWriteSequence();
+                final ImageWriteParam param
+                    = targetWriter.getDefaultWriteParam();
+                BufferedImage targetImage = null;
+                boolean prepared = false;
+                int count = 0;
+                try {
+                    do {
+                        Cancellation.check();
+                        if (!plan.matches(frameImage)) {
+                            plan = plan(frameImage, scalingMethod, filter,
+                                        targetWidth, targetHeight,
+                                        magnificationFactor,
+                                        horizontalWeigth, verticalWeight);
+                        }
+                        if (targetImage == null) {
+                            targetImage = new BufferedImage(
+                                targetWidth, targetHeight,
+                                imageType(frameImage, plan.getPlacement(),
+                                          null, ops));
+                            if (sequence) {
+                                targetWriter.prepareWriteSequence(
+                                    frames.streamMetadata(targetWriter,
+                                                          param));
+                                prepared = true;
+                            }
+                        }
+                        resizeAdmitted(frameImage, plan, targetImage, null,
+                                       ops);
+                        final IIOImage image = new IIOImage(
+                            targetImage, null,
+                            frames.imageMetadata(targetWriter, param,
+                                                 targetImage));
+                        if (!sequence) {
+                            targetWriter.write(null, image, param);
+                            return 1;
+                        }
+                        targetWriter.writeToSequence(image, param);
+                        count++;
+                    } while ((frameImage = frames.next()) != null);
+                } catch (final Throwable t) {
+                    // leaves the output well-formed with the frames so far
+                    if (prepared) {
+                        try {
+                            targetWriter.endWriteSequence();
+                        } catch (final IOException | RuntimeException e) {
+                            t.addSuppressed(e);
+                        }
+                    }
+                    throw t;
+                }
+                targetWriter.endWriteSequence();
+
+                return count;
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
+
+
+    /**
+     * Plans a resize of given frame with either given scaling method or,
+     * when not {@code null}, given filter.
+     */
+    private static ResizePlan plan(final BufferedImage frameImage,
+                                   final Method scalingMethod,
+                                   final Filter filter,
+                                   final int targetWidth,
+                                   final int targetHeight,
+                                   final float magnificationFactor,
+                                   final float horizontalWeigth,
+                                   final float verticalWeight) {
+
+        return filter == null
+               ? ResizePlan.of(frameImage.getWidth(), frameImage.getHeight(),
+                               targetWidth, targetHeight, magnificationFactor,
+                               horizontalWeigth, verticalWeight,
+                               scalingMethod)
+               : ResizePlan.of(frameImage.getWidth(), frameImage.getHeight(),
+                               targetWidth, targetHeight, magnificationFactor,
+                               horizontalWeigth, verticalWeight, filter);
+    }
+
+
+    /**
+     * Returns the subsampling period which keeps at least twice as many
+     * pixels as needed.
+     */
+    private static int subsampling(final int regionLength,
+                                   final int scaledLength) {
+
+        return Math.max(1, regionLength / (scaledLength * 2));
+    }
+
+
+    /**
+     *
+     * @param sourceStream
      * @param scalingMethod
      * @param targetWidth
      * @param targetHeight
@@ -112,134 +2209,314 @@ public strictfp class Scalr extends org.imgscalr.Scalr {
      *
      * @return a resized image.
      *
-     * @see #resize(java.awt.image.BufferedImage, org.imgscalr.Scalr.Method,
-     * int, int, float, float, float, java.awt.image.BufferedImageOp...)
+     * @throws IOException if an I/O error occurs.
+     *
+     * @see #resize(javax.imageio.stream.ImageInputStream,
+     * org.imgscalr.Scalr.Method, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
      */
-    public static BufferedImage resizeInbox(final BufferedImage sourceImage,
-                                            final Method scalingMethod,
-                                            final int targetWidth,
-                                            final int targetHeight,
-                                            final float horizontalWeigth,
-                                            final float verticalWeight,
-                                            final BufferedImageOp... ops) {
+    public static BufferedImage resizeInbox(
+        final ImageInputStream sourceStream, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final float horizontalWeigth, final float verticalWeight,
+        final BufferedImageOp... ops)
+        throws IOException {
 
-        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
+        return resize(sourceStream, scalingMethod, targetWidth, targetHeight,
                       .0f, horizontalWeigth, verticalWeight, ops);
     }
 
 
     /**
      *
-     * @param sourceImage
+     * @param sourcePath
      * @param scalingMethod
      * @param targetWidth
      * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
      * @param ops
      *
-     * @return
+     * @return a resized image.
      *
-     * @see #resizeInbox(java.awt.image.BufferedImage,
+     * @throws IOException if an I/O error occurs.
+     *
+     * @see #resizeInbox(javax.imageio.stream.ImageInputStream,
      * org.imgscalr.Scalr.Method, int, int, float, float,
      * java.awt.image.BufferedImageOp...)
      */
-    public static BufferedImage resizeInboxUpperLeft(
-        final BufferedImage sourceImage, final Method scalingMethod,
+    public static BufferedImage resizeInbox(
+        final Path sourcePath, final Method scalingMethod,
         final int targetWidth, final int targetHeight,
-        final BufferedImageOp... ops) {
+        final float horizontalWeigth, final float verticalWeight,
+        final BufferedImageOp... ops)
+        throws IOException {
 
-        return resizeInbox(sourceImage, scalingMethod, targetWidth,
-                           targetHeight, .0f, .0f, ops);
+        try (ImageInputStream sourceStream
+            = ImageIO.createImageInputStream(sourcePath.toFile())) {
+            if (sourceStream == null) {
+                throw new IOException("no image input stream");
+            }
+            return resizeInbox(sourceStream, scalingMethod, targetWidth,
+                               targetHeight, horizontalWeigth, verticalWeight,
+                               ops);
+        }
     }
 
 
     /**
      *
-     * @param sourceImage
+     * @param sourceStream the input stream; not closed by this method.
      * @param scalingMethod
      * @param targetWidth
      * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
      * @param ops
      *
-     * @return
+     * @return a resized image.
      *
-     * @see #resizeInbox(java.awt.image.BufferedImage,
+     * @throws IOException if an I/O error occurs.
+     *
+     * @see #resizeInbox(javax.imageio.stream.ImageInputStream,
      * org.imgscalr.Scalr.Method, int, int, float, float,
      * java.awt.image.BufferedImageOp...)
      */
-    public static BufferedImage resizeInboxCenter(
-        final BufferedImage sourceImage, final Method scalingMethod,
+    public static BufferedImage resizeInbox(
+        final InputStream sourceStream, final Method scalingMethod,
         final int targetWidth, final int targetHeight,
-        final BufferedImageOp... ops) {
+        final float horizontalWeigth, final float verticalWeight,
+        final BufferedImageOp... ops)
+        throws IOException {
 
-        return resizeInbox(sourceImage, scalingMethod, targetWidth,
-                           targetHeight, .5f, .5f, ops);
+        try (ImageInputStream imageStream
+            = ImageIO.createImageInputStream(sourceStream)) {
+            if (imageStream == null) {
+                throw new IOException("no image input stream");
+            }
+            return resizeInbox(imageStream, scalingMethod, targetWidth,
+                               targetHeight, horizontalWeigth, verticalWeight,
+                               ops);
+        }
     }
 
 
     /**
      *
-     * @param sourceImage
+     * @param sourceStream
      * @param scalingMethod
      * @param targetWidth
      * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
      * @param ops
      *
-     * @return
+     * @return a resized image.
      *
-     * @see #resizeInbox(java.awt.image.BufferedImage,
-     * org.imgscalr.Scalr.Method, int, int, float, float,
+     * @throws IOException if an I/O error occurs.
+     *
+     * @see #resize(javax.imageio.stream.ImageInputStream,
+     * org.imgscalr.Scalr.Method, int, int, float, float, float,
      * java.awt.image.BufferedImageOp...)
      */
-    public static BufferedImage resizeInboxLowerRight(
-        final BufferedImage sourceImage, final Method scalingMethod,
+    public static BufferedImage resizeOutbox(
+        final ImageInputStream sourceStream, final Method scalingMethod,
         final int targetWidth, final int targetHeight,
-        final BufferedImageOp... ops) {
+        final float horizontalWeigth, final float verticalWeight,
+        final BufferedImageOp... ops)
+        throws IOException {
 
-        return resizeInbox(sourceImage, scalingMethod, targetWidth,
-                           targetHeight, 1.0f, 1.0f, ops);
+        return resize(sourceStream, scalingMethod, targetWidth, targetHeight,
+                      1.0f, horizontalWeigth, verticalWeight, ops);
     }
 
 
-    public static BufferedImage resizeOutbox(final BufferedImage sourceImage,
-                                             final Method scalingMethod,
-                                             final int targetWidth,
-                                             final int targetHeight,
-                                             final float horizontalWeigth,
-                                             final float verticalWeight,
-                                             final BufferedImageOp... ops) {
+    /**
+     *
+     * @param sourcePath
+     * @param scalingMethod
+     * @param targetWidth
+     * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @throws IOException if an I/O error occurs.
+     *
+     * @see #resizeOutbox(javax.imageio.stream.ImageInputStream,
+     * org.imgscalr.Scalr.Method, int, int, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeOutbox(
+        final Path sourcePath, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final float horizontalWeigth, final float verticalWeight,
+        final BufferedImageOp... ops)
+        throws IOException {
 
-        return resize(sourceImage, scalingMethod, targetWidth, targetHeight,
-                      1.0f, horizontalWeigth, verticalWeight, ops);
+        try (ImageInputStream sourceStream
+            = ImageIO.createImageInputStream(sourcePath.toFile())) {
+            if (sourceStream == null) {
+                throw new IOException("no image input stream");
+            }
+            return resizeOutbox(sourceStream, scalingMethod, targetWidth,
+                                targetHeight, horizontalWeigth, verticalWeight,
+                                ops);
+        }
     }
 
 
-    public static BufferedImage resizeOutboxUpperLeft(
-        final BufferedImage sourceImage, final Method scalingMethod,
+    /**
+     *
+     * @param sourceStream the input stream; not closed by this method.
+     * @param scalingMethod
+     * @param targetWidth
+     * @param targetHeight
+     * @param horizontalWeigth
+     * @param verticalWeight
+     * @param ops
+     *
+     * @return a resized image.
+     *
+     * @throws IOException if an I/O error occurs.
+     *
+     * @see #resizeOutbox(javax.imageio.stream.ImageInputStream,
+     * org.imgscalr.Scalr.Method, int, int, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static BufferedImage resizeOutbox(
+        final InputStream sourceStream, final Method scalingMethod,
         final int targetWidth, final int targetHeight,
-        final BufferedImageOp... ops) {
+        final float horizontalWeigth, final float verticalWeight,
+        final BufferedImageOp... ops)
+        throws IOException {
 
-        return resizeOutbox(sourceImage, scalingMethod, targetWidth,
-                            targetHeight, .0f, .0f, ops);
+        try (ImageInputStream imageStream
+            = ImageIO.createImageInputStream(sourceStream)) {
+            if (imageStream == null) {
+                throw new IOException("no image input stream");
+            }
+            return resizeOutbox(imageStream, scalingMethod, targetWidth,
+                                targetHeight, horizontalWeigth, verticalWeight,
+                                ops);
+        }
     }
 
 
-    public static BufferedImage resizeOutboxCenter(
-        final BufferedImage sourceImage, final Method scalingMethod,
-        final int targetWidth, final int targetHeight,
-        final BufferedImageOp... ops) {
+    /**
+     * Returns the pool from which intermediate images are acquired.
+     *
+     * @return the current raster pool.
+     */
+    public static RasterPool getRasterPool() {
 
-        return resizeOutbox(sourceImage, scalingMethod, targetWidth,
-                            targetHeight, .5f, .5f, ops);
+        return rasterPool;
     }
 
 
-    public static BufferedImage resizeOutboxLowerRight(
-        final BufferedImage sourceImage, final Method scalingMethod,
-        final int targetWidth, final int targetHeight,
-        final BufferedImageOp... ops) {
+    /**
+     * Replaces the pool from which intermediate images are acquired. Use a
+     * pool of {@code 0L} bytes for disabling pooling.
+     *
+     * @param rasterPool the new raster pool.
+     */
+    public static void setRasterPool(final RasterPool rasterPool) {
 
-        return resizeOutbox(sourceImage, scalingMethod, targetWidth,
-                            targetHeight, 1.0f, 1.0f, ops);
+        if (rasterPool == null) {
+            throw new NullPointerException("rasterPool");
+        }
+
+        Scalr.rasterPool = rasterPool;
+    }
+
+
+    /**
+     * Returns the listener notified after each resize.
+     *
+     * @return the current resize listener.
+     */
+    public static ResizeListener getResizeListener() {
+
+        return resizeListener;
+    }
+
+
+    /**
+     * Replaces the listener notified after each resize. Nothing is measured
+     * while {@link ResizeListener#NOOP}, the default, is installed.
+     *
+     * @param resizeListener the new resize listener.
+     */
+    public static void setResizeListener(
+        final ResizeListener resizeListener) {
+
+        if (resizeListener == null) {
+            throw new NullPointerException("resizeListener");
+        }
+
+        Scalr.resizeListener = resizeListener;
+    }
+
+
+    /**
+     * Returns the budget against which resizes are admitted.
+     *
+     * @return the current memory budget.
+     */
+    public static MemoryBudget getMemoryBudget() {
+
+        return memoryBudget;
+    }
+
+
+    /**
+     * Replaces the budget against which resizes are admitted. Nothing is
+     * estimated while {@link MemoryBudget#UNLIMITED}, the default, is
+     * installed.
+     *
+     * @param memoryBudget the new memory budget.
+     */
+    public static void setMemoryBudget(final MemoryBudget memoryBudget) {
+
+        if (memoryBudget == null) {
+            throw new NullPointerException("memoryBudget");
+        }
+
+        Scalr.memoryBudget = memoryBudget;
+    }
+
+
+    /**
+     * Returns the model which learns the cost of each resize with a scaling
+     * method into a new image.
+     *
+     * @return the current latency budget.
+     */
+    public static LatencyBudget getLatencyBudget() {
+
+        return latencyBudget;
+    }
+
+
+    /**
+     * Replaces the model which learns the cost of each resize with a scaling
+     * method into a new image.
+     *
+     * @param latencyBudget the new latency budget.
+     *
+     * @see #resize(java.awt.image.BufferedImage, long,
+     * java.util.concurrent.TimeUnit, int, int, float, float, float,
+     * java.awt.image.BufferedImageOp...)
+     */
+    public static void setLatencyBudget(final LatencyBudget latencyBudget) {
+
+        if (latencyBudget == null) {
+            throw new NullPointerException("latencyBudget");
+        }
+
+        Scalr.latencyBudget = latencyBudget;
     }
 
 
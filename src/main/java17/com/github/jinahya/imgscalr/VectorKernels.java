@@ -0,0 +1,266 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * Kernels vectorized with the {@code jdk.incubator.vector} API. Each vector
+ * holds one channel of as many pixels as the preferred species has lanes;
+ * the remainder of each row is left to the scalar kernels.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+final class VectorKernels extends Kernels {
+
+
+    private static final VectorSpecies<Integer> SPECIES
+        = IntVector.SPECIES_PREFERRED;
+
+
+    /**
+     * {@code 1.5 * 2^23}; the ulp of the {@code float}s around it is
+     * {@code 1}.
+     */
+    private static final float MAGIC = 12582912.0f;
+
+
+    private static final int MAGIC_BITS = Float.floatToRawIntBits(MAGIC);
+
+
+    private static final float TRUNCATION = 1.0f / 1024.0f - .5f;
+
+
+    VectorKernels() {
+
+        super();
+
+        if (SPECIES.length() < 4) {
+            throw new UnsupportedOperationException("species: " + SPECIES);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc} Source pixels are gathered for as many target pixels as
+     * there are lanes at once; taps beyond the count of each target pixel
+     * are masked off.
+     */
+    @Override
+    void horizontal(final Kernel kernel, final int[] source,
+                    final int[] target, final int offset) {
+
+        final int length = kernel.getLength();
+        final int minimum = kernel.getMinimum();
+        final int taps = kernel.taps;
+        final int[] firsts = kernel.firsts;
+        final int[] counts = kernel.counts;
+        final int[] weights = kernel.weights;
+        final int lanes = SPECIES.length();
+        final int[] strides = kernel.strides(lanes);
+        final int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            final IntVector count = IntVector.fromArray(SPECIES, counts, i);
+            IntVector a = IntVector.broadcast(SPECIES, Kernel.HALF);
+            IntVector r = a;
+            IntVector g = a;
+            IntVector b = a;
+            for (int k = 0; k < taps; k++) {
+                final VectorMask<Integer> mask
+                    = count.compare(VectorOperators.GT, k);
+                if (!mask.anyTrue()) {
+                    break;
+                }
+                final IntVector p = IntVector.fromArray(
+                    SPECIES, source, k - minimum, firsts, i, mask);
+                final IntVector weight = IntVector.fromArray(
+                    SPECIES, weights, i * taps + k, strides, 0, mask);
+                a = a.add(p.lanewise(VectorOperators.LSHR, 24).mul(weight));
+                r = r.add(p.lanewise(VectorOperators.LSHR, 16).and(0xFF)
+                    .mul(weight));
+                g = g.add(p.lanewise(VectorOperators.LSHR, 8).and(0xFF)
+                    .mul(weight));
+                b = b.add(p.and(0xFF).mul(weight));
+            }
+            pack(a, r, g, b).intoArray(target, offset + i);
+        }
+        horizontal(kernel, source, target, offset, i);
+    }
+
+
+    @Override
+    void vertical(final Kernel kernel, final int index, final int[] source,
+                  final int[] offsets, final int width, final int[] target) {
+
+        final int count = kernel.counts[index];
+        final int w = index * kernel.taps;
+        final int[] weights = kernel.weights;
+        final int lanes = SPECIES.length();
+        final int bound = SPECIES.loopBound(width);
+        int x = 0;
+        for (; x < bound; x += lanes) {
+            IntVector a = IntVector.broadcast(SPECIES, Kernel.HALF);
+            IntVector r = a;
+            IntVector g = a;
+            IntVector b = a;
+            for (int k = 0; k < count; k++) {
+                final IntVector p
+                    = IntVector.fromArray(SPECIES, source, offsets[w + k] + x);
+                final int weight = weights[w + k];
+                a = a.add(p.lanewise(VectorOperators.LSHR, 24).mul(weight));
+                r = r.add(p.lanewise(VectorOperators.LSHR, 16).and(0xFF)
+                    .mul(weight));
+                g = g.add(p.lanewise(VectorOperators.LSHR, 8).and(0xFF)
+                    .mul(weight));
+                b = b.add(p.and(0xFF).mul(weight));
+            }
+            pack(a, r, g, b).intoArray(target, x);
+        }
+        vertical(kernel, index, source, offsets, width, target, x);
+    }
+
+
+    /**
+     * {@inheritDoc} Each channel is multiplied as
+     * {@code (t + (t >> 8)) >> 8} where {@code t = c * a + 128}, which is
+     * exact for opaque and transparent pixels, too.
+     */
+    @Override
+    void premultiply(final int[] row, final int offset, final int length) {
+
+        final int lanes = SPECIES.length();
+        final int bound = offset + SPECIES.loopBound(length);
+        int i = offset;
+        for (; i < bound; i += lanes) {
+            final IntVector p = IntVector.fromArray(SPECIES, row, i);
+            final IntVector a = p.lanewise(VectorOperators.LSHR, 24);
+            p.and(0xFF000000)
+                .or(multiply(p.lanewise(VectorOperators.LSHR, 16).and(0xFF), a)
+                    .lanewise(VectorOperators.LSHL, 16))
+                .or(multiply(p.lanewise(VectorOperators.LSHR, 8).and(0xFF), a)
+                    .lanewise(VectorOperators.LSHL, 8))
+                .or(multiply(p.and(0xFF), a))
+                .intoArray(row, i);
+        }
+        Pixels.premultiply(row, i, offset + length - i);
+    }
+
+
+    /**
+     * {@inheritDoc} Each channel is divided in {@code float}s, which are
+     * converted from and to {@code int}s through the bits of
+     * {@code 1.5 * 2^23} rather than with {@code I2F} and {@code F2I}, which
+     * are not intrinsic on Java 17.
+     */
+    @Override
+    void unpremultiply(final int[] row, final int offset, final int length) {
+
+        final int lanes = SPECIES.length();
+        final int bound = offset + SPECIES.loopBound(length);
+        int i = offset;
+        for (; i < bound; i += lanes) {
+            final IntVector p = IntVector.fromArray(SPECIES, row, i);
+            final IntVector a = p.lanewise(VectorOperators.LSHR, 24);
+            final VectorMask<Integer> transparent
+                = a.compare(VectorOperators.EQ, 0);
+            final IntVector h = a.lanewise(VectorOperators.LSHR, 1);
+            final FloatVector d = floats(a);
+            p.and(0xFF000000)
+                .or(divide(p.lanewise(VectorOperators.LSHR, 16).and(0xFF), h,
+                           d)
+                    .lanewise(VectorOperators.LSHL, 16))
+                .or(divide(p.lanewise(VectorOperators.LSHR, 8).and(0xFF), h,
+                           d)
+                    .lanewise(VectorOperators.LSHL, 8))
+                .or(divide(p.and(0xFF), h, d))
+                .blend(0, transparent)
+                .intoArray(row, i);
+        }
+        Pixels.unpremultiply(row, i, offset + length - i);
+    }
+
+
+    /**
+     * Returns {@code round(c * a / 255)} of each lane.
+     */
+    private static IntVector multiply(final IntVector c, final IntVector a) {
+
+        final IntVector t = c.mul(a).add(128);
+        return t.add(t.lanewise(VectorOperators.ASHR, 8))
+            .lanewise(VectorOperators.ASHR, 8);
+    }
+
+
+    /**
+     * Returns the {@code float} value of each lane, which must be in
+     * {@code [0, 2^22)}.
+     */
+    private static FloatVector floats(final IntVector v) {
+
+        return v.or(MAGIC_BITS).reinterpretAsFloats().sub(MAGIC);
+    }
+
+
+    /**
+     * Returns {@code min(255, (c * 255 + h) / a)} of each lane. The quotient
+     * is truncated by rounding it less {@code 0.5 - 2^-10}, which is exact
+     * while its fraction, if any, is at least {@code 1 / a}; larger errors
+     * of larger quotients are clamped away.
+     */
+    private static IntVector divide(final IntVector c, final IntVector h,
+                                    final FloatVector a) {
+
+        return floats(c.mul(255).add(h)).div(a).add(TRUNCATION).add(MAGIC)
+            .reinterpretAsInts().sub(MAGIC_BITS).min(255);
+    }
+
+
+    private static IntVector clamp(final IntVector v) {
+
+        return v.lanewise(VectorOperators.ASHR, Kernel.PRECISION).max(0)
+            .min(0xFF);
+    }
+
+
+    private static IntVector pack(final IntVector a, final IntVector r,
+                                  final IntVector g, final IntVector b) {
+
+        final IntVector alpha = clamp(a);
+        // keep the premultiplied color not greater than the alpha
+        return alpha.lanewise(VectorOperators.LSHL, 24)
+            .or(clamp(r).min(alpha).lanewise(VectorOperators.LSHL, 16))
+            .or(clamp(g).min(alpha).lanewise(VectorOperators.LSHL, 8))
+            .or(clamp(b).min(alpha));
+    }
+
+
+    @Override
+    public String toString() {
+
+        return getClass().getSimpleName() + "(" + SPECIES + ")";
+    }
+
+
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class AsyncScalrTest {
+
+
+    /**
+     * An executor which holds tasks until told to run them.
+     */
+    private static final class HeldExecutor implements Executor {
+
+
+        @Override
+        public void execute(final Runnable command) {
+
+            commands.add(command);
+        }
+
+
+        void runAll() {
+
+            for (final Runnable command : commands) {
+                command.run();
+            }
+            commands.clear();
+        }
+
+
+        private final List<Runnable> commands = new ArrayList<Runnable>();
+
+
+    }
+
+
+    private static int[] pixels(final BufferedImage image) {
+
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0,
+                            image.getWidth());
+    }
+
+
+    @Test
+    public void resize() throws Exception {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        try (AsyncScalr scalr = AsyncScalr.newFixed(
+            2, 8, AsyncScalr.Overflow.BLOCK)) {
+            final List<CompletableFuture<BufferedImage>> futures
+                = new ArrayList<CompletableFuture<BufferedImage>>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(i % 2 == 0
+                            ? scalr.resize(sourceImage, Method.BALANCED, 100,
+                                           100, .5f, .5f, .5f)
+                            : scalr.resize(sourceImage, Filter.BILINEAR, 100,
+                                           100, .5f, .5f, .5f));
+                assertTrue(scalr.getPendingCount() <= 8);
+            }
+            final int[] method = pixels(Scalr.resize(
+                sourceImage, Method.BALANCED, 100, 100, .5f, .5f, .5f));
+            final int[] filter = pixels(Scalr.resize(
+                sourceImage, Filter.BILINEAR, 100, 100, .5f, .5f, .5f));
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(pixels(futures.get(i).get()),
+                             i % 2 == 0 ? method : filter);
+            }
+        }
+    }
+
+
+    @Test
+    public void reject() throws Exception {
+
+        final HeldExecutor executor = new HeldExecutor();
+        final AsyncScalr scalr = new AsyncScalr(
+            executor, 2, AsyncScalr.Overflow.REJECT);
+        final Callable<String> task = new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        };
+        final CompletableFuture<String> first = scalr.submit(task);
+        final CompletableFuture<String> second = scalr.submit(task);
+        final CompletableFuture<String> third = scalr.submit(task);
+        assertEquals(scalr.getPendingCount(), 2);
+        try {
+            third.get();
+            fail("not rejected");
+        } catch (final ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof RejectedExecutionException);
+        }
+
+        executor.runAll();
+        assertEquals(first.get(), "done");
+        assertEquals(second.get(), "done");
+        assertEquals(scalr.getPendingCount(), 0);
+    }
+
+
+    @Test
+    public void cancelQueued() {
+
+        final HeldExecutor executor = new HeldExecutor();
+        final AsyncScalr scalr = new AsyncScalr(
+            executor, 1, AsyncScalr.Overflow.REJECT);
+        final AtomicInteger calls = new AtomicInteger();
+        final CompletableFuture<Integer> future = scalr.submit(
+            new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return calls.incrementAndGet();
+                }
+            });
+        future.cancel(true);
+        // no longer pending while still queued
+        assertEquals(scalr.getPendingCount(), 0);
+        final CompletableFuture<Integer> next = scalr.submit(
+            new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return calls.incrementAndGet();
+                }
+            });
+        assertFalse(next.isDone());
+        executor.runAll();
+        assertEquals(calls.get(), 1);
+        assertEquals(scalr.getPendingCount(), 0);
+    }
+
+
+    @Test
+    public void interruptBlocked() throws Exception {
+
+        final HeldExecutor executor = new HeldExecutor();
+        final AsyncScalr scalr = new AsyncScalr(
+            executor, 1, AsyncScalr.Overflow.BLOCK);
+        final Callable<String> task = new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        };
+        scalr.submit(task);
+        Thread.currentThread().interrupt();
+        final CompletableFuture<String> blocked = scalr.submit(task);
+        assertTrue(Thread.interrupted());
+        try {
+            blocked.get();
+            fail("not interrupted");
+        } catch (final ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof InterruptedException);
+        }
+        executor.runAll();
+        assertEquals(scalr.getPendingCount(), 0);
+    }
+
+
+    @Test
+    public void cancelRunning() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final HeldExecutor executor = new HeldExecutor();
+        final AsyncScalr scalr = new AsyncScalr(
+            executor, 2, AsyncScalr.Overflow.REJECT);
+        final AtomicInteger events = new AtomicInteger();
+        Scalr.setResizeListener(new ResizeListener() {
+            @Override
+            public void resized(final ResizeEvent event) {
+                events.incrementAndGet();
+            }
+        });
+        try {
+            for (final boolean filter : new boolean[]{false, true}) {
+                final AtomicReference<CompletableFuture<BufferedImage>> self
+                    = new AtomicReference<CompletableFuture<BufferedImage>>();
+                self.set(scalr.submit(new Callable<BufferedImage>() {
+                    @Override
+                    public BufferedImage call() {
+                        // cancelled while running, before the first stage ends
+                        self.get().cancel(true);
+                        return filter
+                               ? Scalr.resize(sourceImage, Filter.LANCZOS3,
+                                              100, 100, .5f, .5f, .5f)
+                               : Scalr.resize(sourceImage,
+                                              Method.ULTRA_QUALITY, 100, 100,
+                                              .5f, .5f, .5f);
+                    }
+                }));
+                executor.runAll();
+                assertTrue(self.get().isCancelled());
+            }
+        } finally {
+            Scalr.setResizeListener(ResizeListener.NOOP);
+        }
+        assertEquals(events.get(), 0); // neither resize got through
+        assertEquals(scalr.getPendingCount(), 0);
+    }
+
+
+    @Test
+    public void cancelRefinement() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final HeldExecutor executor = new HeldExecutor();
+        final AsyncScalr scalr = new AsyncScalr(
+            executor, 1, AsyncScalr.Overflow.REJECT);
+        final AtomicInteger stages = new AtomicInteger();
+        final AtomicReference<CompletableFuture<BufferedImage>> self
+            = new AtomicReference<CompletableFuture<BufferedImage>>();
+        self.set(scalr.submit(new Callable<BufferedImage>() {
+            @Override
+            public BufferedImage call() {
+                return Scalr.resizeInbox(
+                    sourceImage, Filter.LANCZOS3, 100, 100, .5f, .5f,
+                    new ProgressListener() {
+                        @Override
+                        public boolean progressed(
+                            final BufferedImage targetImage,
+                            final ResizePlan plan, final boolean last) {
+                            stages.incrementAndGet();
+                            // the client went away after the preview
+                            self.get().cancel(true);
+                            return true;
+                        }
+                    });
+            }
+        }));
+        executor.runAll();
+        assertTrue(self.get().isCancelled());
+        assertEquals(stages.get(), 1);
+        assertEquals(scalr.getPendingCount(), 0);
+    }
+
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class AtlasTest {
+
+
+    private static List<BufferedImage> sources() throws IOException {
+
+        final BufferedImage landscape = ResamplerTest.read("1920x1080.jpg");
+        final BufferedImage portrait = ResamplerTest.read("506x1024.jpg");
+        return Arrays.asList(landscape, portrait, portrait, landscape,
+                             landscape);
+    }
+
+
+    /**
+     * Asserts that each cell of given sheet is what
+     * {@link Scalr#resizeInbox(java.awt.image.BufferedImage, Filter, int, int,
+     * float, float, java.awt.image.BufferedImageOp...)} gives.
+     */
+    private static void assertCells(final Atlas atlas,
+                                    final BufferedImage sheetImage,
+                                    final List<BufferedImage> sourceImages,
+                                    final Filter filter) {
+
+        for (int i = 0; i < atlas.getCount(); i++) {
+            final Rectangle cell = atlas.getCell(i);
+            final BufferedImage expected = Scalr.resizeInbox(
+                sourceImages.get(i), filter, cell.width, cell.height, .5f,
+                .5f);
+            assertEquals(
+                sheetImage.getRGB(cell.x, cell.y, cell.width, cell.height,
+                                  null, 0, cell.width),
+                expected.getRGB(0, 0, cell.width, cell.height, null, 0,
+                                cell.width), "cell " + i);
+        }
+    }
+
+
+    @Test
+    public void grid() {
+
+        final Atlas atlas = Atlas.grid(5, 3, 100, 80, 4);
+        assertEquals(atlas.getWidth(), 3 * 100 + 2 * 4);
+        assertEquals(atlas.getHeight(), 2 * 80 + 4);
+        assertEquals(atlas.getCell(4), new Rectangle(104, 84, 100, 80));
+
+        // fewer cells than columns
+        assertEquals(Atlas.grid(2, 3, 100, 80, 4).getWidth(), 204);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void outside() {
+
+        Atlas.of(100, 100, Arrays.asList(new Rectangle(50, 50, 60, 10)));
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void count() throws IOException {
+
+        Atlas.grid(4, 2, 10, 10, 0).render(sources(), Filter.BILINEAR, .5f,
+                                           .5f, null);
+    }
+
+
+    @Test
+    public void render() throws IOException {
+
+        final List<BufferedImage> sourceImages = sources();
+        final Atlas atlas = Atlas.grid(sourceImages.size(), 3, 96, 96, 2);
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            for (final ForkJoinPool pool
+                 : new ForkJoinPool[]{null, forkJoinPool}) {
+                final BufferedImage sheetImage = atlas.render(
+                    sourceImages, Filter.LANCZOS3, .5f, .5f, pool);
+                assertCells(atlas, sheetImage, sourceImages, Filter.LANCZOS3);
+                // spacing stays transparent
+                assertEquals(sheetImage.getRGB(96, 10), 0);
+                assertEquals(sheetImage.getRGB(10, 96), 0);
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+
+    @Test
+    public void packed() throws IOException {
+
+        final List<BufferedImage> sourceImages = sources();
+        final Atlas atlas = Atlas.packed(sourceImages, 128, 128, 300, 1);
+        assertTrue(atlas.getWidth() <= 300);
+        for (int i = 0; i < atlas.getCount(); i++) {
+            final Rectangle cell = atlas.getCell(i);
+            // fitted, without letterboxes
+            assertEquals(Math.max(cell.width, cell.height), 128);
+            assertTrue(new Rectangle(atlas.getWidth(), atlas.getHeight())
+                .contains(cell));
+            for (int j = 0; j < i; j++) {
+                assertFalse(cell.intersects(atlas.getCell(j)), i + " " + j);
+            }
+        }
+        // the two portraits on the first shelf
+        assertEquals(atlas.getCell(1).y, 0);
+        assertEquals(atlas.getCell(2).y, 0);
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        try {
+            assertCells(atlas, atlas.render(sourceImages, Filter.BICUBIC, .5f,
+                                            .5f, forkJoinPool),
+                        sourceImages, Filter.BICUBIC);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+
+}
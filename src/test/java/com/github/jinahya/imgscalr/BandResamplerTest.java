@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class BandResamplerTest {
+
+
+    private static BufferedImage stream(final String name,
+                                        final String formatName,
+                                        final Filter filter,
+                                        final int targetWidth,
+                                        final int targetHeight,
+                                        final float magnificationFactor)
+        throws IOException {
+
+        try (InputStream input
+            = BandResamplerTest.class.getResourceAsStream("/" + name)) {
+            return stream(input, formatName, filter, targetWidth,
+                          targetHeight, magnificationFactor, null);
+        }
+    }
+
+
+    private static BufferedImage stream(final InputStream input,
+                                        final String formatName,
+                                        final Filter filter,
+                                        final int targetWidth,
+                                        final int targetHeight,
+                                        final float magnificationFactor,
+                                        final Color background)
+        throws IOException {
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final ImageWriter writer
+            = ImageIO.getImageWritersByFormatName(formatName).next();
+        try (ImageInputStream sourceStream
+            = ImageIO.createImageInputStream(input);
+             ImageOutputStream targetStream
+             = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(targetStream);
+            Scalr.resize(sourceStream, filter, targetWidth, targetHeight,
+                         magnificationFactor, .5f, .5f, background, writer);
+        } finally {
+            writer.dispose();
+        }
+
+        return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+
+    /**
+     * Asserts that each component of given pixel is within a few levels of
+     * given color's, as lossy formats keep.
+     */
+    private static void assertClose(final int actual, final Color expected) {
+
+        for (int shift = 0; shift < 24; shift += 8) {
+            assertTrue(Math.abs(((actual >> shift) & 0xFF)
+                                - ((expected.getRGB() >> shift) & 0xFF)) < 8,
+                       Integer.toHexString(actual) + " " + expected);
+        }
+    }
+
+
+    private static int[] pixels(final BufferedImage image) {
+
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0,
+                            image.getWidth());
+    }
+
+
+    @Test
+    public void sameAsResampler() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        // not subsampled; the source is read in two bands
+        assertTrue(1080 > BandResampler.BAND_PIXELS / 1920);
+        for (final int[] size : new int[][]{{1000, 600}, {1200, 400}}) {
+            for (final float magnification : new float[]{.0f, 1.0f}) {
+                final int[] expected = pixels(Scalr.resize(
+                    sourceImage, Filter.LANCZOS3, size[0], size[1],
+                    magnification, .5f, .5f));
+                // band by band
+                assertEquals(pixels(stream("1920x1080.jpg", "tiff",
+                                           Filter.LANCZOS3, size[0], size[1],
+                                           magnification)),
+                             expected);
+                // at once
+                assertEquals(pixels(stream("1920x1080.jpg", "png",
+                                           Filter.LANCZOS3, size[0], size[1],
+                                           magnification)),
+                             expected);
+            }
+        }
+    }
+
+
+    @Test
+    public void subsampled() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final BufferedImage expected = Scalr.resize(
+            sourceImage, Filter.BILINEAR, 160, 90, .0f, .5f, .5f);
+        final BufferedImage actual = stream(
+            "1920x1080.jpg", "tiff", Filter.BILINEAR, 160, 90, .0f);
+        assertEquals(actual.getWidth(), 160);
+        assertEquals(actual.getHeight(), 90);
+        final int[] e = pixels(expected);
+        final int[] a = pixels(actual);
+        long difference = 0L;
+        for (int i = 0; i < e.length; i++) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                difference += Math.abs(((e[i] >> shift) & 0xFF)
+                                       - ((a[i] >> shift) & 0xFF));
+            }
+        }
+        // close enough on average
+        assertTrue(difference / (e.length * 3.0d) < 8.0d,
+                   "difference: " + difference / (e.length * 3.0d));
+    }
+
+
+    @Test
+    public void jpeg() throws IOException {
+
+        // 1920x1080 into 160x160 is padded at the top and the bottom
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final BufferedImage expected = Scalr.resize(
+            sourceImage, Filter.BILINEAR, 160, 160, .0f, .5f, .5f);
+        for (final Color background : new Color[]{null, Color.WHITE}) {
+            final BufferedImage actual;
+            try (InputStream input = BandResamplerTest.class
+                .getResourceAsStream("/1920x1080.jpg")) {
+                actual = stream(input, "jpeg", Filter.BILINEAR, 160, 160, .0f,
+                                background);
+            }
+            assertEquals(actual.getWidth(), 160);
+            assertEquals(actual.getHeight(), 160);
+            final Color padding
+                = background == null ? Color.BLACK : background;
+            assertClose(actual.getRGB(80, 10), padding);
+            assertClose(actual.getRGB(80, 150), padding);
+            // the scaled image is in the middle
+            assertTrue(Math.abs((actual.getRGB(80, 80) & 0xFF)
+                                - (expected.getRGB(80, 80) & 0xFF)) < 32);
+        }
+    }
+
+
+    @Test
+    public void jpegFromTranslucent() throws IOException {
+
+        // the left half is opaque red, the right half half transparent blue
+        final BufferedImage sourceImage
+            = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = sourceImage.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 100, 100);
+        graphics.setColor(new Color(0, 0, 255, 128));
+        graphics.fillRect(100, 0, 100, 100);
+        graphics.dispose();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(sourceImage, "png", bytes);
+
+        final BufferedImage actual = stream(
+            new ByteArrayInputStream(bytes.toByteArray()), "jpeg",
+            Filter.BILINEAR, 100, 100, .0f, Color.WHITE);
+        assertClose(actual.getRGB(50, 10), Color.WHITE);
+        assertClose(actual.getRGB(20, 50), Color.RED);
+        // composited onto the background
+        assertClose(actual.getRGB(80, 50), new Color(127, 127, 255));
+    }
+
+
+}
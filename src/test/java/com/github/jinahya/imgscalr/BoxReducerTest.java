@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class BoxReducerTest {
+
+
+    /**
+     * Averages each block of premultiplied pixels, one pixel at a time.
+     */
+    private static int average(final BufferedImage image, final int x,
+                               final int y, final int factor) {
+
+        final int[] block = new int[factor * factor];
+        for (int j = 0; j < factor; j++) {
+            for (int i = 0; i < factor; i++) {
+                block[j * factor + i] = image.getRGB(x + i, y + j);
+            }
+        }
+        Pixels.premultiply(block, 0, block.length);
+        final int[] sums = new int[4];
+        for (final int p : block) {
+            for (int c = 0; c < 4; c++) {
+                sums[c] += (p >>> (c * 8)) & 0xFF;
+            }
+        }
+        int average = 0;
+        for (int c = 0; c < 4; c++) {
+            average |= (sums[c] + block.length / 2) / block.length << (c * 8);
+        }
+        final int[] row = {average};
+        Pixels.unpremultiply(row, 0, 1);
+        return row[0];
+    }
+
+
+    @Test
+    public void factor() {
+
+        assertEquals(BoxReducer.factor(1920, 1080, 960, 540), 2);
+        assertEquals(BoxReducer.factor(1920, 1080, 480, 270), 4);
+        assertEquals(BoxReducer.factor(1920, 1080, 640, 360), 3);
+        assertEquals(BoxReducer.factor(1920, 1080, 1920, 1080), 0);
+        assertEquals(BoxReducer.factor(1920, 1080, 960, 270), 0);
+        assertEquals(BoxReducer.factor(1920, 1080, 961, 540), 0);
+        assertEquals(BoxReducer.factor(1920, 1080, 60, 34), 0);
+    }
+
+
+    @Test
+    public void reduce() {
+
+        final Random random = new Random(0L);
+        for (final int type : new int[]{BufferedImage.TYPE_INT_RGB,
+                                        BufferedImage.TYPE_INT_ARGB,
+                                        BufferedImage.TYPE_3BYTE_BGR}) {
+            final BufferedImage sourceImage = new BufferedImage(96, 48, type);
+            for (int y = 0; y < 48; y++) {
+                for (int x = 0; x < 96; x++) {
+                    sourceImage.setRGB(x, y, random.nextInt());
+                }
+            }
+            for (final int factor : new int[]{2, 3, 4, 8, 16}) {
+                final int width = 96 / factor;
+                final int height = 48 / factor;
+                // partially outside of the target image
+                final BufferedImage targetImage = new BufferedImage(
+                    width, height, BufferedImage.TYPE_INT_ARGB);
+                BoxReducer.reduce(sourceImage, factor, targetImage, -1, 1,
+                                  new RasterPool(0L));
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        final int expected = x + 1 < width && y >= 1
+                                             ? average(sourceImage,
+                                                       (x + 1) * factor,
+                                                       (y - 1) * factor,
+                                                       factor)
+                                             : 0;
+                        assertEquals(targetImage.getRGB(x, y), expected,
+                                     type + "/" + factor + "/" + x + "/" + y);
+                    }
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void resize() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        for (final Method method : new Method[]{Method.AUTOMATIC,
+                                                Method.QUALITY,
+                                                Method.ULTRA_QUALITY}) {
+            final BufferedImage targetImage = Scalr.resize(
+                sourceImage, method, 480, 270, .0f, .5f, .5f);
+            for (int y = 0; y < 270; y += 13) {
+                for (int x = 0; x < 480; x += 7) {
+                    assertEquals(targetImage.getRGB(x, y),
+                                 average(sourceImage, x * 4, y * 4, 4));
+                }
+            }
+        }
+    }
+
+
+}
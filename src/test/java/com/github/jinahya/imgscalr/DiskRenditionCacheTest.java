@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class DiskRenditionCacheTest {
+
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+
+    private static byte[] random(final Random random, final int length) {
+
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+
+    private static void delete(final Path directory) throws IOException {
+
+        try (DirectoryStream<Path> stream
+            = Files.newDirectoryStream(directory)) {
+            for (final Path path : stream) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+
+    @Test
+    public void putGetTransfer() throws IOException {
+
+        final Path directory = Files.createTempDirectory("renditions");
+        try {
+            final BufferedImage sourceImage
+                = ResamplerTest.read("506x1024.jpg");
+            final Rendition rendition
+                = Rendition.outbox(Method.BALANCED, 100, 100, .5f, .5f);
+            final String key = DiskRenditionCache.key(
+                RenditionCache.fingerprint(sourceImage), rendition, "png");
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 1024L * 1024L)) {
+                assertNull(cache.get(key));
+                cache.put(key, Scalr.resize(
+                    sourceImage, rendition.getScalingMethod(),
+                    rendition.getTargetWidth(), rendition.getTargetHeight(),
+                    rendition.getMagnificationFactor(),
+                    rendition.getHorizontalWeight(),
+                    rendition.getVerticalWeight()), "png");
+
+                final byte[] encoded = bytes(cache.get(key));
+                final BufferedImage decoded
+                    = ImageIO.read(new ByteArrayInputStream(encoded));
+                assertEquals(decoded.getWidth(), 100);
+                assertEquals(decoded.getHeight(), 100);
+
+                final ByteArrayOutputStream output
+                    = new ByteArrayOutputStream();
+                assertTrue(cache.transferTo(key, Channels.newChannel(output)));
+                assertEquals(output.toByteArray(), encoded);
+                assertFalse(cache.transferTo(
+                    "none", Channels.newChannel(output)));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public void recover() throws IOException {
+
+        final Random random = new Random(0L);
+        final Path directory = Files.createTempDirectory("renditions");
+        try {
+            final byte[] a = random(random, 1000);
+            final byte[] b = random(random, 2000);
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 1024L * 1024L)) {
+                cache.put("a", ByteBuffer.wrap(random(random, 500)));
+                cache.put("a", ByteBuffer.wrap(a)); // supersedes
+                cache.put("b", ByteBuffer.wrap(b));
+                cache.put("c", ByteBuffer.wrap(random(random, 100)));
+                cache.remove("c");
+            }
+
+            // a torn record at the tail
+            final Path segment;
+            try (DirectoryStream<Path> stream
+                = Files.newDirectoryStream(directory)) {
+                segment = stream.iterator().next();
+            }
+            final long size = Files.size(segment);
+            try (FileChannel channel = FileChannel.open(
+                segment, StandardOpenOption.APPEND)) {
+                final ByteBuffer torn = ByteBuffer.allocate(40);
+                torn.putInt(0x52434331).putInt(1).putInt(1000);
+                torn.rewind();
+                channel.write(torn);
+            }
+
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 1024L * 1024L)) {
+                assertEquals(Files.size(segment), size);
+                assertEquals(bytes(cache.get("a")), a);
+                assertEquals(bytes(cache.get("b")), b);
+                assertNull(cache.get("c"));
+                assertEquals(cache.getLiveBytes(),
+                             16L + 1L + a.length + 16L + 1L + b.length);
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public void bounded() throws IOException {
+
+        final Random random = new Random(0L);
+        final Path directory = Files.createTempDirectory("renditions");
+        try {
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 64L * 1024L, 8L * 1024L)) {
+                for (int i = 0; i < 200; i++) {
+                    // keep rewriting a few hot keys, add a cold one each time
+                    cache.put("hot" + (i % 4),
+                              ByteBuffer.wrap(random(random, 900)));
+                    cache.put("cold" + i,
+                              ByteBuffer.wrap(random(random, 700)));
+                    assertTrue(cache.getTotalBytes()
+                               <= cache.getMaximumBytes());
+                }
+                assertNotNull(cache.get("hot0"));
+                assertNotNull(cache.get("cold199"));
+                assertNull(cache.get("cold0"));
+
+                cache.compact();
+                assertTrue(cache.getTotalBytes() <= cache.getMaximumBytes());
+                assertNotNull(cache.get("hot3"));
+            }
+            // still consistent when reopened
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 64L * 1024L, 8L * 1024L)) {
+                assertNotNull(cache.get("hot1"));
+                assertNotNull(cache.get("cold199"));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    public void removedCompacted() throws IOException {
+
+        final Random random = new Random(0L);
+        final Path directory = Files.createTempDirectory("renditions");
+        try {
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 1024L * 1024L, 1000L)) {
+                cache.put("K", ByteBuffer.wrap(random(random, 100)));
+                cache.put("F1", ByteBuffer.wrap(random(random, 700)));
+                cache.put("F2", ByteBuffer.wrap(random(random, 700)));
+                cache.remove("K");
+                cache.put("F2", ByteBuffer.wrap(random(random, 700)));
+                // the tombstone's segment is compacted; K's is not
+                cache.compact();
+                assertNull(cache.get("K"));
+            }
+            final byte[] k = random(random, 100);
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 1024L * 1024L, 1000L)) {
+                assertNull(cache.get("K"));
+                assertNotNull(cache.get("F1"));
+                // mapped again, after the tombstone
+                cache.put("K", ByteBuffer.wrap(k));
+                cache.compact();
+            }
+            try (DiskRenditionCache cache
+                = new DiskRenditionCache(directory, 1024L * 1024L, 1000L)) {
+                assertEquals(bytes(cache.get("K")), k);
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class FramesTest {
+
+
+    private static final Color[] COLORS = {Color.RED, Color.GREEN,
+                                           Color.BLUE, Color.YELLOW};
+
+
+    private static final String[] DISPOSALS = {
+        "doNotDispose", "restoreToBackgroundColor", "restoreToPrevious",
+        "none"};
+
+
+    private static IIOMetadataNode child(final IIOMetadataNode node,
+                                         final String name) {
+
+        return (IIOMetadataNode) node.getElementsByTagName(name).item(0);
+    }
+
+
+    /**
+     * Writes a looping GIF of a 100x80 red frame followed by 40x30 green,
+     * blue and yellow frames at (20, 10), (40, 20) and (60, 30), disposed as
+     * {@link #DISPOSALS} and delayed by 10, 20, 30 and 40 hundredths of a
+     * second.
+     */
+    private static byte[] gif() throws IOException {
+
+        final ImageWriter writer
+            = ImageIO.getImageWritersByFormatName("gif").next();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output
+            = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < COLORS.length; i++) {
+                final BufferedImage frameImage = new BufferedImage(
+                    i == 0 ? 100 : 40, i == 0 ? 80 : 30,
+                    BufferedImage.TYPE_INT_ARGB);
+                final Graphics2D graphics = frameImage.createGraphics();
+                graphics.setColor(COLORS[i]);
+                // the right half of each frame is transparent
+                graphics.fillRect(0, 0, frameImage.getWidth() / 2,
+                                  frameImage.getHeight());
+                graphics.dispose();
+                final IIOMetadata metadata = writer.getDefaultImageMetadata(
+                    ImageTypeSpecifier.createFromRenderedImage(frameImage),
+                    null);
+                final IIOMetadataNode root = (IIOMetadataNode) metadata
+                    .getAsTree(Frames.GIF_IMAGE);
+                final IIOMetadataNode descriptor
+                    = child(root, "ImageDescriptor");
+                descriptor.setAttribute("imageLeftPosition",
+                                        Integer.toString(i * 20));
+                descriptor.setAttribute("imageTopPosition",
+                                        Integer.toString(i * 10));
+                final IIOMetadataNode control
+                    = child(root, "GraphicControlExtension");
+                control.setAttribute("disposalMethod", DISPOSALS[i]);
+                control.setAttribute("delayTime",
+                                     Integer.toString((i + 1) * 10));
+                if (i == 0) {
+                    final IIOMetadataNode extensions
+                        = new IIOMetadataNode("ApplicationExtensions");
+                    final IIOMetadataNode extension
+                        = new IIOMetadataNode("ApplicationExtension");
+                    extension.setAttribute("applicationID", "NETSCAPE");
+                    extension.setAttribute("authenticationCode", "2.0");
+                    extension.setUserObject(new byte[]{1, 0, 0});
+                    extensions.appendChild(extension);
+                    root.appendChild(extensions);
+                }
+                metadata.setFromTree(Frames.GIF_IMAGE, root);
+                writer.writeToSequence(
+                    new IIOImage(frameImage, null, metadata), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+
+        return bytes.toByteArray();
+    }
+
+
+    private static ImageReader reader(final byte[] bytes) throws IOException {
+
+        final ImageInputStream input = ImageIO.createImageInputStream(
+            new ByteArrayInputStream(bytes));
+        final ImageReader reader = ImageIO.getImageReaders(input).next();
+        reader.setInput(input, true, false);
+        return reader;
+    }
+
+
+    private static byte[] resizeFrames(final byte[] bytes,
+                                       final String formatName,
+                                       final int expected)
+        throws IOException {
+
+        final ImageWriter writer
+            = ImageIO.getImageWritersByFormatName(formatName).next();
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (ImageInputStream input = ImageIO.createImageInputStream(
+            new ByteArrayInputStream(bytes));
+             ImageOutputStream output
+             = ImageIO.createImageOutputStream(target)) {
+            writer.setOutput(output);
+            assertEquals(Scalr.resizeFrames(
+                input, Method.SPEED, 50, 50, .0f, .5f, .5f, writer),
+                         expected);
+        } finally {
+            writer.dispose();
+        }
+
+        return target.toByteArray();
+    }
+
+
+    @Test
+    public void compose() throws IOException {
+
+        final ImageReader reader = reader(gif());
+        try {
+            final Frames frames = new Frames(reader);
+
+            final BufferedImage first = frames.next();
+            assertEquals(first.getWidth(), 100);
+            assertEquals(first.getHeight(), 80);
+            assertEquals(first.getRGB(10, 10), Color.RED.getRGB());
+            assertEquals(first.getRGB(90, 10), 0);
+
+            // drawn over the first frame, which is not disposed
+            final BufferedImage second = frames.next();
+            assertEquals(second, first);
+            assertEquals(second.getRGB(25, 15), Color.GREEN.getRGB());
+            assertEquals(second.getRGB(45, 15), Color.RED.getRGB());
+            assertEquals(second.getRGB(90, 10), 0);
+
+            // drawn after the second frame is cleared
+            final BufferedImage third = frames.next();
+            assertEquals(third.getRGB(25, 15), 0);
+            assertEquals(third.getRGB(45, 25), Color.BLUE.getRGB());
+            assertEquals(third.getRGB(10, 10), Color.RED.getRGB());
+            assertEquals(third.getRGB(45, 45), Color.BLUE.getRGB());
+
+            // drawn after the third frame is restored to the previous
+            final BufferedImage fourth = frames.next();
+            assertEquals(fourth.getRGB(45, 25), 0);
+            assertEquals(fourth.getRGB(45, 45), Color.RED.getRGB());
+            assertEquals(fourth.getRGB(65, 35), Color.YELLOW.getRGB());
+
+            assertNull(frames.next());
+        } finally {
+            reader.dispose();
+        }
+    }
+
+
+    @Test
+    public void resizeGif() throws IOException {
+
+        final byte[] bytes = resizeFrames(gif(), "gif", COLORS.length);
+        final ImageReader reader = reader(bytes);
+        try {
+            final int[] delays = new int[COLORS.length];
+            for (int i = 0; i < COLORS.length; i++) {
+                final BufferedImage frameImage = reader.read(i);
+                // every target frame is whole
+                assertEquals(frameImage.getWidth(), 50);
+                assertEquals(frameImage.getHeight(), 50);
+                final IIOMetadataNode root = (IIOMetadataNode) reader
+                    .getImageMetadata(i).getAsTree(Frames.GIF_IMAGE);
+                final IIOMetadataNode control
+                    = child(root, "GraphicControlExtension");
+                delays[i] = Integer.parseInt(
+                    control.getAttribute("delayTime"));
+                assertEquals(control.getAttribute("disposalMethod"),
+                             "restoreToBackgroundColor");
+                if (i == 0) {
+                    final IIOMetadataNode extension
+                        = child(root, "ApplicationExtension");
+                    assertNotNull(extension);
+                    assertEquals(extension.getAttribute("applicationID"),
+                                 "NETSCAPE");
+                }
+            }
+            assertEquals(delays, new int[]{10, 20, 30, 40});
+            try {
+                reader.read(COLORS.length);
+                fail("more frames than written");
+            } catch (final IndexOutOfBoundsException ioobe) {
+                // expected
+            }
+        } finally {
+            reader.dispose();
+        }
+
+        // 100x80 into 50x50 is placed at (0, 5) and scaled by a half
+        final ImageReader composed = reader(bytes);
+        try {
+            final Frames frames = new Frames(composed);
+            final BufferedImage second
+                = frames.next() == null ? null : frames.next();
+            assertEquals(second.getRGB(12, 5 + 7), Color.GREEN.getRGB());
+            assertEquals(second.getRGB(22, 5 + 7), Color.RED.getRGB());
+            assertEquals(second.getRGB(45, 5 + 5), 0);
+            assertEquals(second.getRGB(25, 2), 0);
+        } finally {
+            composed.dispose();
+        }
+    }
+
+
+    @Test
+    public void resizeFirstFrameOnly() throws IOException {
+
+        final byte[] bytes = resizeFrames(gif(), "png", 1);
+        final BufferedImage targetImage
+            = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertEquals(targetImage.getWidth(), 50);
+        assertEquals(targetImage.getHeight(), 50);
+        assertEquals(targetImage.getRGB(10, 10), Color.RED.getRGB());
+    }
+
+
+    @Test
+    public void resizeTiff() throws IOException {
+
+        final Iterator<ImageWriter> writers
+            = ImageIO.getImageWritersByFormatName("tiff");
+        if (!writers.hasNext()) {
+            throw new SkipException("no tiff writer");
+        }
+
+        final ImageWriter writer = writers.next();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output
+            = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+            for (final int[] size : new int[][]{{200, 100}, {60, 120}}) {
+                final BufferedImage pageImage = new BufferedImage(
+                    size[0], size[1], BufferedImage.TYPE_INT_RGB);
+                final Graphics2D graphics = pageImage.createGraphics();
+                graphics.setColor(Color.BLUE);
+                graphics.fillRect(0, 0, size[0], size[1]);
+                graphics.dispose();
+                writer.writeToSequence(
+                    new IIOImage(pageImage, null, null), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+
+        final ImageReader reader
+            = reader(resizeFrames(bytes.toByteArray(), "tiff", 2));
+        try {
+            // the same box, each page placed by its own proportion
+            final BufferedImage first = reader.read(0);
+            assertEquals(Arrays.asList(first.getWidth(), first.getHeight()),
+                         Arrays.asList(50, 50));
+            assertEquals(first.getRGB(25, 25), Color.BLUE.getRGB());
+            assertEquals(first.getRGB(25, 5) >>> 24, 0);
+            final BufferedImage second = reader.read(1);
+            assertEquals(second.getRGB(25, 25), Color.BLUE.getRGB());
+            assertEquals(second.getRGB(5, 25) >>> 24, 0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+
+    @Test
+    public void cancelGif() throws IOException {
+
+        final FutureTask<Void> future = new FutureTask<Void>(
+            new Callable<Void>() {
+                @Override
+                public Void call() {
+                    return null;
+                }
+            });
+        // cancels while the second frame is resized
+        final BufferedImageOp identity = new AffineTransformOp(
+            new AffineTransform(), AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
+        final BufferedImageOp op = new BufferedImageOp() {
+            @Override
+            public BufferedImage filter(final BufferedImage src,
+                                        final BufferedImage dest) {
+                if (++count == 2) {
+                    future.cancel(true);
+                }
+                return identity.filter(src, dest);
+            }
+            @Override
+            public Rectangle2D getBounds2D(final BufferedImage src) {
+                return identity.getBounds2D(src);
+            }
+            @Override
+            public BufferedImage createCompatibleDestImage(
+                final BufferedImage src, final ColorModel destCM) {
+                return identity.createCompatibleDestImage(src, destCM);
+            }
+            @Override
+            public Point2D getPoint2D(final Point2D srcPt,
+                                      final Point2D dstPt) {
+                return identity.getPoint2D(srcPt, dstPt);
+            }
+            @Override
+            public RenderingHints getRenderingHints() {
+                return identity.getRenderingHints();
+            }
+            private int count;
+        };
+
+        final ImageWriter writer
+            = ImageIO.getImageWritersByFormatName("gif").next();
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final Future<?> previous = Cancellation.bind(future);
+        try (ImageInputStream input = ImageIO.createImageInputStream(
+            new ByteArrayInputStream(gif()));
+             ImageOutputStream output
+             = ImageIO.createImageOutputStream(target)) {
+            writer.setOutput(output);
+            Scalr.resizeFrames(input, Method.SPEED, 50, 50, .0f, .5f, .5f,
+                               writer, op);
+            fail("not cancelled");
+        } catch (final CancellationException ce) {
+            // expected
+        } finally {
+            Cancellation.restore(previous);
+            writer.dispose();
+        }
+
+        // the sequence is ended with the frames written so far
+        final ImageReader reader = reader(target.toByteArray());
+        try {
+            assertEquals(reader.read(1).getWidth(), 50);
+            try {
+                reader.read(2);
+                fail("more frames than written");
+            } catch (final IndexOutOfBoundsException ioobe) {
+                // expected
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
+
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class HistogramTest {
+
+
+    @Test
+    public void buckets() {
+
+        long previous = -1L;
+        for (int i = 0; i < Histogram.BUCKET_COUNT; i++) {
+            final long lower = Histogram.getLowerBound(i);
+            final long upper = Histogram.getUpperBound(i);
+            assertEquals(lower, previous + 1L);
+            assertEquals(Histogram.bucket(lower), i);
+            assertEquals(Histogram.bucket(upper), i);
+            assertTrue(upper - lower <= Math.max(0L, lower / 8L));
+            previous = upper;
+        }
+        assertEquals(previous, Long.MAX_VALUE);
+    }
+
+
+    @Test
+    public void percentiles() {
+
+        final Histogram histogram = new Histogram();
+        for (long value = 1L; value <= 1000L; value++) {
+            histogram.record(value);
+        }
+        assertEquals(histogram.getCount(), 1000L);
+        assertEquals(histogram.getSum(), 500500L);
+        assertEquals(histogram.getMaximum(), 1000L);
+        for (final double percentile : new double[]{1.0d, 50.0d, 99.0d}) {
+            final long expected = (long) (percentile * 10.0d);
+            final long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * 9L / 8L,
+                       percentile + ": " + actual);
+        }
+        assertEquals(histogram.getValueAtPercentile(100.0d), 1000L);
+
+        histogram.reset();
+        assertEquals(histogram.getCount(), 0L);
+        assertEquals(histogram.getValueAtPercentile(50.0d), 0L);
+    }
+
+
+    @Test
+    public void concurrent() throws InterruptedException {
+
+        final Histogram histogram = new Histogram();
+        final int count = 100000;
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final long seed = i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    final Random random = new Random(seed);
+                    for (int j = 0; j < count; j++) {
+                        histogram.record(random.nextInt(1 << 20));
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(histogram.getCount(), 4L * count);
+        assertTrue(histogram.getMaximum() < 1 << 20);
+    }
+
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+
+/**
+ * Checks that {@link Kernels#INSTANCE}, which is vectorized when the tests
+ * run on Java 17 or later, agrees with the scalar kernels.
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class KernelsTest {
+
+
+    private static final Kernels SCALAR = new Kernels();
+
+
+    /**
+     * Returns random premultiplied pixels.
+     */
+    private static int[] pixels(final Random random, final int length) {
+
+        final int[] pixels = new int[length];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        Pixels.premultiply(pixels, 0, pixels.length);
+        return pixels;
+    }
+
+
+    @Test
+    public void horizontal() {
+
+        final Random random = new Random(0L);
+        for (final Filter filter : Filter.values()) {
+            for (final int[] lengths : new int[][]{
+                {1920, 173}, {506, 320}, {37, 111}, {3, 5}, {5, 3}}) {
+                final Kernel kernel = new Kernel(
+                    filter, lengths[0], lengths[1], 1, lengths[1]);
+                final int[] source = pixels(
+                    random, kernel.getMaximum() - kernel.getMinimum());
+                final int[] expected = new int[kernel.getLength() + 2];
+                final int[] actual = new int[expected.length];
+                SCALAR.horizontal(kernel, source, expected, 2);
+                Kernels.INSTANCE.horizontal(kernel, source, actual, 2);
+                assertEquals(actual, expected,
+                             filter + " " + Arrays.toString(lengths));
+            }
+        }
+    }
+
+
+    @Test
+    public void vertical() {
+
+        final Random random = new Random(0L);
+        for (final Filter filter : Filter.values()) {
+            for (final int width : new int[]{1, 7, 64, 333}) {
+                final Kernel kernel = new Kernel(filter, 97, 31, 0, 31);
+                final int capacity = 11;
+                final int[] source = pixels(random, capacity * width);
+                final int[] expected = new int[width];
+                final int[] actual = new int[width];
+                final int[] offsets
+                    = Kernels.offsets(kernel, 0, capacity, width);
+                for (int index = 0; index < kernel.getLength(); index++) {
+                    SCALAR.vertical(kernel, index, source, offsets, width,
+                                    expected);
+                    Kernels.INSTANCE.vertical(kernel, index, source, offsets,
+                                              width, actual);
+                    assertEquals(actual, expected, filter + " " + index);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void premultiply() {
+
+        // every color of every alpha, at an odd offset
+        final int[] pixels = new int[1 + 256 * 256 + 3];
+        for (int a = 0; a < 256; a++) {
+            for (int c = 0; c < 256; c++) {
+                pixels[1 + a * 256 + c]
+                    = (a << 24) | (c << 16) | ((255 - c) << 8) | (c >> 1);
+            }
+        }
+        final int[] expected = pixels.clone();
+        final int[] actual = pixels.clone();
+        SCALAR.premultiply(expected, 1, pixels.length - 2);
+        Kernels.INSTANCE.premultiply(actual, 1, pixels.length - 2);
+        assertEquals(actual, expected);
+
+        SCALAR.unpremultiply(expected, 1, pixels.length - 2);
+        Kernels.INSTANCE.unpremultiply(actual, 1, pixels.length - 2);
+        assertEquals(actual, expected);
+
+        // colors greater than the alpha, too
+        System.arraycopy(pixels, 0, expected, 0, pixels.length);
+        System.arraycopy(pixels, 0, actual, 0, pixels.length);
+        SCALAR.unpremultiply(expected, 1, pixels.length - 2);
+        Kernels.INSTANCE.unpremultiply(actual, 1, pixels.length - 2);
+        assertEquals(actual, expected);
+    }
+
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class LatencyBudgetTest {
+
+
+    private static final Placement PLACEMENT
+        = Placement.of(1920, 1080, 170, 96, .0f, .5f, .5f);
+
+
+    /**
+     * Returns a model which has learned that resizing 1920x1080 into 170x96
+     * takes 100, 10, 2 and .5 milliseconds.
+     */
+    private static LatencyBudget learned() {
+
+        final LatencyBudget budget = new LatencyBudget(1.0d);
+        budget.learn(PLACEMENT, Method.ULTRA_QUALITY, 100e6d);
+        budget.learn(PLACEMENT, Method.QUALITY, 10e6d);
+        budget.learn(PLACEMENT, Method.BALANCED, 2e6d);
+        budget.learn(PLACEMENT, Method.SPEED, .5e6d);
+        return budget;
+    }
+
+
+    private static Method select(final LatencyBudget budget,
+                                 final long millis) {
+
+        return budget.select(1920, 1080, 170, 96, .0f, millis,
+                             TimeUnit.MILLISECONDS);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void zeroWeight() {
+
+        new LatencyBudget(0.0d);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void nanWeight() {
+
+        new LatencyBudget(Double.NaN);
+    }
+
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void excessiveWeight() {
+
+        new LatencyBudget(1.5d);
+    }
+
+
+    @Test
+    public void select() {
+
+        final LatencyBudget budget = learned();
+        assertEquals(budget.estimate(Method.QUALITY, 1920, 1080, 170, 96, .0f),
+                     10e6d, 1e3d);
+
+        assertEquals(select(budget, 200L), Method.ULTRA_QUALITY);
+        assertEquals(select(budget, 20L), Method.QUALITY);
+        assertEquals(select(budget, 5L), Method.BALANCED);
+        assertEquals(select(budget, 1L), Method.SPEED);
+        // nothing fits
+        assertEquals(budget.select(1920, 1080, 170, 96, .0f, 100L,
+                                   TimeUnit.MICROSECONDS), Method.SPEED);
+        assertEquals(select(budget, 0L), Method.SPEED);
+        assertEquals(select(budget, -1L), Method.SPEED);
+    }
+
+
+    @Test
+    public void reduced() {
+
+        // 1920x1080 into 160x90 is reduced by 12 with a box, not scaled
+        final LatencyBudget budget = learned();
+        assertNotEquals(
+            budget.estimate(Method.QUALITY, 1920, 1080, 160, 90, .0f),
+            budget.estimate(Method.QUALITY, 1920, 1080, 170, 96, .0f));
+        assertEquals(budget.estimate(Method.AUTOMATIC, 1920, 1080, 170, 96,
+                                     .0f),
+                     budget.estimate(Method.QUALITY, 1920, 1080, 170, 96,
+                                     .0f));
+    }
+
+
+    @Test
+    public void saturate() {
+
+        final LatencyBudget budget = learned();
+        final List<LatencyBudget.Sample> samples
+            = new ArrayList<LatencyBudget.Sample>();
+        final int processors = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < processors * 4; i++) {
+            samples.add(budget.start(PLACEMENT, Method.SPEED));
+        }
+        assertEquals(budget.getInFlight(), processors * 4);
+        // four or more times slower
+        assertEquals(select(budget, 20L), Method.BALANCED);
+
+        for (final LatencyBudget.Sample sample : samples) {
+            sample.close();
+            sample.close();
+        }
+        assertEquals(budget.getInFlight(), 0);
+        assertEquals(select(budget, 20L), Method.QUALITY);
+    }
+
+
+    @Test
+    public void concurrent() throws InterruptedException {
+
+        final LatencyBudget budget = new LatencyBudget();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        budget.learn(PLACEMENT, Method.SPEED, 1e6d);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(budget.estimate(Method.SPEED, 1920, 1080, 170, 96, .0f),
+                     1e6d, 1e3d);
+    }
+
+
+    @Test
+    public void resize() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final LatencyBudget budget = new LatencyBudget(1.0d);
+        final long prior
+            = budget.estimate(Method.ULTRA_QUALITY, 1920, 1080, 170, 96, .0f);
+        Scalr.setLatencyBudget(budget);
+        try {
+            final BufferedImage targetImage = Scalr.resize(
+                sourceImage, 10L, TimeUnit.SECONDS, 170, 96, .0f, .5f, .5f);
+            assertEquals(targetImage.getWidth(), 170);
+            assertEquals(targetImage.getHeight(), 96);
+        } finally {
+            Scalr.setLatencyBudget(new LatencyBudget());
+        }
+        assertEquals(budget.getInFlight(), 0);
+        // learned from the resize itself
+        assertNotEquals(
+            budget.estimate(Method.ULTRA_QUALITY, 1920, 1080, 170, 96, .0f),
+            prior);
+    }
+
+
+    @Test
+    public void notSampledUntilSelected() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final LatencyBudget budget = new LatencyBudget(1.0d);
+        final long prior
+            = budget.estimate(Method.SPEED, 1920, 1080, 170, 96, .0f);
+        Scalr.setLatencyBudget(budget);
+        try {
+            Scalr.resize(sourceImage, Method.SPEED, 170, 96, .0f, .5f, .5f);
+            assertEquals(
+                budget.estimate(Method.SPEED, 1920, 1080, 170, 96, .0f),
+                prior);
+
+            budget.select(1920, 1080, 170, 96, .0f, 1L, TimeUnit.SECONDS);
+            Scalr.resize(sourceImage, Method.SPEED, 170, 96, .0f, .5f, .5f);
+            assertNotEquals(
+                budget.estimate(Method.SPEED, 1920, 1080, 170, 96, .0f),
+                prior);
+        } finally {
+            Scalr.setLatencyBudget(new LatencyBudget());
+        }
+    }
+
+
+    @Test
+    public void admissionNotLearned() throws Exception {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final LatencyBudget budget = new LatencyBudget(1.0d);
+        budget.select(1920, 1080, 170, 96, .0f, 1L, TimeUnit.SECONDS);
+        final MemoryBudget memoryBudget = new MemoryBudget(1024L * 1024L);
+        Scalr.setLatencyBudget(budget);
+        Scalr.setMemoryBudget(memoryBudget);
+        try {
+            final Thread thread;
+            try (MemoryBudget.Permit permit
+                = memoryBudget.admit(memoryBudget.getMaximumBytes())) {
+                thread = new Thread() {
+                    @Override
+                    public void run() {
+                        Scalr.resize(sourceImage, Method.SPEED, 170, 96, .0f,
+                                     .5f, .5f);
+                    }
+                };
+                thread.start();
+                Thread.sleep(500L); // waits for the permit
+            }
+            thread.join();
+        } finally {
+            Scalr.setMemoryBudget(MemoryBudget.UNLIMITED);
+            Scalr.setLatencyBudget(new LatencyBudget());
+        }
+        // learned the resize, not the wait
+        assertTrue(budget.estimate(Method.SPEED, 1920, 1080, 170, 96, .0f)
+                   < TimeUnit.MILLISECONDS.toNanos(250L));
+    }
+
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class MemoryBudgetTest {
+
+
+    @Test
+    public void estimate() {
+
+        // 1920x1080 into 160x90, opaque; a single intermediate for SPEED
+        assertEquals(MemoryBudget.estimate(
+            1920, 1080, BufferedImage.TYPE_3BYTE_BGR, Method.SPEED, 160, 90,
+            .0f), 160L * 90L * 3L + RasterPool.bytes(160L * 90L));
+        // reduced straight into the target, in place of incremental steps
+        for (final Method method : new Method[]{Method.AUTOMATIC,
+                                                Method.QUALITY,
+                                                Method.ULTRA_QUALITY}) {
+            assertEquals(MemoryBudget.estimate(
+                1920, 1080, BufferedImage.TYPE_3BYTE_BGR, method, 160, 90,
+                .0f), 160L * 90L * 3L);
+        }
+        // two consecutive incremental steps are held at once
+        assertTrue(MemoryBudget.estimate(
+            1920, 1080, BufferedImage.TYPE_3BYTE_BGR, Method.QUALITY, 170, 96,
+            .0f) >= 170L * 96L * 3L + 4L * (960L * 540L + 480L * 270L));
+        // padded, hence translucent
+        assertEquals(MemoryBudget.estimate(
+            1920, 1080, BufferedImage.TYPE_3BYTE_BGR, Method.SPEED, 160, 160,
+            .0f), 160L * 160L * 4L + RasterPool.bytes(160L * 90L));
+        assertTrue(MemoryBudget.estimate(
+            1920, 1080, BufferedImage.TYPE_INT_RGB, Filter.LANCZOS3, 160, 90,
+            .0f) >= 160L * 90L * 4L + 160L * 1080L * 4L);
+    }
+
+
+    @Test
+    public void estimatePooled() {
+
+        final RasterPool pool = new RasterPool(0L);
+
+        // 160x90 is not a power of two; the array is rounded up to 16384
+        final BufferedImage scaledImage
+            = pool.acquire(160, 90, BufferedImage.TYPE_INT_ARGB);
+        final long scaledBytes = 4L * ((DataBufferInt) scaledImage
+            .getRaster().getDataBuffer()).getData().length;
+        assertTrue(scaledBytes > 160L * 90L * 4L);
+        assertTrue(MemoryBudget.estimate(
+            1920, 1080, BufferedImage.TYPE_3BYTE_BGR, Method.SPEED, 160, 160,
+            .0f) - 160L * 160L * 4L >= scaledBytes);
+
+        final Resampler resampler = Resampler.of(
+            Placement.of(1920, 1080, 160, 90, .0f, .5f, .5f), Filter.LANCZOS3);
+        final int[] intermediate = pool.acquireArray(
+            resampler.getHorizontal().getLength()
+            * (resampler.getVertical().getMaximum()
+               - resampler.getVertical().getMinimum()));
+        assertTrue(MemoryBudget.intermediateBytes(resampler)
+                   >= 4L * intermediate.length);
+    }
+
+
+    @Test
+    public void releasedAsFreed() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final MemoryBudget budget = new MemoryBudget(64L * 1024L * 1024L);
+        final AtomicLong available = new AtomicLong(-1L);
+        Scalr.setMemoryBudget(budget);
+        Scalr.setResizeListener(new ResizeListener() {
+            @Override
+            public void resized(final ResizeEvent event) {
+                available.set(budget.getAvailableBytes());
+            }
+        });
+        try {
+            final BufferedImage targetImage = Scalr.resize(
+                sourceImage, Method.ULTRA_QUALITY, 160, 90, .0f, .5f, .5f);
+            // only the target's share was still held when notified
+            assertEquals(available.get(), budget.getMaximumBytes()
+                                          - RenditionCache.bytes(targetImage),
+                         1024.0d);
+        } finally {
+            Scalr.setResizeListener(ResizeListener.NOOP);
+            Scalr.setMemoryBudget(MemoryBudget.UNLIMITED);
+        }
+        assertEquals(budget.getAvailableBytes(), budget.getMaximumBytes());
+    }
+
+
+    @Test
+    public void reject() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final MemoryBudget budget = new MemoryBudget(
+            1024L * 1024L, 0L, TimeUnit.MILLISECONDS);
+        Scalr.setMemoryBudget(budget);
+        try {
+            Scalr.resize(sourceImage, Filter.BILINEAR, 160, 90, .0f, .5f, .5f);
+            try (MemoryBudget.Permit permit
+                = budget.admit(1024L * 1024L - 4096L)) {
+                Scalr.resize(sourceImage, Filter.BILINEAR, 160, 90, .0f, .5f,
+                             .5f);
+                fail("admitted");
+            } catch (final RejectedExecutionException ree) {
+                // expected
+            }
+        } finally {
+            Scalr.setMemoryBudget(MemoryBudget.UNLIMITED);
+        }
+        assertEquals(budget.getAvailableBytes(), budget.getMaximumBytes());
+    }
+
+
+    @Test
+    public void frames() throws IOException {
+
+        final BufferedImage frameImage
+            = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream gif = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(frameImage, "gif", gif));
+
+        final MemoryBudget budget = new MemoryBudget(
+            1024L * 1024L, 3L, TimeUnit.SECONDS);
+        Scalr.setMemoryBudget(budget);
+        try {
+            // larger than the budget, yet admitted alone, only once
+            final ImageWriter writer
+                = ImageIO.getImageWritersByFormatName("png").next();
+            try (ImageInputStream input = ImageIO.createImageInputStream(
+                new ByteArrayInputStream(gif.toByteArray()));
+                 ImageOutputStream output = ImageIO.createImageOutputStream(
+                     new ByteArrayOutputStream())) {
+                writer.setOutput(output);
+                assertEquals(Scalr.resizeFrames(
+                    input, Method.QUALITY, 100, 70, .0f, .5f, .5f, writer),
+                             1);
+            } finally {
+                writer.dispose();
+            }
+        } finally {
+            Scalr.setMemoryBudget(MemoryBudget.UNLIMITED);
+        }
+        assertEquals(budget.getAvailableBytes(), budget.getMaximumBytes());
+    }
+
+
+    @Test
+    public void queue() throws InterruptedException {
+
+        final MemoryBudget budget = new MemoryBudget(8192L);
+        final MemoryBudget.Permit first = budget.admit(8192L);
+        final AtomicLong admitted = new AtomicLong();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try (MemoryBudget.Permit second = budget.admit(4096L)) {
+                    admitted.set(second.getBytes());
+                }
+            }
+        };
+        thread.start();
+        thread.join(200L);
+        assertTrue(thread.isAlive()); // queued
+        first.release(4096L);
+        thread.join();
+        assertEquals(admitted.get(), 4096L);
+        first.close();
+        assertEquals(budget.getAvailableBytes(), 8192L);
+
+        // larger than the whole budget; admitted alone
+        try (MemoryBudget.Permit whole = budget.admit(1L << 20)) {
+            assertEquals(whole.getBytes(), 8192L);
+            assertFalse(budget.getAvailableBytes() > 0L);
+        }
+    }
+
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ByteLookupTable;
+import java.awt.image.ColorConvertOp;
+import java.awt.image.ConvolveOp;
+import java.awt.image.LookupOp;
+import java.awt.image.RescaleOp;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class OperationsTest {
+
+
+    private static final ConvolveOp SHARPEN = new ConvolveOp(
+        new java.awt.image.Kernel(3, 3, new float[]{
+            0.0f, -.25f, 0.0f,
+            -.25f, 2.0f, -.25f,
+            0.0f, -.25f, 0.0f}),
+        ConvolveOp.EDGE_NO_OP, null);
+
+
+    private static final ConvolveOp SHIFT = new ConvolveOp(
+        new java.awt.image.Kernel(3, 3, new float[]{
+            0.0f, 0.0f, 0.0f,
+            0.0f, 0.0f, 1.0f,
+            0.0f, 0.0f, 0.0f}),
+        ConvolveOp.EDGE_ZERO_FILL, null);
+
+
+    private static final RescaleOp HALF_ALPHA = new RescaleOp(
+        new float[]{1.0f, 1.0f, 1.0f, .5f},
+        new float[]{0.0f, 0.0f, 0.0f, 0.0f}, null);
+
+
+    private static BufferedImageOp[][] opses() {
+
+        final byte[] inverted = new byte[256];
+        for (int i = 0; i < inverted.length; i++) {
+            inverted[i] = (byte) (255 - i);
+        }
+        return new BufferedImageOp[][]{
+            {new RescaleOp(1.2f, 10.0f, null)},
+            {Scalr.OP_GRAYSCALE},
+            {new LookupOp(new ByteLookupTable(0, inverted), null)},
+            {SHARPEN},
+            {SHIFT},
+            {Scalr.OP_ANTIALIAS},
+            {Scalr.OP_BRIGHTER, Scalr.OP_GRAYSCALE, SHARPEN,
+             Scalr.OP_DARKER},
+            {HALF_ALPHA},
+            // not fused
+            {new ColorConvertOp(
+                ColorSpace.getInstance(ColorSpace.CS_LINEAR_RGB), null)},
+            {SHARPEN, new ConvolveOp(new java.awt.image.Kernel(
+                9, 1, new float[]{.1f, .1f, .1f, .1f, .2f, .1f, .1f, .1f,
+                                  .1f}))}
+        };
+    }
+
+
+    /**
+     * Returns the maximum absolute difference of each channel sample.
+     */
+    private static int maximum(final BufferedImage expected,
+                               final BufferedImage actual) {
+
+        assertEquals(actual.getWidth(), expected.getWidth());
+        assertEquals(actual.getHeight(), expected.getHeight());
+        int maximum = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                final int e = expected.getRGB(x, y);
+                final int a = actual.getRGB(x, y);
+                if ((e >>> 24) == 0 && (a >>> 24) == 0) {
+                    continue;
+                }
+                for (int shift = 0; shift < 32; shift += 8) {
+                    maximum = Math.max(maximum, Math.abs(
+                        ((e >>> shift) & 0xFF) - ((a >>> shift) & 0xFF)));
+                }
+            }
+        }
+        return maximum;
+    }
+
+
+    private static BufferedImage translucent() throws IOException {
+
+        final BufferedImage image = ResamplerTest.convert(
+            ResamplerTest.read("506x1024.jpg"), BufferedImage.TYPE_INT_ARGB);
+        final int[] row = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, row.length, 1, row, 0, row.length);
+            for (int x = 0; x < row.length; x++) {
+                row[x] = (row[x] & 0xFFFFFF) | ((x & 0xFF) << 24);
+            }
+            image.setRGB(0, y, row.length, 1, row, 0, row.length);
+        }
+        return image;
+    }
+
+
+    @Test
+    public void filterFused() throws IOException {
+
+        for (final BufferedImage sourceImage : new BufferedImage[]{
+            ResamplerTest.read("1920x1080.jpg"), translucent()}) {
+            for (final BufferedImageOp[] ops : opses()) {
+                // outbox covers the whole target; inbox does not
+                for (final float magnificationFactor
+                     : new float[]{1.0f, .0f}) {
+                    final BufferedImage plain = Scalr.resize(
+                        sourceImage, Filter.BICUBIC, 160, 120,
+                        magnificationFactor, .5f, .5f);
+                    if (ops[0] == HALF_ALPHA
+                        && !plain.getColorModel().hasAlpha()) {
+                        continue; // not applicable to opaque images
+                    }
+                    final BufferedImage expected = Scalr.apply(plain, ops);
+                    final BufferedImage actual = Scalr.resize(
+                        sourceImage, Filter.BICUBIC, 160, 120,
+                        magnificationFactor, .5f, .5f, ops);
+                    final int maximum = maximum(expected, actual);
+                    assertTrue(maximum <= 3, ops[0] + ": " + maximum);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void methodFused() throws IOException {
+
+        final BufferedImage sourceImage = translucent();
+        for (final BufferedImageOp[] ops : opses()) {
+            final BufferedImage plain = Scalr.resize(
+                sourceImage, Method.BALANCED, 160, 120, .0f, .5f, .5f);
+            final BufferedImage expected = Scalr.apply(plain, ops);
+            final BufferedImage actual = Scalr.resize(
+                sourceImage, Method.BALANCED, 160, 120, .0f, .5f, .5f, ops);
+            final int maximum = maximum(expected, actual);
+            assertTrue(maximum <= 3, ops[0] + ": " + maximum);
+        }
+    }
+
+
+    @Test
+    public void intoTargetImage() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        for (final BufferedImageOp[] ops : opses()) {
+            if (ops[0] == HALF_ALPHA) {
+                continue; // not applicable to opaque images
+            }
+            final BufferedImage expected = Scalr.resize(
+                sourceImage, Filter.BILINEAR, 160, 120, 1.0f, .5f, .5f, ops);
+            final BufferedImage targetImage = new BufferedImage(
+                160, 120, expected.getType());
+            final BufferedImage actual = Scalr.resize(
+                sourceImage, Filter.BILINEAR, targetImage, 1.0f, .5f, .5f,
+                ops);
+            assertTrue(actual == targetImage);
+            assertEquals(maximum(expected, actual), 0, ops[0].toString());
+        }
+    }
+
+
+    @Test
+    public void parallel() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final BufferedImageOp[] ops = {Scalr.OP_GRAYSCALE, SHARPEN};
+        final BufferedImage expected = Scalr.resize(
+            sourceImage, Filter.LANCZOS3, 300, 200, 1.0f, .5f, .5f, ops);
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            final BufferedImage actual = Scalr.resize(
+                sourceImage, Filter.LANCZOS3, 300, 200, 1.0f, .5f, .5f,
+                forkJoinPool, ops);
+            assertEquals(maximum(expected, actual), 0);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.ref.WeakReference;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class RasterPoolTest {
+
+
+    private static int[] data(final BufferedImage image) {
+
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+
+    @Test
+    public void acquireReleaseAcquire() {
+
+        final RasterPool pool = new RasterPool(1024L * 1024L);
+
+        final BufferedImage first = pool.acquire(
+            100, 50, BufferedImage.TYPE_INT_ARGB);
+        assertEquals(first.getType(), BufferedImage.TYPE_INT_ARGB);
+        assertEquals(first.getWidth(), 100);
+        assertEquals(first.getHeight(), 50);
+        final int[] array = data(first);
+        pool.release(first);
+        assertEquals(pool.getPooledBytes(), array.length * 4L);
+
+        // same bucket, different size and type
+        final BufferedImage second = pool.acquire(
+            70, 70, BufferedImage.TYPE_INT_RGB);
+        assertEquals(second.getType(), BufferedImage.TYPE_INT_RGB);
+        assertSame(data(second), array);
+        assertEquals(pool.getPooledBytes(), 0L);
+        pool.release(second);
+    }
+
+
+    @Test
+    public void sizeClasses() {
+
+        assertEquals(RasterPool.bytes(1L), 4096L);
+        // a quarter step above each power of two
+        assertEquals(RasterPool.bytes(2049L), 4L * 2560L);
+        assertEquals(RasterPool.bytes(1025L * 1025L), 4L * 1310720L);
+        for (int length = 1; length < 1 << 16; length++) {
+            final int bucket = RasterPool.bucket(length);
+            assertTrue(RasterPool.length(bucket) >= length);
+            assertTrue(bucket == 0 || RasterPool.length(bucket - 1) < length);
+            assertTrue(RasterPool.length(bucket) <= Math.max(1024, length)
+                                                    * 1.25d);
+        }
+        // exact above the largest bucket
+        assertEquals(RasterPool.bytes(1L << 30), 4L << 30);
+    }
+
+
+    @Test
+    public void releaseForeignOrTwice() {
+
+        final RasterPool pool = new RasterPool(1024L * 1024L);
+
+        pool.release(new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB));
+        assertEquals(pool.getPooledBytes(), 0L);
+
+        final BufferedImage image = pool.acquire(
+            32, 32, BufferedImage.TYPE_INT_ARGB);
+        pool.release(image);
+        pool.release(image);
+        assertEquals(pool.getPooledBytes(), 4096L);
+    }
+
+
+    @Test
+    public void dropWithoutRelease() throws InterruptedException {
+
+        final RasterPool pool = new RasterPool(1024L * 1024L);
+
+        final WeakReference<int[]> reference = new WeakReference<int[]>(
+            data(pool.acquire(32, 32, BufferedImage.TYPE_INT_ARGB)));
+        // not held by the pool
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10L);
+        }
+        assertNull(reference.get());
+        assertEquals(pool.getPooledBytes(), 0L);
+    }
+
+
+    @Test
+    public void evict() {
+
+        final RasterPool pool = new RasterPool(8192L);
+
+        final BufferedImage first = pool.acquire(
+            32, 32, BufferedImage.TYPE_INT_ARGB); // 4096 bytes
+        final BufferedImage second = pool.acquire(
+            45, 45, BufferedImage.TYPE_INT_ARGB); // 8192 bytes
+        pool.release(first);
+        pool.release(second);
+        assertEquals(pool.getPooledBytes(), 8192L);
+
+        final BufferedImage third = pool.acquire(
+            32, 32, BufferedImage.TYPE_INT_ARGB);
+        assertNotSame(data(third), data(first));
+        pool.release(third);
+        assertTrue(pool.getPooledBytes() <= pool.getMaximumBytes());
+    }
+
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class RenditionCacheTest {
+
+
+    @Test
+    public void fingerprint() throws IOException {
+
+        final BufferedImage image = ResamplerTest.read("506x1024.jpg");
+        final long fingerprint = RenditionCache.fingerprint(image);
+        assertEquals(RenditionCache.fingerprint(ResamplerTest.convert(
+            image, BufferedImage.TYPE_INT_RGB)), fingerprint);
+        image.setRGB(100, 100, ~image.getRGB(100, 100));
+        assertNotEquals(RenditionCache.fingerprint(image), fingerprint);
+    }
+
+
+    @Test
+    public void hit() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("506x1024.jpg");
+        final RenditionCache cache = new RenditionCache(16L * 1024L * 1024L);
+        final Rendition rendition
+            = Rendition.outbox(Method.BALANCED, 100, 100, .5f, .5f);
+        final BufferedImage resized = cache.resize("a", sourceImage, rendition);
+        assertEquals(cache.getMissCount(), 1L);
+        assertSame(cache.resize("a", sourceImage, rendition), resized);
+        assertSame(cache.resize(
+            "a", sourceImage,
+            Rendition.outbox(Method.BALANCED, 100, 100, .5f, .5f)), resized);
+        assertEquals(cache.getHitCount(), 2L);
+        assertEquals(cache.getWeightedBytes(), RenditionCache.bytes(resized));
+
+        cache.invalidate("a", rendition);
+        assertNull(cache.get("a", rendition));
+        assertEquals(cache.getWeightedBytes(), 0L);
+    }
+
+
+    @Test
+    public void coalesce() throws Exception {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final RenditionCache cache = new RenditionCache(16L * 1024L * 1024L);
+        final Rendition rendition
+            = Rendition.inbox(Method.QUALITY, 300, 300, .5f, .5f);
+        final int count = 8;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            final List<Future<BufferedImage>> futures
+                = new ArrayList<Future<BufferedImage>>();
+            for (int i = 0; i < count; i++) {
+                futures.add(executor.submit(new Callable<BufferedImage>() {
+                    @Override
+                    public BufferedImage call() throws Exception {
+                        latch.await();
+                        return cache.resize(1L, sourceImage, rendition);
+                    }
+                }));
+            }
+            latch.countDown();
+            final BufferedImage resized = futures.get(0).get();
+            for (final Future<BufferedImage> future : futures) {
+                assertSame(future.get(), resized);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    @Test
+    public void evict() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("506x1024.jpg");
+        // 100x100 3BYTE_BGR takes 30000 bytes; three fit in a single segment
+        final RenditionCache cache = new RenditionCache(90000L, 1);
+        final Rendition rendition
+            = Rendition.outbox(Method.SPEED, 100, 100, .5f, .5f);
+        cache.resize(0, sourceImage, rendition);
+        cache.resize(0, sourceImage, rendition); // protected
+        for (int i = 1; i < 10; i++) {
+            cache.resize(i, sourceImage, rendition);
+            assertTrue(cache.getWeightedBytes() <= cache.getMaximumBytes());
+        }
+        assertNotNull(cache.get(0, rendition)); // survived the scan
+        assertNull(cache.get(1, rendition));
+        assertNotNull(cache.get(9, rendition));
+
+        cache.clear();
+        assertEquals(cache.getWeightedBytes(), 0L);
+    }
+
+
+    @Test
+    public void evictAcrossSegments() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("506x1024.jpg");
+        // 100x100 3BYTE_BGR takes 30000 bytes; more than a sixteenth
+        final RenditionCache cache = new RenditionCache(90000L, 16);
+        assertEquals(cache.getMaximumEntryBytes(), 90000L);
+        final Rendition rendition
+            = Rendition.outbox(Method.SPEED, 100, 100, .5f, .5f);
+        for (int i = 0; i < 10; i++) {
+            cache.resize(i, sourceImage, rendition);
+            assertNotNull(cache.get(i, rendition));
+            assertTrue(cache.getWeightedBytes() <= cache.getMaximumBytes());
+        }
+        assertEquals(cache.getWeightedBytes(), 90000L);
+
+        cache.invalidate(9, rendition);
+        assertEquals(cache.getWeightedBytes(), 60000L);
+        cache.clear();
+        assertEquals(cache.getWeightedBytes(), 0L);
+
+        // heavier than the whole maximum
+        final RenditionCache small = new RenditionCache(20000L);
+        small.resize(0, sourceImage, rendition);
+        assertNull(small.get(0, rendition));
+        assertEquals(small.getWeightedBytes(), 0L);
+    }
+
+
+    @Test
+    public void protectAcrossSegments() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("506x1024.jpg");
+        // 100x100 3BYTE_BGR takes 30000 bytes; more than a sixteenth
+        final RenditionCache cache = new RenditionCache(90000L, 16);
+        final Rendition rendition
+            = Rendition.outbox(Method.SPEED, 100, 100, .5f, .5f);
+        for (int i = 0; i < 2; i++) {
+            cache.resize(i, sourceImage, rendition);
+            cache.resize(i, sourceImage, rendition); // protected
+        }
+        for (int i = 2; i < 10; i++) {
+            cache.resize(i, sourceImage, rendition);
+            assertTrue(cache.getWeightedBytes() <= cache.getMaximumBytes());
+        }
+        // both survived the scan
+        assertNotNull(cache.get(0, rendition));
+        assertNotNull(cache.get(1, rendition));
+        assertNotNull(cache.get(9, rendition));
+    }
+
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class ResamplerTest {
+
+
+    static BufferedImage read(final String name) throws IOException {
+
+        try (InputStream sourceStream
+            = ResamplerTest.class.getResourceAsStream("/" + name)) {
+            return ImageIO.read(sourceStream);
+        }
+    }
+
+
+    static BufferedImage convert(final BufferedImage image, final int type) {
+
+        final BufferedImage converted = new BufferedImage(
+            image.getWidth(), image.getHeight(), type);
+        final Graphics2D graphics = converted.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return converted;
+    }
+
+
+    @Test
+    public void kernelWeightsSumToOne() {
+
+        for (final Filter filter : Filter.values()) {
+            for (final int[] lengths : new int[][]{
+                {1920, 200}, {200, 1920}, {7, 3}, {3, 7}, {1, 5}, {5, 1}}) {
+                final Kernel kernel = new Kernel(
+                    filter, lengths[0], lengths[1], 0, lengths[1]);
+                for (int i = 0; i < kernel.getLength(); i++) {
+                    int sum = 0;
+                    for (int k = 0; k < kernel.counts[i]; k++) {
+                        sum += kernel.weights[i * kernel.taps + k];
+                    }
+                    assertEquals(sum, Kernel.ONE, filter + "/" + i);
+                    assertTrue(kernel.firsts[i] >= 0);
+                    assertTrue(kernel.firsts[i] + kernel.counts[i]
+                               <= lengths[0]);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void uniformStaysUniform() {
+
+        final BufferedImage sourceImage = new BufferedImage(
+            301, 199, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < sourceImage.getHeight(); y++) {
+            for (int x = 0; x < sourceImage.getWidth(); x++) {
+                // transparent pixels with garbage colors must not bleed
+                sourceImage.setRGB(x, y, (x + y) % 2 == 0
+                                         ? 0x80336699 : 0x00FF0000);
+            }
+        }
+        for (final Filter filter : Filter.values()) {
+            final BufferedImage targetImage = Scalr.resize(
+                sourceImage, filter, 100, 66, 1.0f, .5f, .5f);
+            final int center = targetImage.getRGB(50, 33);
+            // 8-bit premultiplied intermediates lose a little at low alpha
+            assertTrue(Math.abs(((center >> 16) & 0xFF) - 0x33) <= 4
+                       && Math.abs(((center >> 8) & 0xFF) - 0x66) <= 4
+                       && Math.abs((center & 0xFF) - 0x99) <= 4,
+                       filter + ": " + Integer.toHexString(center));
+        }
+    }
+
+
+    @Test
+    public void sourceTypes() throws IOException {
+
+        final BufferedImage sourceImage = read("506x1024.jpg");
+        final BufferedImage expected = Scalr.resizeInbox(
+            convert(sourceImage, BufferedImage.TYPE_INT_RGB), Filter.BICUBIC,
+            200, 200, .5f, .5f);
+        for (final int type : new int[]{BufferedImage.TYPE_INT_ARGB,
+                                         BufferedImage.TYPE_INT_BGR,
+                                         BufferedImage.TYPE_3BYTE_BGR,
+                                         BufferedImage.TYPE_4BYTE_ABGR,
+                                         BufferedImage.TYPE_USHORT_565_RGB}) {
+            final BufferedImage actual = Scalr.resizeInbox(
+                convert(sourceImage, type), Filter.BICUBIC, 200, 200, .5f,
+                .5f);
+            assertTrue(ScalrTest.difference(expected, actual) < 1.5d,
+                       "type: " + type);
+        }
+        // a sub image shares the raster with a translated sample model
+        final BufferedImage subImage = convert(
+            sourceImage, BufferedImage.TYPE_3BYTE_BGR).getSubimage(
+                10, 20, 400, 800);
+        final BufferedImage copied = convert(
+            subImage, BufferedImage.TYPE_3BYTE_BGR);
+        assertEquals(ScalrTest.difference(
+            Scalr.resizeInbox(copied, Filter.LANCZOS3, 100, 100, .5f, .5f),
+            Scalr.resizeInbox(subImage, Filter.LANCZOS3, 100, 100, .5f, .5f)),
+                     .0d);
+    }
+
+
+    @Test
+    public void closeToQuality() throws IOException {
+
+        for (final String name
+             : new String[]{"506x1024.jpg", "1920x1080.jpg"}) {
+            final BufferedImage sourceImage = read(name);
+            for (final float magnificationFactor : new float[]{.0f, 1.0f}) {
+                final BufferedImage expected = Scalr.resize(
+                    sourceImage, Method.QUALITY, 200, 200, magnificationFactor,
+                    .5f, .5f);
+                for (final Filter filter : new Filter[]{Filter.BICUBIC,
+                                                        Filter.LANCZOS3}) {
+                    final BufferedImage actual = Scalr.resize(
+                        sourceImage, filter, 200, 200, magnificationFactor,
+                        .5f, .5f);
+                    final double difference
+                        = ScalrTest.difference(expected, actual);
+                    assertTrue(difference < 4.0d,
+                               name + "/" + filter + ": " + difference);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void parallel() throws IOException {
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            for (final String name : new String[]{"506x1024.jpg",
+                                                  "1920x1080.jpg"}) {
+                final BufferedImage sourceImage = read(name);
+                for (final Filter filter : Filter.values()) {
+                    for (final float magnificationFactor
+                         : new float[]{.0f, 1.0f, 2.0f}) {
+                        final BufferedImage expected = Scalr.resize(
+                            sourceImage, filter, 300, 200,
+                            magnificationFactor, .3f, .7f);
+                        final BufferedImage actual = Scalr.resize(
+                            sourceImage, filter, 300, 200,
+                            magnificationFactor, .3f, .7f, forkJoinPool);
+                        assertEquals(ScalrTest.difference(expected, actual),
+                                     .0d, name + "/" + filter);
+                    }
+                }
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import com.github.jinahya.imgscalr.ResizeEvent.Phase;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class ResizeHistogramsTest {
+
+
+    @Test
+    public void events() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final List<ResizeEvent> events = new ArrayList<ResizeEvent>();
+        Scalr.setResizeListener(new ResizeListener() {
+            @Override
+            public void resized(final ResizeEvent event) {
+                events.add(event);
+            }
+        });
+        try {
+            // not an exact integer reduction; scaled into an auxiliary image
+            Scalr.resize(sourceImage, Method.QUALITY, 150, 150, .0f, .5f, .5f,
+                         Scalr.OP_ANTIALIAS);
+            Scalr.resize(sourceImage, Filter.BICUBIC, 160, 160, .0f, .5f,
+                         .5f);
+            try (InputStream stream = ResizeHistogramsTest.class
+                .getResourceAsStream("/506x1024.jpg")) {
+                Scalr.resizeInbox(stream, Method.BALANCED, 100, 100, .5f, .5f);
+            }
+        } finally {
+            Scalr.setResizeListener(ResizeListener.NOOP);
+        }
+        assertEquals(events.size(), 3);
+
+        final ResizeEvent method = events.get(0);
+        assertSame(method.getScalingMethod(), Method.QUALITY);
+        assertNull(method.getFilter());
+        assertEquals(method.getSourceWidth(), 1920);
+        assertEquals(method.getTargetHeight(), 150);
+        assertEquals(method.getTargetBytes(), 150L * 150L * 4L);
+        assertTrue(method.getIntermediateBytes() >= 150L * 84L * 4L);
+        for (final Phase phase : new Phase[]{Phase.RESAMPLE, Phase.COMPOSITE,
+                                             Phase.FILTER}) {
+            assertTrue(method.getNanos(phase) > 0L, phase.name());
+        }
+        assertEquals(method.getNanos(Phase.DECODE), 0L);
+
+        final ResizeEvent filter = events.get(1);
+        assertSame(filter.getFilter(), Filter.BICUBIC);
+        assertEquals(filter.getIntermediateBytes(), 0L);
+        assertTrue(filter.getNanos(Phase.RESAMPLE) > 0L);
+
+        final ResizeEvent stream = events.get(2);
+        assertEquals(stream.getSourceWidth(), 506);
+        assertTrue(stream.getNanos(Phase.DECODE) > 0L);
+    }
+
+
+    @Test
+    public void aggregate() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("506x1024.jpg");
+        final ResizeHistograms histograms = new ResizeHistograms();
+        Scalr.setResizeListener(histograms);
+        try {
+            for (int i = 0; i < 10; i++) {
+                Scalr.resize(sourceImage, Method.SPEED, 100, 100, .5f, .5f,
+                             .5f);
+            }
+            Scalr.resize(sourceImage, Filter.BOX, 100, 100, .5f, .5f, .5f);
+        } finally {
+            Scalr.setResizeListener(ResizeListener.NOOP);
+        }
+        assertEquals(histograms.getPhaseNanos(Phase.RESAMPLE).getCount(), 11L);
+        assertEquals(histograms.getPhaseNanos(Phase.DECODE).getCount(), 0L);
+        assertEquals(histograms.getTotalNanos().get(Method.SPEED).getCount(),
+                     10L);
+        assertEquals(histograms.getTotalNanos().get(Filter.BOX).getCount(),
+                     1L);
+        assertEquals(histograms.getTargetBytes().getCount(), 11L);
+    }
+
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import javax.imageio.ImageIO;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class ResizePipelineTest {
+
+
+    private static final Function<BufferedImage, BufferedImage> RESIZE
+        = new Function<BufferedImage, BufferedImage>() {
+            @Override
+            public BufferedImage apply(final BufferedImage sourceImage) {
+                return Scalr.resizeOutboxCenter(
+                    sourceImage, Method.QUALITY, 320, 240);
+            }
+        };
+
+
+    private static byte[] bytes(final String name) throws IOException {
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input
+            = ResizePipelineTest.class.getResourceAsStream("/" + name)) {
+            final byte[] buffer = new byte[8192];
+            for (int r; (r = input.read(buffer)) != -1;) {
+                output.write(buffer, 0, r);
+            }
+        }
+        return output.toByteArray();
+    }
+
+
+    @Test
+    public void sameAsSerial() throws Exception {
+
+        final String[] names = {"1920x1080.jpg", "506x1024.jpg"};
+        final List<byte[]> expected = new ArrayList<byte[]>();
+        for (final String name : names) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ImageIO.write(RESIZE.apply(ImageIO.read(
+                new ByteArrayInputStream(bytes(name)))), "png", output);
+            expected.add(output.toByteArray());
+        }
+
+        final List<ByteArrayOutputStream> outputs
+            = new ArrayList<ByteArrayOutputStream>();
+        final List<CompletableFuture<Void>> futures
+            = new ArrayList<CompletableFuture<Void>>();
+        try (ResizePipeline pipeline
+            = new ResizePipeline(2, 2, 2, 2, RESIZE, "png", -1.0f)) {
+            for (int i = 0; i < 12; i++) {
+                final ByteArrayOutputStream output
+                    = new ByteArrayOutputStream();
+                outputs.add(output);
+                final ByteArrayInputStream input = new ByteArrayInputStream(
+                    bytes(names[i % names.length]));
+                futures.add(i % 3 == 0
+                            ? pipeline.submit(input,
+                                              Channels.newChannel(output))
+                            : pipeline.submit(input, output));
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertTrue(futures.get(i).isDone());
+            futures.get(i).get();
+            assertEquals(outputs.get(i).toByteArray(),
+                         expected.get(i % names.length));
+        }
+    }
+
+
+    @Test
+    public void failed() throws Exception {
+
+        final ResizePipeline pipeline
+            = new ResizePipeline(1, 1, 1, 1, RESIZE, "jpeg", .8f);
+        final CompletableFuture<Void> garbage = pipeline.submit(
+            new ByteArrayInputStream(new byte[]{1, 2, 3}),
+            new ByteArrayOutputStream());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CompletableFuture<Void> image = pipeline.submit(
+            new ByteArrayInputStream(bytes("1920x1080.jpg")), output);
+        pipeline.close();
+
+        try {
+            garbage.get();
+            fail("decoded garbage");
+        } catch (final ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof IOException);
+        }
+        image.get();
+        final BufferedImage targetImage
+            = ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(targetImage.getWidth(), 320);
+        assertEquals(targetImage.getHeight(), 240);
+
+        try {
+            pipeline.submit(new ByteArrayInputStream(new byte[0]),
+                            new ByteArrayOutputStream()).get();
+            fail("submitted after closed");
+        } catch (final ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+
+}
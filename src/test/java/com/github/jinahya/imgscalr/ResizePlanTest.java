@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Jin Kwon &lt;jinahya_at_gmail.com&gt;.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.jinahya.imgscalr;
+
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.imgscalr.Scalr.Method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+
+/**
+ *
+ * @author Jin Kwon &lt;jinahya_at_gmail.com&gt;
+ */
+public class ResizePlanTest {
+
+
+    private static int[] pixels(final BufferedImage image) {
+
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0,
+                            image.getWidth());
+    }
+
+
+    @Test
+    public void sameAsScalr() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        for (final float magnification : new float[]{.0f, .5f, 1.0f}) {
+            final ResizePlan filterPlan = ResizePlan.of(
+                1920, 1080, 300, 300, magnification, .25f, .75f,
+                Filter.BICUBIC);
+            assertEquals(pixels(filterPlan.resize(sourceImage)),
+                         pixels(Scalr.resize(sourceImage, Filter.BICUBIC, 300,
+                                             300, magnification, .25f,
+                                             .75f)));
+            final ResizePlan methodPlan = ResizePlan.of(
+                1920, 1080, 300, 300, magnification, .25f, .75f,
+                Method.QUALITY);
+            assertEquals(pixels(methodPlan.resize(sourceImage)),
+                         pixels(Scalr.resize(sourceImage, Method.QUALITY, 300,
+                                             300, magnification, .25f,
+                                             .75f)));
+
+            // into a reused target image
+            final BufferedImage targetImage = new BufferedImage(
+                300, 300, BufferedImage.TYPE_INT_ARGB);
+            for (int i = 0; i < 2; i++) {
+                assertSame(filterPlan.resize(sourceImage, targetImage),
+                           targetImage);
+                assertEquals(pixels(targetImage), pixels(Scalr.resize(
+                    sourceImage, Filter.BICUBIC,
+                    new BufferedImage(300, 300, BufferedImage.TYPE_INT_ARGB),
+                    magnification, .25f, .75f)));
+            }
+        }
+    }
+
+
+    @Test
+    public void mismatched() throws IOException {
+
+        final BufferedImage sourceImage = ResamplerTest.read("506x1024.jpg");
+        final ResizePlan plan = ResizePlan.of(
+            1920, 1080, 100, 100, .0f, .5f, .5f, Filter.BILINEAR);
+        assertTrue(!plan.matches(sourceImage));
+        try {
+            plan.resize(sourceImage);
+            fail("resized a mismatched source image");
+        } catch (final IllegalArgumentException iae) {
+            // expected
+        }
+        try {
+            ResizePlan.of(506, 1024, 100, 100, .0f, .5f, .5f, Filter.BILINEAR)
+                .resize(sourceImage, new BufferedImage(
+                    100, 99, BufferedImage.TYPE_INT_ARGB));
+            fail("resized into a mismatched target image");
+        } catch (final IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+
+    @Test
+    public void shared() throws Exception {
+
+        final BufferedImage sourceImage = ResamplerTest.read("1920x1080.jpg");
+        final ResizePlan plan = ResizePlan.of(
+            1920, 1080, 200, 150, 1.0f, .5f, .5f, Filter.LANCZOS3);
+        final int[] expected = pixels(plan.resize(sourceImage));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        return pixels(plan.resize(sourceImage));
+                    }
+                }));
+            }
+            for (final Future<int[]> future : futures) {
+                assertEquals(future.get(), expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+}
@@ -18,12 +18,22 @@
 package com.github.jinahya.imgscalr;
 
 
+import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.awt.Graphics2D;
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import org.imgscalr.Scalr.Method;
+import org.imgscalr.Scalr.Mode;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 import org.testng.annotations.Test;
@@ -336,5 +346,353 @@ public class ScalrTest {
     }
 
 
-}
+    private static BufferedImage read(final String name) throws IOException {
+
+        try (InputStream sourceStream
+            = ScalrTest.class.getResourceAsStream("/" + name)) {
+            return ImageIO.read(sourceStream);
+        }
+    }
+
+
+    /**
+     * Resizes the whole source image and composites it, as {@link Scalr}
+     * did before the visible region has been cropped.
+     */
+    private static BufferedImage resizeUncropped(
+        final BufferedImage sourceImage, final Method scalingMethod,
+        final int targetWidth, final int targetHeight,
+        final float horizontalWeight, final float verticalWeight) {
+
+        final Placement placement = Placement.of(
+            sourceImage.getWidth(), sourceImage.getHeight(), targetWidth,
+            targetHeight, 1.0f, horizontalWeight, verticalWeight);
+        final BufferedImage auxiliaryImage = org.imgscalr.Scalr.resize(
+            sourceImage, scalingMethod, Mode.FIT_EXACT,
+            placement.getAuxiliaryWidth(), placement.getAuxiliaryHeight());
+        final BufferedImage targetImage = new BufferedImage(
+            targetWidth, targetHeight, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = targetImage.createGraphics();
+        graphics.drawImage(auxiliaryImage, placement.getX(), placement.getY(),
+                           null);
+        graphics.dispose();
+        return targetImage;
+    }
+
+
+    /**
+     * Returns the mean absolute difference per channel sample.
+     */
+    static double difference(final BufferedImage expected,
+                             final BufferedImage actual) {
+
+        assertEquals(actual.getWidth(), expected.getWidth());
+        assertEquals(actual.getHeight(), expected.getHeight());
+        long sum = 0L;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                final int e = expected.getRGB(x, y);
+                final int a = actual.getRGB(x, y);
+                for (int s = 0; s < 32; s += 8) {
+                    sum += Math.abs(((e >>> s) & 0xFF) - ((a >>> s) & 0xFF));
+                }
+            }
+        }
+        return sum / (expected.getWidth() * expected.getHeight() * 4.0d);
+    }
+
+
+    @Test
+    public void resizeOutboxCropped() throws IOException {
+
+        for (final String name
+             : new String[]{"506x1024.jpg", "1920x1080.jpg"}) {
+            final BufferedImage sourceImage = read(name);
+            for (final Method scalingMethod : Method.values()) {
+                for (final float weight : new float[]{.0f, .5f, 1.0f}) {
+                    final BufferedImage expected = resizeUncropped(
+                        sourceImage, scalingMethod, 200, 200, weight, weight);
+                    final BufferedImage actual = Scalr.resizeOutbox(
+                        sourceImage, scalingMethod, 200, 200, weight, weight);
+                    final double difference = difference(expected, actual);
+                    assertTrue(name + "/" + scalingMethod + "/" + weight + ": "
+                               + difference, difference < 2.5d);
+                    expected.flush();
+                    actual.flush();
+                }
+            }
+            sourceImage.flush();
+        }
+    }
+
+
+    @Test
+    public void resizeIntoTargetImage() throws IOException {
+
+        final BufferedImage sourceImage = read("1920x1080.jpg");
+        final BufferedImage targetImage = new BufferedImage(
+            200, 200, BufferedImage.TYPE_INT_ARGB);
+        for (final float magnificationFactor : new float[]{.0f, 1.0f}) {
+            final BufferedImage expected = Scalr.resize(
+                sourceImage, Method.QUALITY, 200, 200, magnificationFactor,
+                .5f, .5f);
+            // twice; the second one reuses both the target and the pool
+            for (int i = 0; i < 2; i++) {
+                assertEquals(Scalr.resize(
+                    sourceImage, Method.QUALITY, targetImage,
+                    magnificationFactor, .5f, .5f), targetImage);
+                assertEquals(difference(expected, targetImage), .0d);
+            }
+        }
+    }
+
+
+    @Test
+    public void resizeProgressively() throws IOException {
+
+        final BufferedImage sourceImage = read("1920x1080.jpg");
+        for (final Filter filter : Filter.values()) {
+            final List<Object> stages = new ArrayList<Object>();
+            final List<BufferedImage> images = new ArrayList<BufferedImage>();
+            final BufferedImage targetImage = Scalr.resizeInbox(
+                sourceImage, filter, 200, 200, .5f, .5f,
+                new ProgressListener() {
+                    @Override
+                    public boolean progressed(final BufferedImage targetImage,
+                                              final ResizePlan plan,
+                                              final boolean last) {
+                        stages.add(plan.getScalingMethod() != null
+                                   ? plan.getScalingMethod()
+                                   : plan.getFilter());
+                        images.add(targetImage);
+                        assertEquals(last, plan.getFilter() == filter);
+                        return true;
+                    }
+                });
+            assertEquals(stages, filter.compareTo(Filter.BILINEAR) > 0
+                                 ? Arrays.asList(Method.SPEED,
+                                                 Filter.BILINEAR, filter)
+                                 : Arrays.asList(Method.SPEED, filter));
+            // every stage into the same image
+            for (final BufferedImage image : images) {
+                assertTrue(image == targetImage);
+            }
+            assertEquals(difference(Scalr.resizeInbox(
+                sourceImage, filter, 200, 200, .5f, .5f), targetImage), .0d);
+        }
+
+        // stopped after the preview
+        final BufferedImage previewImage = Scalr.resizeOutbox(
+            sourceImage, Filter.LANCZOS3, 200, 200, .5f, .5f,
+            new ProgressListener() {
+                @Override
+                public boolean progressed(final BufferedImage targetImage,
+                                          final ResizePlan plan,
+                                          final boolean last) {
+                    assertEquals(plan.getScalingMethod(), Method.SPEED);
+                    return false;
+                }
+            });
+        assertEquals(difference(Scalr.resizeOutbox(
+            sourceImage, Method.SPEED, 200, 200, .5f, .5f), previewImage),
+                     .0d);
+    }
 
+
+    @Test
+    public void resizeFromStream() throws IOException {
+
+        for (final String name
+             : new String[]{"506x1024.jpg", "1920x1080.jpg"}) {
+            final BufferedImage sourceImage = read(name);
+            // SPEED and BALANCED alias too much to compare with; an even
+            // subsampling period has no center pixel and sits half a source
+            // pixel off the footprint the in-memory path averages
+            for (final Method scalingMethod : new Method[]{
+                Method.QUALITY, Method.ULTRA_QUALITY}) {
+                for (final float weight : new float[]{.0f, .5f, 1.0f}) {
+                    {
+                        final BufferedImage expected = Scalr.resizeInbox(
+                            sourceImage, scalingMethod, 100, 100, weight,
+                            weight);
+                        final BufferedImage actual;
+                        try (InputStream sourceStream
+                            = ScalrTest.class.getResourceAsStream("/" + name)) {
+                            actual = Scalr.resizeInbox(
+                                sourceStream, scalingMethod, 100, 100, weight,
+                                weight);
+                        }
+                        final double difference = difference(expected, actual);
+                        assertTrue(name + "/" + scalingMethod + ": "
+                                   + difference, difference < 5.0d);
+                    }
+                    {
+                        final BufferedImage expected = Scalr.resizeOutbox(
+                            sourceImage, scalingMethod, 100, 100, weight,
+                            weight);
+                        final BufferedImage actual;
+                        try (InputStream sourceStream
+                            = ScalrTest.class.getResourceAsStream("/" + name)) {
+                            actual = Scalr.resizeOutbox(
+                                sourceStream, scalingMethod, 100, 100, weight,
+                                weight);
+                        }
+                        final double difference = difference(expected, actual);
+                        assertTrue(name + "/" + scalingMethod + ": "
+                                   + difference, difference < 5.0d);
+                    }
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void resizeRenditions() throws IOException {
+
+        final BufferedImage sourceImage = read("1920x1080.jpg");
+        final List<Rendition> renditions = Arrays.asList(
+            Rendition.outbox(Method.QUALITY, 100, 100, .5f, .5f),
+            Rendition.inbox(Method.QUALITY, 1280, 720, .5f, .5f),
+            Rendition.inbox(Method.QUALITY, 640, 640, .5f, .5f),
+            Rendition.outbox(Method.BALANCED, 200, 200, .5f, .5f),
+            Rendition.inbox(Method.QUALITY, 320, 320, .0f, .0f));
+        final List<BufferedImage> actuals
+            = Scalr.resize(sourceImage, renditions);
+        assertEquals(actuals.size(), renditions.size());
+        for (int i = 0; i < renditions.size(); i++) {
+            final Rendition rendition = renditions.get(i);
+            final BufferedImage expected = Scalr.resize(
+                sourceImage, rendition.getScalingMethod(),
+                rendition.getTargetWidth(), rendition.getTargetHeight(),
+                rendition.getMagnificationFactor(),
+                rendition.getHorizontalWeight(),
+                rendition.getVerticalWeight());
+            final double difference = difference(expected, actuals.get(i));
+            assertTrue(rendition + ": " + difference, difference < 3.0d);
+            assertEquals(actuals.get(i).getType(), expected.getType(),
+                         rendition.toString());
+        }
+    }
+
+
+    @Test
+    public void resizeRenditionsOdd() throws IOException {
+
+        final BufferedImage full = read("1920x1080.jpg");
+        // odd at every halving
+        final BufferedImage sourceImage = ResamplerTest.convert(
+            full.getSubimage(0, 0, 1919, 1079), BufferedImage.TYPE_INT_RGB);
+        final List<Rendition> renditions = Arrays.asList(
+            Rendition.outbox(Method.QUALITY, 100, 100, 1.0f, 1.0f),
+            Rendition.inbox(Method.QUALITY, 480, 480, 1.0f, 1.0f),
+            Rendition.outbox(Method.BALANCED, 200, 150, 1.0f, 1.0f),
+            Rendition.outbox(Method.QUALITY, 1200, 700, 1.0f, 1.0f));
+        final List<BufferedImage> actuals
+            = Scalr.resize(sourceImage, renditions);
+        for (int i = 0; i < renditions.size(); i++) {
+            final Rendition rendition = renditions.get(i);
+            final BufferedImage expected = Scalr.resize(
+                sourceImage, rendition.getScalingMethod(),
+                rendition.getTargetWidth(), rendition.getTargetHeight(),
+                rendition.getMagnificationFactor(),
+                rendition.getHorizontalWeight(),
+                rendition.getVerticalWeight());
+            final BufferedImage actual = actuals.get(i);
+            assertEquals(actual.getType(), expected.getType());
+            final int w = expected.getWidth();
+            final int h = expected.getHeight();
+            // the right and the bottom edges
+            final double column = difference(
+                expected.getSubimage(w - 1, 0, 1, h),
+                actual.getSubimage(w - 1, 0, 1, h));
+            final double row = difference(
+                expected.getSubimage(0, h - 1, w, 1),
+                actual.getSubimage(0, h - 1, w, 1));
+            final double difference = difference(expected, actual);
+            assertTrue(rendition + ": " + difference, difference < 3.0d);
+            assertTrue(rendition + ": " + column, column < 5.0d);
+            assertTrue(rendition + ": " + row, row < 5.0d);
+        }
+    }
+
+
+    @Test
+    public void imageTypes() throws IOException {
+
+        final BufferedImage jpeg = read("1920x1080.jpg");
+        assertEquals(jpeg.getType(), BufferedImage.TYPE_3BYTE_BGR);
+
+        // opaque source, covered box
+        assertEquals(Scalr.resizeOutboxCenter(jpeg, Method.BALANCED, 100, 100)
+            .getType(), BufferedImage.TYPE_3BYTE_BGR);
+        assertEquals(Scalr.resize(jpeg, Filter.BILINEAR, 100, 100, 1.0f, .5f,
+                                  .5f).getType(),
+                     BufferedImage.TYPE_3BYTE_BGR);
+        assertEquals(Scalr.resizeOutboxCenter(
+            ResamplerTest.convert(jpeg, BufferedImage.TYPE_INT_RGB),
+            Method.BALANCED, 100, 100).getType(),
+                     BufferedImage.TYPE_INT_RGB);
+
+        // letterboxed without and with an opaque background
+        assertEquals(Scalr.resizeInboxCenter(jpeg, Method.BALANCED, 100, 100)
+            .getType(), BufferedImage.TYPE_INT_ARGB);
+        for (final BufferedImage letterboxed : new BufferedImage[]{
+            Scalr.resizeInbox(jpeg, Method.BALANCED, 100, 100, .5f, .5f,
+                              Color.WHITE),
+            Scalr.resizeInbox(jpeg, Filter.BICUBIC, 100, 100, .5f, .5f,
+                              Color.WHITE)}) {
+            assertEquals(letterboxed.getType(), BufferedImage.TYPE_3BYTE_BGR);
+            assertEquals(letterboxed.getRGB(0, 0), Color.WHITE.getRGB());
+            assertEquals(letterboxed.getRGB(99, 99), Color.WHITE.getRGB());
+        }
+
+        // translucent source
+        assertEquals(Scalr.resizeOutboxCenter(
+            ResamplerTest.convert(jpeg, BufferedImage.TYPE_INT_ARGB),
+            Method.BALANCED, 100, 100).getType(),
+                     BufferedImage.TYPE_INT_ARGB);
+
+        // gray stays gray unless colors may come in
+        final BufferedImage gray
+            = ResamplerTest.convert(jpeg, BufferedImage.TYPE_BYTE_GRAY);
+        assertEquals(Scalr.resizeOutboxCenter(gray, Method.BALANCED, 100, 100)
+            .getType(), BufferedImage.TYPE_BYTE_GRAY);
+        assertEquals(Scalr.resizeOutboxCenter(gray, Method.BALANCED, 100, 100,
+                                              Scalr.OP_BRIGHTER).getType(),
+                     BufferedImage.TYPE_INT_RGB);
+        assertEquals(Scalr.resizeInbox(gray, Method.BALANCED, 100, 100, .5f,
+                                       .5f, Color.RED).getType(),
+                     BufferedImage.TYPE_INT_RGB);
+    }
+
+
+    @Test
+    public void resizeFromStreamSamplesCenters() throws IOException {
+
+        // every fourth column is red; a period of four takes the centers
+        final BufferedImage sourceImage
+            = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 400; x++) {
+            for (int y = 0; y < 400; y++) {
+                sourceImage.setRGB(x, y, x % 4 == 0
+                                         ? Color.RED.getRGB()
+                                         : Color.BLUE.getRGB());
+            }
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(sourceImage, "png", bytes);
+
+        final BufferedImage targetImage;
+        try (ImageInputStream sourceStream = ImageIO.createImageInputStream(
+            new ByteArrayInputStream(bytes.toByteArray()))) {
+            targetImage = Scalr.resize(sourceStream, Method.QUALITY, 50, 50,
+                                       .0f, .5f, .5f);
+        }
+        for (int x = 0; x < 50; x++) {
+            assertEquals(targetImage.getRGB(x, 25), Color.BLUE.getRGB());
+        }
+    }
+
+
+}